@@ -0,0 +1,136 @@
+package com.example.mcpbenchmarks;
+
+import com.example.mcpclient.LlmBackend;
+import com.example.mcpclient.McpClientApplication;
+import com.example.mcpserver.McpServerApplication;
+import org.springframework.beans.factory.support.DefaultListableBeanFactory;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Comparator;
+import java.util.Map;
+import java.util.Properties;
+import java.util.stream.Stream;
+
+/**
+ * Starts the MCP server and client in the benchmark JVM.
+ * <p>
+ * Both modules ship an {@code application.properties}, and on a shared class path only one of
+ * them would be found. Each application is therefore started with its own module's file as
+ * default properties, and the usual config file lookup is pointed at a name that does not exist.
+ * Logging is reduced to warnings so it does not dominate the measurements. The server delivers
+ * accepted submissions to an {@link IntakeStub} and keeps its outbox in a temporary directory,
+ * both removed when the server is closed.
+ */
+public final class BenchmarkApps {
+
+    private static final Map<String, Object> COMMON = Map.of(
+            "spring.config.name", "mcp-benchmarks",
+            "spring.main.banner-mode", "off",
+            "logging.level.root", "WARN",
+            "logging.level.com.example.mcpserver", "WARN",
+            "logging.level.com.example.mcpclient", "WARN");
+
+    private BenchmarkApps() {
+    }
+
+    /**
+     * Starts the MCP server, on a random port if {@code web} is set.
+     */
+    public static ConfigurableApplicationContext startServer(boolean web) {
+        IntakeStub intake;
+        Path outbox;
+        try {
+            intake = IntakeStub.start(0, 0, 0, 503);
+            outbox = Files.createTempDirectory("mcp-benchmarks-outbox");
+        } catch (IOException e) {
+            throw new UncheckedIOException("Error preparing the submission intake", e);
+        }
+        return new SpringApplicationBuilder(McpServerApplication.class)
+                .web(web ? WebApplicationType.SERVLET : WebApplicationType.NONE)
+                // Registered before any bean, so destroyed last, once the forwarder has stopped
+                .initializers(context -> ((DefaultListableBeanFactory) context.getBeanFactory())
+                        .registerDisposableBean("benchmarkIntake", () -> {
+                            intake.close();
+                            deleteRecursively(outbox);
+                        }))
+                .properties(moduleProperties("mcp-server"))
+                .properties(COMMON)
+                .properties(Map.of(
+                        "server.port", "0",
+                        "submission.intake.url", intake.url(),
+                        "submission.outbox.dir", outbox.toString(),
+                        // Measure intake, not rejections while deliveries catch up
+                        "submission.outbox.max-pending", String.valueOf(Integer.MAX_VALUE)))
+                .run();
+    }
+
+    /**
+     * Starts the MCP client without its web endpoints, answering LLM calls with the
+     * {@link StubChatModel} through the regular model pool.
+     */
+    public static ConfigurableApplicationContext startClient(String serverUrl, Map<String, Object> overrides) {
+        return new SpringApplicationBuilder(McpClientApplication.class, StubLlm.class)
+                .web(WebApplicationType.NONE)
+                .properties(moduleProperties("mcp-client"))
+                .properties(COMMON)
+                .properties(Map.of(
+                        "mcp.server.url", serverUrl,
+                        "mcp.llm.backends.azure.enabled", "false",
+                        // The stub has no quota to protect
+                        "mcp.admission.enabled", "false"))
+                .properties(overrides)
+                .run();
+    }
+
+    public static String url(ConfigurableApplicationContext server) {
+        return "http://localhost:" + ((WebServerApplicationContext) server).getWebServer().getPort();
+    }
+
+    private static void deleteRecursively(Path dir) {
+        try (Stream<Path> files = Files.walk(dir)) {
+            for (Path file : files.sorted(Comparator.reverseOrder()).toList()) {
+                Files.deleteIfExists(file);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Error deleting " + dir, e);
+        }
+    }
+
+    /**
+     * Reads a module's {@code application.properties}, copied under {@code module-config/<module>/}
+     * by the build.
+     */
+    static Properties moduleProperties(String module) {
+        String location = "module-config/" + module + "/application.properties";
+        try (InputStream in = BenchmarkApps.class.getClassLoader().getResourceAsStream(location)) {
+            if (in == null) {
+                throw new IllegalStateException("Not on the class path: " + location);
+            }
+            Properties properties = new Properties();
+            properties.load(in);
+            return properties;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Error reading " + location, e);
+        }
+    }
+
+    @Configuration
+    static class StubLlm {
+
+        @Bean
+        public LlmBackend stubBackend() {
+            return new LlmBackend("stub", new StubChatModel(), false, 1024, 5, Duration.ofSeconds(30));
+        }
+    }
+}
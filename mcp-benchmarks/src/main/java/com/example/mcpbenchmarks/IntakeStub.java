@@ -0,0 +1,142 @@
+package com.example.mcpbenchmarks;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Local stand-in for the downstream submission intake, for trying out the server's submission
+ * forwarding without the real service.
+ * <p>
+ * Accepts POSTs on any path after an optional delay, fails a share of them with a configurable
+ * status, and deduplicates by {@code Idempotency-Key} like a well-behaved intake: a repeated
+ * key is acknowledged again but not counted twice. Every 10 seconds, and on exit, it prints the
+ * requests received, the distinct submissions and the duplicates. Point the server at it with
+ * {@code submission.intake.url}:
+ * <pre>
+ * java -cp benchmarks.jar com.example.mcpbenchmarks.IntakeStub --port=8095 --latency-ms=200 --error-rate=0.2
+ * java -jar mcp-server-0.0.1-SNAPSHOT.jar --submission.intake.url=http://localhost:8095/intake
+ * </pre>
+ */
+public final class IntakeStub implements AutoCloseable {
+
+    private final HttpServer server;
+    private final long latencyMillis;
+    private final double errorRate;
+    private final int errorStatus;
+
+    private final AtomicLong received = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+    private final AtomicLong duplicates = new AtomicLong();
+    private final Set<String> keys = ConcurrentHashMap.newKeySet();
+
+    private IntakeStub(int port, long latencyMillis, double errorRate, int errorStatus) throws IOException {
+        this.latencyMillis = latencyMillis;
+        this.errorRate = errorRate;
+        this.errorStatus = errorStatus;
+        this.server = HttpServer.create(new InetSocketAddress("localhost", port), 0);
+        server.createContext("/", this::handle);
+        // Delays must not limit how many deliveries the stub takes at once
+        server.setExecutor(Executors.newVirtualThreadPerTaskExecutor());
+        server.start();
+    }
+
+    /**
+     * Starts a stub on {@code port}, or on a free port if it is 0.
+     */
+    public static IntakeStub start(int port, long latencyMillis, double errorRate, int errorStatus) throws IOException {
+        return new IntakeStub(port, latencyMillis, errorRate, errorStatus);
+    }
+
+    public String url() {
+        return "http://localhost:" + server.getAddress().getPort() + "/intake";
+    }
+
+    /**
+     * Number of distinct submissions acknowledged.
+     */
+    public long delivered() {
+        return keys.size();
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try (exchange; InputStream body = exchange.getRequestBody()) {
+            body.transferTo(OutputStream.nullOutputStream());
+            received.incrementAndGet();
+            if (!exchange.getRequestMethod().equals("POST")) {
+                respond(exchange, 405, "{\"error\": \"POST expected\"}");
+                return;
+            }
+            if (latencyMillis > 0) {
+                TimeUnit.MILLISECONDS.sleep(latencyMillis);
+            }
+            if (ThreadLocalRandom.current().nextDouble() < errorRate) {
+                failed.incrementAndGet();
+                respond(exchange, errorStatus, "{\"error\": \"Simulated failure\"}");
+                return;
+            }
+            String key = exchange.getRequestHeaders().getFirst("Idempotency-Key");
+            if (key != null && !keys.add(key)) {
+                duplicates.incrementAndGet();
+            } else if (key == null) {
+                keys.add("anonymous-" + received.get());
+            }
+            respond(exchange, 200, "{\"status\": \"received\"}");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void respond(HttpExchange exchange, int status, String body) throws IOException {
+        byte[] bytes = body.getBytes();
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        exchange.sendResponseHeaders(status, bytes.length);
+        exchange.getResponseBody().write(bytes);
+    }
+
+    private String summary() {
+        return String.format("received=%d failed=%d delivered=%d duplicates=%d",
+                received.get(), failed.get(), delivered(), duplicates.get());
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = new HashMap<>();
+        for (String arg : args) {
+            if (!arg.startsWith("--") || !arg.contains("=")) {
+                System.err.println("Usage: IntakeStub [--port=8095] [--latency-ms=0] [--error-rate=0] [--error-status=503]");
+                System.exit(2);
+            }
+            options.put(arg.substring(2, arg.indexOf('=')), arg.substring(arg.indexOf('=') + 1));
+        }
+        IntakeStub stub = start(Integer.parseInt(options.getOrDefault("port", "8095")),
+                Long.parseLong(options.getOrDefault("latency-ms", "0")),
+                Double.parseDouble(options.getOrDefault("error-rate", "0")),
+                Integer.parseInt(options.getOrDefault("error-status", "503")));
+        System.out.println("Intake stub listening at " + stub.url());
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            stub.close();
+            System.out.println(stub.summary());
+        }));
+        while (true) {
+            TimeUnit.SECONDS.sleep(10);
+            System.out.println(stub.summary());
+        }
+    }
+}
@@ -0,0 +1,290 @@
+package com.example.mcpbenchmarks;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Replays requests against a running MCP client at a fixed rate and reports throughput,
+ * latency percentiles and a per-stage breakdown of the pipeline.
+ * <p>
+ * The load is open-loop: request {@code i} is due at {@code i / rps} seconds whatever happened
+ * to earlier ones, and its latency is measured from that due time, so a saturated client shows
+ * up as growing latency rather than a quietly lower request rate. The requests are read from a
+ * file of JSON values, one after the other as in {@code requests.jsonl} or {@code example.json}
+ * (arrays are replayed element by element), and sent round robin. Stage timings come from the
+ * client's Prometheus endpoint, scraped when measurement starts and ends.
+ * <p>
+ * With the client on the {@code simulated} profile this needs no network or LLM quota:
+ * <pre>
+ * java -cp benchmarks.jar com.example.mcpbenchmarks.LoadDriver --url=http://localhost:8080 \
+ *     --requests=requests.jsonl --rps=20 --duration-seconds=120 --warmup-seconds=20
+ * </pre>
+ */
+public final class LoadDriver {
+
+    private static final Pattern SAMPLE = Pattern.compile("^(\\w+)\\{(.*)} (\\S+)$");
+    private static final Pattern LABEL = Pattern.compile("(\\w+)=\"((?:[^\"\\\\]|\\\\.)*)\"");
+    private static final double[] PERCENTILES = {50, 90, 95, 99, 99.9};
+
+    private record Result(long due, long latency, int status) {
+    }
+
+    private LoadDriver() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = new HashMap<>();
+        for (String arg : args) {
+            if (!arg.startsWith("--") || !arg.contains("=")) {
+                System.err.println("Usage: LoadDriver [--url=http://localhost:8080] [--requests=<file>] [--rps=10]"
+                        + " [--duration-seconds=60] [--warmup-seconds=10] [--timeout-seconds=120]");
+                System.exit(2);
+            }
+            options.put(arg.substring(2, arg.indexOf('=')), arg.substring(arg.indexOf('=') + 1));
+        }
+        String url = options.getOrDefault("url", "http://localhost:8080");
+        double rps = Double.parseDouble(options.getOrDefault("rps", "10"));
+        long warmup = TimeUnit.SECONDS.toNanos(Long.parseLong(options.getOrDefault("warmup-seconds", "10")));
+        long duration = TimeUnit.SECONDS.toNanos(Long.parseLong(options.getOrDefault("duration-seconds", "60")));
+        Duration timeout = Duration.ofSeconds(Long.parseLong(options.getOrDefault("timeout-seconds", "120")));
+
+        List<byte[]> bodies = requests(options.get("requests"));
+        System.out.printf("Replaying %d distinct requests at %.1f/s against %s: %d s warm-up, %d s measured%n",
+                bodies.size(), rps, url, TimeUnit.NANOSECONDS.toSeconds(warmup), TimeUnit.NANOSECONDS.toSeconds(duration));
+
+        HttpClient client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .executor(Executors.newVirtualThreadPerTaskExecutor())
+                .connectTimeout(Duration.ofSeconds(5))
+                .build();
+        URI endpoint = URI.create(url + "/mcpclient/processRequest");
+        URI metrics = URI.create(url + "/actuator/prometheus");
+
+        ConcurrentLinkedQueue<Result> results = new ConcurrentLinkedQueue<>();
+        List<CompletableFuture<?>> inFlight = new ArrayList<>();
+        Snapshot before = null;
+        long period = (long) (TimeUnit.SECONDS.toNanos(1) / rps);
+        long start = System.nanoTime();
+        for (long i = 0; ; i++) {
+            long due = start + i * period;
+            if (due - start >= warmup + duration) {
+                break;
+            }
+            if (before == null && due - start >= warmup) {
+                before = Snapshot.scrape(client, metrics);
+            }
+            LockSupport.parkNanos(due - System.nanoTime());
+
+            HttpRequest request = HttpRequest.newBuilder(endpoint)
+                    .timeout(timeout)
+                    .header("Content-Type", "application/json")
+                    .POST(HttpRequest.BodyPublishers.ofByteArray(bodies.get((int) (i % bodies.size()))))
+                    .build();
+            boolean measured = due - start >= warmup;
+            CompletableFuture<?> call = client.sendAsync(request, HttpResponse.BodyHandlers.discarding())
+                    .handle((response, error) -> {
+                        if (measured) {
+                            results.add(new Result(due, System.nanoTime() - due, error == null ? response.statusCode() : -1));
+                        }
+                        return null;
+                    });
+            inFlight.add(call);
+            inFlight.removeIf(CompletableFuture::isDone);
+        }
+        long end = start + warmup + duration;
+        CompletableFuture.allOf(inFlight.toArray(CompletableFuture[]::new)).join();
+        Snapshot after = Snapshot.scrape(client, metrics);
+
+        report(new ArrayList<>(results), System.nanoTime() - start - warmup, duration, end);
+        if (before != null && after != null) {
+            after.minus(before).print(results.size());
+        } else {
+            System.out.println("No stage breakdown: " + metrics + " could not be scraped");
+        }
+        System.exit(0);
+    }
+
+    /**
+     * Reads the requests to replay: consecutive JSON values, with arrays expanded.
+     */
+    private static List<byte[]> requests(String file) throws IOException {
+        ObjectMapper objectMapper = new ObjectMapper();
+        List<byte[]> bodies = new ArrayList<>();
+        try (InputStream in = file == null ? LoadDriver.class.getClassLoader().getResourceAsStream("example.json")
+                : Files.newInputStream(Path.of(file));
+             MappingIterator<JsonNode> values = objectMapper.readerFor(JsonNode.class).readValues(in)) {
+            while (values.hasNextValue()) {
+                JsonNode value = values.nextValue();
+                for (JsonNode request : value.isArray() ? value : List.of(value)) {
+                    bodies.add(objectMapper.writeValueAsBytes(request));
+                }
+            }
+        }
+        if (bodies.isEmpty()) {
+            throw new IllegalArgumentException("No requests in " + (file == null ? "example.json" : file));
+        }
+        return bodies;
+    }
+
+    /**
+     * Prints the outcome of the measured requests: {@code elapsed} runs until the last of them
+     * completed, {@code duration} until the end of the measurement window.
+     */
+    private static void report(List<Result> results, long elapsed, long duration, long end) {
+        Map<String, Integer> statuses = new TreeMap<>();
+        long[] latencies = new long[results.size()];
+        int completedInWindow = 0;
+        int succeededInWindow = 0;
+        for (int i = 0; i < results.size(); i++) {
+            Result result = results.get(i);
+            statuses.merge(result.status() < 0 ? "error" : String.valueOf(result.status()), 1, Integer::sum);
+            latencies[i] = result.latency();
+            if (result.due() + result.latency() <= end) {
+                completedInWindow++;
+                if (result.status() == 200) {
+                    succeededInWindow++;
+                }
+            }
+        }
+        Arrays.sort(latencies);
+
+        System.out.printf("%nRequests: %d sent, responses %s%n", results.size(), statuses);
+        System.out.printf("Throughput: %.1f responses/s (%.1f/s successful) within the measurement window,"
+                        + " %.1f/s including the drain%n", completedInWindow / (duration / 1e9),
+                succeededInWindow / (duration / 1e9), results.size() / (elapsed / 1e9));
+        if (latencies.length > 0) {
+            StringBuilder line = new StringBuilder("Latency (ms, from due time):");
+            for (double percentile : PERCENTILES) {
+                int index = (int) Math.min(latencies.length - 1, Math.ceil(percentile / 100 * latencies.length) - 1);
+                line.append(String.format(" p%s=%.1f", format(percentile), latencies[Math.max(index, 0)] / 1e6));
+            }
+            line.append(String.format(" max=%.1f", latencies[latencies.length - 1] / 1e6));
+            System.out.println(line);
+        }
+    }
+
+    private static String format(double value) {
+        return value == Math.rint(value) ? String.valueOf((long) value) : String.valueOf(value);
+    }
+
+    /**
+     * The pipeline stage timers and token counters of one Prometheus scrape.
+     */
+    private record Snapshot(Map<String, Map<String, Double>> counts, Map<String, Double> sums,
+                            Map<String, TreeMap<Double, Double>> buckets, Map<String, Double> tokens) {
+
+        static Snapshot scrape(HttpClient client, URI metrics) {
+            String text;
+            try {
+                HttpResponse<String> response = client.send(HttpRequest.newBuilder(metrics).GET().build(),
+                        HttpResponse.BodyHandlers.ofString());
+                if (response.statusCode() != 200) {
+                    return null;
+                }
+                text = response.body();
+            } catch (IOException e) {
+                return null;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return null;
+            }
+
+            Snapshot snapshot = new Snapshot(new TreeMap<>(), new TreeMap<>(), new TreeMap<>(), new TreeMap<>());
+            text.lines().forEach(line -> {
+                Matcher sample = SAMPLE.matcher(line);
+                if (!sample.matches()) {
+                    return;
+                }
+                Map<String, String> labels = new HashMap<>();
+                Matcher label = LABEL.matcher(sample.group(2));
+                while (label.find()) {
+                    labels.put(label.group(1), label.group(2));
+                }
+                double value = Double.parseDouble(sample.group(3));
+                String stage = labels.get("stage");
+                switch (sample.group(1)) {
+                    case "mcp_pipeline_stage_seconds_count" -> snapshot.counts
+                            .computeIfAbsent(stage, s -> new TreeMap<>()).merge(labels.get("outcome"), value, Double::sum);
+                    case "mcp_pipeline_stage_seconds_sum" -> snapshot.sums.merge(stage, value, Double::sum);
+                    case "mcp_pipeline_stage_seconds_bucket" -> snapshot.buckets
+                            .computeIfAbsent(stage, s -> new TreeMap<>())
+                            .merge(labels.get("le").equals("+Inf") ? Double.POSITIVE_INFINITY
+                                    : Double.parseDouble(labels.get("le")), value, Double::sum);
+                    case "mcp_llm_tokens_total" -> snapshot.tokens.merge(labels.get("type"), value, Double::sum);
+                    default -> {
+                    }
+                }
+            });
+            return snapshot;
+        }
+
+        Snapshot minus(Snapshot earlier) {
+            Snapshot delta = new Snapshot(new TreeMap<>(), new TreeMap<>(), new TreeMap<>(), new TreeMap<>());
+            counts.forEach((stage, outcomes) -> outcomes.forEach((outcome, value) -> delta.counts
+                    .computeIfAbsent(stage, s -> new TreeMap<>())
+                    .put(outcome, value - earlier.counts.getOrDefault(stage, Map.of()).getOrDefault(outcome, 0.0))));
+            sums.forEach((stage, value) -> delta.sums.put(stage, value - earlier.sums.getOrDefault(stage, 0.0)));
+            buckets.forEach((stage, bounds) -> bounds.forEach((le, value) -> delta.buckets
+                    .computeIfAbsent(stage, s -> new TreeMap<>())
+                    .put(le, value - earlier.buckets.getOrDefault(stage, new TreeMap<>()).getOrDefault(le, 0.0))));
+            tokens.forEach((type, value) -> delta.tokens.put(type, value - earlier.tokens.getOrDefault(type, 0.0)));
+            return delta;
+        }
+
+        void print(int requests) {
+            System.out.printf("%n%-22s %8s %9s %10s %10s%n", "Stage", "calls", "failed", "mean ms", "p95 ms <=");
+            counts.forEach((stage, outcomes) -> {
+                double calls = outcomes.values().stream().mapToDouble(Double::doubleValue).sum();
+                if (calls <= 0) {
+                    return;
+                }
+                double failed = calls - outcomes.getOrDefault("success", 0.0);
+                System.out.printf("%-22s %8.0f %9.0f %10.1f %10s%n", stage, calls, failed,
+                        sums.getOrDefault(stage, 0.0) * 1000 / calls, p95(buckets.get(stage), calls));
+            });
+            if (requests > 0 && !tokens.isEmpty()) {
+                System.out.printf("LLM tokens per request: %.0f prompt, %.0f completion%n",
+                        tokens.getOrDefault("prompt", 0.0) / requests, tokens.getOrDefault("completion", 0.0) / requests);
+            }
+        }
+
+        /**
+         * The upper bound of the histogram bucket holding the 95th percentile.
+         */
+        private static String p95(TreeMap<Double, Double> cumulative, double calls) {
+            if (cumulative == null) {
+                return "-";
+            }
+            for (Map.Entry<Double, Double> bucket : cumulative.entrySet()) {
+                if (bucket.getValue() >= 0.95 * calls) {
+                    return bucket.getKey().isInfinite() ? "inf" : String.format("%.1f", bucket.getKey() * 1000);
+                }
+            }
+            return "-";
+        }
+    }
+}
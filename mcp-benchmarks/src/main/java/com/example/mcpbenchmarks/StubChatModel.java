@@ -0,0 +1,57 @@
+package com.example.mcpbenchmarks;
+
+import dev.langchain4j.data.message.AiMessage;
+import dev.langchain4j.data.message.ChatMessage;
+import dev.langchain4j.data.message.UserMessage;
+import dev.langchain4j.model.chat.ChatLanguageModel;
+import dev.langchain4j.model.chat.request.ChatRequest;
+import dev.langchain4j.model.chat.response.ChatResponse;
+import dev.langchain4j.model.output.Response;
+import dev.langchain4j.model.output.TokenUsage;
+
+import java.util.List;
+
+/**
+ * Chat model that answers instantly with canned responses, so benchmarks measure the client
+ * and not the LLM. Tool selection prompts get {@code submissionIntake}; every other prompt gets
+ * the transformation of the first request in {@code example.json}.
+ */
+public class StubChatModel implements ChatLanguageModel {
+
+    public static final String TRANSFORMATION = """
+            {"submission": {
+              "submissionGeneralInfo": {
+                "submissionDescription": "Test Submission",
+                "underWritingYear": "2025",
+                "inceptionDate": [2025, 2, 4],
+                "expiryDate": [2026, 12, 30]
+              },
+              "intermediaries": [
+                {"party": {"role": "Insured", "name": "WTWFEB", "dunsNumber": "079481909"}}
+              ]
+            }}""";
+
+    @Override
+    public ChatResponse chat(ChatRequest request) {
+        List<ChatMessage> messages = request.messages();
+        String prompt = messages.get(messages.size() - 1) instanceof UserMessage user ? user.singleText() : "";
+        String answer = prompt.contains("Tool Name:") ? "submissionIntake" : TRANSFORMATION;
+        // Roughly four characters per token
+        return ChatResponse.builder()
+                .aiMessage(AiMessage.from(answer))
+                .tokenUsage(new TokenUsage(prompt.length() / 4, answer.length() / 4))
+                .build();
+    }
+
+    /**
+     * Required by {@link ChatLanguageModel} in this langchain4j version; the client only calls
+     * {@link #chat(ChatRequest)}.
+     */
+    @Override
+    @Deprecated
+    @SuppressWarnings("removal")
+    public Response<AiMessage> generate(List<ChatMessage> messages) {
+        ChatResponse response = chat(messages);
+        return Response.from(response.aiMessage(), response.tokenUsage());
+    }
+}
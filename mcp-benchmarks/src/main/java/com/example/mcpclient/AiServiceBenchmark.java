@@ -0,0 +1,105 @@
+package com.example.mcpclient;
+
+import com.example.mcpbenchmarks.BenchmarkApps;
+import com.example.mcpbenchmarks.StubChatModel;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.core.io.ClassPathResource;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The client's prompt and response handling around the LLM: rendering the tool catalog,
+ * rendering a transformation prompt (with the stub model answering instantly) and parsing
+ * model responses in the shapes models return them.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class AiServiceBenchmark {
+
+    /**
+     * A model response in one of the shapes models return: plain JSON, a markdown code block,
+     * or JSON surrounded by prose.
+     */
+    @State(Scope.Benchmark)
+    public static class ModelResponse {
+
+        @Param({"plain", "fenced", "prose"})
+        private String style;
+
+        private String text;
+
+        @Setup
+        public void setUp() {
+            text = switch (style) {
+                case "fenced" -> "```json\n" + StubChatModel.TRANSFORMATION + "\n```";
+                case "prose" -> "Here is the transformed submission:\n\n" + StubChatModel.TRANSFORMATION
+                        + "\n\nLet me know if you need anything else.";
+                default -> StubChatModel.TRANSFORMATION;
+            };
+        }
+    }
+
+    private ConfigurableApplicationContext server;
+    private ConfigurableApplicationContext client;
+    private AiService aiService;
+    private JsonNode tools;
+    private JsonNode schema;
+    private Map<String, Object> userRequest;
+
+    @Setup
+    public void setUp() throws IOException {
+        server = BenchmarkApps.startServer(true);
+        client = BenchmarkApps.startClient(BenchmarkApps.url(server), Map.of());
+        aiService = client.getBean(AiService.class);
+
+        ToolCatalog catalog = client.getBean(ToolCatalogCache.class).get();
+        tools = catalog.tools();
+        schema = tools.get("submissionIntake").get("schema");
+        try (InputStream in = new ClassPathResource("example.json").getInputStream()) {
+            userRequest = client.getBean(ObjectMapper.class).readValue(in, new TypeReference<>() {});
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        client.close();
+        server.close();
+    }
+
+    @Benchmark
+    public String buildToolsDescription() {
+        return aiService.buildToolsDescription(tools);
+    }
+
+    @Benchmark
+    public String transformQueryRaw() {
+        return aiService.transformQueryRaw(userRequest, schema);
+    }
+
+    @Benchmark
+    public JsonNode parseJson(ModelResponse response) {
+        return aiService.parseJson(response.text);
+    }
+}
@@ -0,0 +1,74 @@
+package com.example.mcpclient;
+
+import com.example.mcpbenchmarks.BenchmarkApps;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.core.io.ClassPathResource;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A whole request through the client pipeline against a real MCP server on a local port, with
+ * the stub model in place of the LLM. With {@code plan} disabled, every request goes through
+ * the transformation prompt; with it enabled, repeated requests replay the learned mapping plan.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class PipelineBenchmark {
+
+    @Param({"true", "false"})
+    private String plan;
+
+    private ConfigurableApplicationContext server;
+    private ConfigurableApplicationContext client;
+    private McpService mcpService;
+    private ObjectMapper objectMapper;
+    private JsonNode example;
+
+    @Setup
+    public void setUp() throws IOException {
+        server = BenchmarkApps.startServer(true);
+        // Every call replays the same request, which the result cache would answer without the pipeline
+        client = BenchmarkApps.startClient(BenchmarkApps.url(server),
+                Map.of("mcp.plan.enabled", plan, "mcp.result.cache.enabled", "false"));
+        mcpService = client.getBean(McpService.class);
+        objectMapper = client.getBean(ObjectMapper.class);
+        try (InputStream in = new ClassPathResource("example.json").getInputStream()) {
+            example = objectMapper.readTree(in);
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        client.close();
+        server.close();
+    }
+
+    @Benchmark
+    public JsonNode processUserRequest() {
+        // Enrichment patches the request in place, so each call gets a fresh copy
+        Map<String, Object> userRequest = objectMapper.convertValue(example, new TypeReference<>() {});
+        return mcpService.processUserRequest(userRequest);
+    }
+}
@@ -0,0 +1,114 @@
+package com.example.mcpserver;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.core.io.DefaultResourceLoader;
+import org.springframework.util.FileSystemUtils;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * ISIC to AOC lookups on a generated reference table of {@code codes} rows: every section,
+ * division, group and class of the ISIC Rev.4 numbering, plus detailed national codes of 6 to
+ * 9 digits. Lookups hit exact codes, fall back through the hierarchy, or miss.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class IsicAocLookupBenchmark {
+
+    private static final int LOOKUPS = 4096;
+
+    @Param({"10000", "1000000"})
+    private int codes;
+
+    private Path directory;
+    private IsicAocLookup lookup;
+    private final String[] exact = new String[LOOKUPS];
+    private final String[] fallback = new String[LOOKUPS];
+    private final String[] missing = new String[LOOKUPS];
+    private int next;
+
+    @Setup
+    public void setUp() throws IOException {
+        directory = Files.createTempDirectory("isic-benchmark");
+        Path csv = directory.resolve("isic-to-aoc.csv");
+        Random random = new Random(42);
+        String[] detailed = new String[codes];
+
+        try (BufferedWriter out = Files.newBufferedWriter(csv)) {
+            out.write("isic_code,aoc_code\n");
+            for (char section = 'A'; section <= 'U'; section++) {
+                out.write(section + ",AOC" + section + "\n");
+            }
+            for (int division = 1; division < 100; division++) {
+                out.write(String.format("%02d,AOC%02d%n", division, division));
+                for (int group = 0; group < 10; group++) {
+                    out.write(String.format("%02d%d,AOC%02d%d%n%02d%d0,AOC%02d%d0%n",
+                            division, group, division, group, division, group, division, group));
+                }
+            }
+            for (int i = 0; i < codes; i++) {
+                detailed[i] = detailedCode(random);
+                out.write(detailed[i] + ",AOC" + (i % 5000) + "\n");
+            }
+        }
+
+        lookup = new IsicAocLookup(new DefaultResourceLoader(), csv.toUri().toString(),
+                directory.resolve("isic-to-aoc.idx").toString());
+        for (int i = 0; i < LOOKUPS; i++) {
+            exact[i] = detailed[random.nextInt(codes)];
+            // Detailed codes are generated with a leading non-zero digit after the class, so 0-prefixed suffixes miss
+            fallback[i] = exact[i].substring(0, 4) + "00" + random.nextInt(10);
+            missing[i] = "99" + (1000000 + random.nextInt(9000000));
+        }
+    }
+
+    private static String detailedCode(Random random) {
+        int length = 6 + random.nextInt(4);
+        StringBuilder code = new StringBuilder(String.format("%02d%d0", 1 + random.nextInt(99), random.nextInt(10)));
+        code.append(1 + random.nextInt(9));
+        while (code.length() < length) {
+            code.append(random.nextInt(10));
+        }
+        return code.toString();
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        FileSystemUtils.deleteRecursively(directory);
+    }
+
+    @Benchmark
+    public IsicAocLookup.Match exact() {
+        return lookup.resolve(exact[next++ & (LOOKUPS - 1)], false);
+    }
+
+    @Benchmark
+    public IsicAocLookup.Match hierarchicalFallback() {
+        return lookup.resolve(fallback[next++ & (LOOKUPS - 1)], true);
+    }
+
+    @Benchmark
+    public IsicAocLookup.Match miss() {
+        return lookup.resolve(missing[next++ & (LOOKUPS - 1)], false);
+    }
+}
@@ -0,0 +1,112 @@
+package com.example.mcpserver;
+
+import com.example.mcpbenchmarks.BenchmarkApps;
+import com.example.mcpbenchmarks.StubChatModel;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Server request handling without HTTP: /mcp/execute with schema validation and the synced
+ * write to the submission outbox, both streamed (tool named before the input) and through a
+ * tree (input first), serving the tool catalog, and building the catalog snapshot
+ * (serialization, gzip and ETag) as happens on every tool registration. Run with
+ * {@code -prof gc} to compare allocation per request.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class McpControllerBenchmark {
+
+    private ConfigurableApplicationContext server;
+    private McpController controller;
+    private ToolRegistry toolRegistry;
+    private ObjectMapper objectMapper;
+    private byte[] streamedRequest;
+    private byte[] treeRequest;
+
+    @Param({"1", "1000"})
+    public int intermediaries;
+
+    @Setup
+    public void setUp() throws IOException {
+        server = BenchmarkApps.startServer(false);
+        controller = server.getBean(McpController.class);
+        toolRegistry = server.getBean(ToolRegistry.class);
+        objectMapper = server.getBean(ObjectMapper.class);
+
+        ObjectNode input = (ObjectNode) objectMapper.readTree(StubChatModel.TRANSFORMATION);
+        ArrayNode items = (ArrayNode) input.path("submission").path("intermediaries");
+        JsonNode item = items.get(0);
+        items.removeAll();
+        for (int i = 0; i < intermediaries; i++) {
+            items.add(item.deepCopy());
+        }
+        String json = objectMapper.writeValueAsString(input);
+        streamedRequest = ("{\"tool\": \"submissionIntake\", \"input\": " + json + "}").getBytes();
+        treeRequest = ("{\"input\": " + json + ", \"tool\": \"submissionIntake\"}").getBytes();
+    }
+
+    @TearDown
+    public void tearDown() {
+        server.close();
+    }
+
+    @Benchmark
+    public MockHttpServletResponse executeStreamed() throws IOException {
+        return execute(streamedRequest);
+    }
+
+    @Benchmark
+    public MockHttpServletResponse executeTree() throws IOException {
+        return execute(treeRequest);
+    }
+
+    @Benchmark
+    public ResponseEntity<byte[]> getTools() {
+        return controller.getTools(null, null);
+    }
+
+    @Benchmark
+    public ResponseEntity<byte[]> getToolsNotModified() {
+        return controller.getTools(toolRegistry.catalog().etag(), "gzip");
+    }
+
+    @Benchmark
+    public ToolCatalogSnapshot catalogSnapshot() throws IOException {
+        return ToolCatalogSnapshot.of(toolRegistry.catalog().tools(), objectMapper);
+    }
+
+    private MockHttpServletResponse execute(byte[] body) throws IOException {
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/mcp/execute");
+        request.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        request.setContent(body);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        controller.execute(request, response);
+        return response;
+    }
+}
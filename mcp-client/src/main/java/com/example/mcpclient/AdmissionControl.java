@@ -0,0 +1,387 @@
+package com.example.mcpclient;
+
+import dev.langchain4j.data.message.ChatMessage;
+import dev.langchain4j.model.Tokenizer;
+import dev.langchain4j.model.output.TokenUsage;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Admission control for LLM calls, so that bursts queue up at the quota instead of failing
+ * together with 429s.
+ * <p>
+ * Calls draw their estimated tokens (prompt plus {@code expected-output-tokens}) from a token
+ * bucket refilled at {@code tokens-per-minute}; once a call completes, the estimate is settled
+ * against the reported usage. Calls that find the bucket empty wait in a bounded queue, strictly
+ * by priority ({@link Priority#INTERACTIVE} before {@link Priority#BULK}) and then in arrival
+ * order. A call is rejected with an {@link AdmissionRejectedException} if it cannot start before
+ * its deadline, judged up front from the tokens queued ahead of it, or if the queue is full;
+ * a full queue makes room for a higher-priority call by shedding its newest lowest-priority waiter.
+ * <p>
+ * The priority and deadline of a request travel with it in a {@link Ticket}, opened where the
+ * request enters the client. The ticket is inherited by the threads the pipeline starts, so
+ * the LLM calls deep in the pipeline are charged to it, and it records a rejection for the
+ * entry point to report.
+ */
+@Component
+public class AdmissionControl {
+
+    private static final Logger log = LoggerFactory.getLogger(AdmissionControl.class);
+
+    private static final InheritableThreadLocal<Ticket> CURRENT = new InheritableThreadLocal<>();
+
+    public enum Priority { INTERACTIVE, BULK }
+
+    /**
+     * A request's admission context: its priority, deadline and any rejection of its LLM calls.
+     * Closing the ticket unbinds it from the opening thread.
+     */
+    public static final class Ticket implements AutoCloseable {
+        private final Priority priority;
+        private final long deadline;
+        private volatile AdmissionRejectedException rejection;
+
+        private Ticket(Priority priority, long deadline) {
+            this.priority = priority;
+            this.deadline = deadline;
+        }
+
+        public Priority priority() {
+            return priority;
+        }
+
+        /**
+         * The first rejection of one of the request's LLM calls, or null.
+         */
+        public AdmissionRejectedException rejection() {
+            return rejection;
+        }
+
+        @Override
+        public void close() {
+            if (CURRENT.get() == this) {
+                CURRENT.remove();
+            }
+        }
+    }
+
+    private static final class Waiter {
+        final Ticket ticket;
+        final long sequence;
+        final long tokens;
+        final long deadline;
+        AdmissionRejectedException shed;
+
+        Waiter(Ticket ticket, long sequence, long tokens, long deadline) {
+            this.ticket = ticket;
+            this.sequence = sequence;
+            this.tokens = tokens;
+            this.deadline = deadline;
+        }
+    }
+
+    private static final Comparator<Waiter> QUEUE_ORDER = Comparator
+            .comparing((Waiter waiter) -> waiter.ticket.priority)
+            .thenComparingLong(waiter -> waiter.sequence);
+
+    private final Tokenizer tokenizer;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition changed = lock.newCondition();
+    private final PriorityQueue<Waiter> queue = new PriorityQueue<>(QUEUE_ORDER);
+
+    // Guarded by lock
+    private double available;
+    private long lastRefill;
+    private long sequence;
+
+    private final LongAdder admitted = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+
+    @Value("${mcp.admission.enabled:true}")
+    private boolean enabled;
+
+    @Value("${mcp.admission.tokens-per-minute:90000}")
+    private long tokensPerMinute;
+
+    @Value("${mcp.admission.burst-tokens:15000}")
+    private long burstTokens;
+
+    @Value("${mcp.admission.expected-output-tokens:300}")
+    private int expectedOutputTokens;
+
+    @Value("${mcp.admission.queue-capacity:1000}")
+    private int queueCapacity;
+
+    @Value("${mcp.admission.interactive.deadline-ms:30000}")
+    private long interactiveDeadlineMs;
+
+    @Value("${mcp.admission.bulk.deadline-ms:300000}")
+    private long bulkDeadlineMs;
+
+    @Autowired
+    public AdmissionControl(Tokenizer tokenizer) {
+        this.tokenizer = tokenizer;
+    }
+
+    @PostConstruct
+    void init() {
+        available = burstTokens;
+        lastRefill = System.nanoTime();
+    }
+
+    /**
+     * Opens a ticket for a request entering the client and binds it to the current thread and
+     * the threads it starts. Interactive requests are checked against the queue right away.
+     *
+     * @throws AdmissionRejectedException if an interactive request cannot be admitted in time
+     */
+    public Ticket open(Priority priority) {
+        Ticket ticket = ticket(priority);
+        if (priority == Priority.INTERACTIVE) {
+            check(ticket, expectedOutputTokens);
+        }
+        CURRENT.set(ticket);
+        return ticket;
+    }
+
+    /**
+     * Creates a ticket whose deadline starts now, without binding it to a thread. Tasks of the
+     * request bind their own tickets to it with {@link #open(Ticket)}.
+     */
+    public Ticket ticket(Priority priority) {
+        return new Ticket(priority, System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(
+                priority == Priority.INTERACTIVE ? interactiveDeadlineMs : bulkDeadlineMs));
+    }
+
+    /**
+     * Opens a ticket for one task of a request and binds it to the current thread. The task
+     * shares the request's priority and deadline but records its own rejection.
+     */
+    public Ticket open(Ticket request) {
+        Ticket ticket = new Ticket(request.priority, request.deadline);
+        CURRENT.set(ticket);
+        return ticket;
+    }
+
+    /**
+     * Returns the first rejection of an LLM call under the current thread's ticket, or null.
+     */
+    public AdmissionRejectedException rejection() {
+        Ticket ticket = CURRENT.get();
+        return ticket == null ? null : ticket.rejection;
+    }
+
+    /**
+     * Checks whether a new request of the given priority would be admitted now, without
+     * reserving anything.
+     *
+     * @throws AdmissionRejectedException if it would be rejected
+     */
+    public void check(Priority priority) {
+        check(ticket(priority), expectedOutputTokens);
+    }
+
+    /**
+     * Admits an LLM call of the current request, waiting for tokens if needed.
+     *
+     * @return the tokens charged, to be passed to {@link #settle}
+     * @throws AdmissionRejectedException if the call is rejected
+     */
+    public long acquire(List<ChatMessage> messages) {
+        if (!enabled) {
+            return 0;
+        }
+        long tokens = Math.min(tokenizer.estimateTokenCountInMessages(messages) + (long) expectedOutputTokens,
+                burstTokens);
+        Ticket ticket = CURRENT.get();
+        if (ticket == null) {
+            ticket = new Ticket(Priority.INTERACTIVE,
+                    System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(interactiveDeadlineMs));
+        }
+
+        try {
+            acquire(ticket, tokens);
+            admitted.increment();
+            return tokens;
+        } catch (AdmissionRejectedException e) {
+            rejected.increment();
+            if (ticket.rejection == null) {
+                ticket.rejection = e;
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Corrects the bucket once a call has completed: unused estimated tokens are returned and
+     * overruns are charged. Without a usage (the call failed, or the model reports none) the
+     * whole charge is returned.
+     */
+    public void settle(long charged, TokenUsage usage) {
+        if (charged == 0) {
+            return;
+        }
+        long used = usage == null || usage.totalTokenCount() == null ? 0 : usage.totalTokenCount();
+        lock.lock();
+        try {
+            refill();
+            available = Math.min(available + charged - used, burstTokens);
+            changed.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public long admitted() {
+        return admitted.sum();
+    }
+
+    public long rejected() {
+        return rejected.sum();
+    }
+
+    public int queued() {
+        lock.lock();
+        try {
+            return queue.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void check(Ticket ticket, long tokens) {
+        if (!enabled) {
+            return;
+        }
+        lock.lock();
+        try {
+            refill();
+            if (queue.size() >= queueCapacity && lowestBelow(ticket.priority) == null) {
+                throw new AdmissionRejectedException("LLM admission queue is full", waitFor(ticket.priority, tokens));
+            }
+            Duration wait = waitFor(ticket.priority, tokens);
+            if (System.nanoTime() + wait.toNanos() - ticket.deadline > 0) {
+                throw new AdmissionRejectedException("LLM quota exhausted until after the request deadline", wait);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void acquire(Ticket ticket, long tokens) {
+        lock.lock();
+        try {
+            refill();
+            if (queue.isEmpty() && available >= tokens) {
+                available -= tokens;
+                return;
+            }
+
+            if (queue.size() >= queueCapacity) {
+                Waiter victim = lowestBelow(ticket.priority);
+                if (victim == null) {
+                    throw new AdmissionRejectedException("LLM admission queue is full", waitFor(ticket.priority, tokens));
+                }
+                queue.remove(victim);
+                victim.shed = new AdmissionRejectedException("Shed from the LLM admission queue for a higher-priority call",
+                        waitFor(victim.ticket.priority, victim.tokens));
+            }
+            Duration wait = waitFor(ticket.priority, tokens);
+            if (System.nanoTime() + wait.toNanos() - ticket.deadline > 0) {
+                throw new AdmissionRejectedException("LLM quota exhausted until after the request deadline", wait);
+            }
+
+            Waiter waiter = new Waiter(ticket, sequence++, tokens, ticket.deadline);
+            queue.add(waiter);
+            try {
+                while (true) {
+                    if (waiter.shed != null) {
+                        throw waiter.shed;
+                    }
+                    refill();
+                    if (queue.peek() == waiter && available >= tokens) {
+                        queue.poll();
+                        available -= tokens;
+                        return;
+                    }
+                    long now = System.nanoTime();
+                    if (now - waiter.deadline >= 0) {
+                        throw new AdmissionRejectedException("LLM admission deadline exceeded while queued",
+                                waitFor(ticket.priority, tokens));
+                    }
+                    long sleep = waiter.deadline - now;
+                    if (queue.peek() == waiter) {
+                        sleep = Math.min(sleep, nanosUntil(tokens));
+                    }
+                    changed.awaitNanos(sleep);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new AdmissionRejectedException("Interrupted while waiting for LLM admission", Duration.ZERO);
+            } finally {
+                if (queue.remove(waiter)) {
+                    log.debug("{} LLM call left the admission queue without tokens", ticket.priority);
+                }
+                changed.signalAll();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Estimates how long a call would wait: the tokens queued ahead of it plus its own, less
+     * what the bucket holds, at the refill rate. Called with the lock held.
+     */
+    private Duration waitFor(Priority priority, long tokens) {
+        long ahead = tokens;
+        for (Waiter waiter : queue) {
+            if (waiter.ticket.priority.compareTo(priority) <= 0) {
+                ahead += waiter.tokens;
+            }
+        }
+        return Duration.ofNanos(Math.max(0, (long) ((ahead - available) * nanosPerToken())));
+    }
+
+    /**
+     * Returns the newest waiter of the lowest priority below {@code priority}, or null.
+     */
+    private Waiter lowestBelow(Priority priority) {
+        Waiter lowest = null;
+        for (Waiter waiter : queue) {
+            if (waiter.ticket.priority.compareTo(priority) > 0
+                    && (lowest == null || QUEUE_ORDER.compare(waiter, lowest) > 0)) {
+                lowest = waiter;
+            }
+        }
+        return lowest;
+    }
+
+    private long nanosUntil(long tokens) {
+        return Math.max(1, (long) ((tokens - available) * nanosPerToken()));
+    }
+
+    private double nanosPerToken() {
+        return TimeUnit.MINUTES.toNanos(1) / (double) tokensPerMinute;
+    }
+
+    private void refill() {
+        long now = System.nanoTime();
+        available = Math.min(burstTokens, available + (now - lastRefill) / nanosPerToken());
+        lastRefill = now;
+    }
+}
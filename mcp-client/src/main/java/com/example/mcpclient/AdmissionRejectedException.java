@@ -0,0 +1,30 @@
+package com.example.mcpclient;
+
+import java.time.Duration;
+
+/**
+ * Thrown when {@link AdmissionControl} will not admit an LLM call: the wait queue is full or
+ * the call could not start before its deadline. Callers should retry after {@link #retryAfter()}.
+ */
+public class AdmissionRejectedException extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    private final Duration retryAfter;
+
+    public AdmissionRejectedException(String message, Duration retryAfter) {
+        super(message);
+        this.retryAfter = retryAfter;
+    }
+
+    public Duration retryAfter() {
+        return retryAfter;
+    }
+
+    /**
+     * The retry delay in whole seconds, as sent in a Retry-After header.
+     */
+    public long retryAfterSeconds() {
+        return Math.max(1, (retryAfter.toMillis() + 999) / 1000);
+    }
+}
@@ -2,18 +2,33 @@ package com.example.mcpclient;
 
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import dev.langchain4j.data.message.UserMessage;
 import dev.langchain4j.model.chat.ChatLanguageModel;
+import dev.langchain4j.model.chat.StreamingChatLanguageModel;
+import dev.langchain4j.model.chat.request.ChatRequest;
+import dev.langchain4j.model.chat.request.ChatRequestParameters;
+import dev.langchain4j.model.chat.request.ResponseFormat;
+import dev.langchain4j.model.chat.request.ResponseFormatType;
+import dev.langchain4j.model.chat.request.json.JsonObjectSchema;
+import dev.langchain4j.model.chat.request.json.JsonSchema;
+import dev.langchain4j.model.chat.response.ChatResponse;
+import dev.langchain4j.model.chat.response.StreamingChatResponseHandler;
 import dev.langchain4j.model.input.Prompt;
 import dev.langchain4j.model.input.PromptTemplate;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.log4j.Log4j2;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 
 @Service
 @Log4j2
@@ -22,12 +37,51 @@ public class AiService {
 
     private static final Logger log = LoggerFactory.getLogger(AiService.class);
     private final ChatLanguageModel chatLanguageModel;
+    private final ObjectProvider<StreamingChatLanguageModel> streamingChatLanguageModel;
+    private final ToolSelectionCache toolSelectionCache;
+    private final PromptBuilder promptBuilder;
+    private final ToolRouter toolRouter;
+    private final AdmissionControl admissionControl;
+    private final PipelineMetrics metrics;
     private final ObjectMapper objectMapper = new ObjectMapper();
 
+    @Value("${mcp.llm.streaming:false}")
+    private boolean streaming;
+
+    @Value("${mcp.llm.structured-output:false}")
+    private boolean structuredOutput;
+
+    @Value("${mcp.llm.stream.abort-on-violation:false}")
+    private boolean abortOnViolation;
+
+    /**
+     * Selects the tool for a user request. Requests the {@link ToolRouter} can decide never reach
+     * the AI model; the others reuse the cached selection for requests of the same shape and
+     * catalog version and only ask the AI model on a cache miss.
+     */
+    public String selectTool(Map<String, Object> userRequest, ToolCatalog catalog) {
+        ToolRouter.Route route = toolRouter.route(userRequest, catalog);
+        if (route != null) {
+            log.info("Selected tool '{}' by {} ({})", route.tool(), route.source(), route.detail());
+            return route.tool();
+        }
+
+        boolean[] asked = new boolean[1];
+        String selected = toolSelectionCache.get(userRequest, catalog, () -> {
+            asked[0] = true;
+            return selectTool(userRequest, catalog.tools());
+        });
+        log.info("Selected tool '{}' by {}", selected, asked[0] ? "llm" : "cache");
+        return selected;
+    }
+
     /**
      * Uses the AI model to select the most appropriate tool based on the user request.
      */
     public String selectTool(Map<String, Object> userRequest, JsonNode tools) {
+        if (structuredOutput) {
+            return selectToolStructured(userRequest, tools);
+        }
         try {
             log.debug("Selecting tool for request: {}", userRequest.get("title"));
             String toolsDescription = buildToolsDescription(tools);
@@ -42,41 +96,27 @@ public class AiService {
             {{toolsDescription}}
 
             == Task ==
-            I need you to carefully analyze the user request and determine which tool is most appropriate. Please think through this decision step by step:
-
-            1. Analyze the user request to understand its core requirements
-            2. Review each tool's description and capabilities
-            3. Compare the tools against the user's needs
-            4. Eliminate tools that don't fully meet the requirements
-            5. Justify your final selection
-
-            == Response Format ==
-            Please format your response as follows:
+            Select the tool that best meets the request. Answer exactly in this format, with one of the tool names and nothing after it:
 
             ------
-            [Your detailed reasoning process here]
+            [One-sentence reasoning]
             ------
             Final Answer: [Tool Name]
-
-            Rules:
-            * The final answer must be one of the tool names provided
-            * Do not include any extra text after the final answer
-            * Keep the reasoning detailed but concise
             """;
 
             Map<String, Object> variables = Map.of(
-                    "userRequest", userRequest,
+                    "userRequest", promptBuilder.userData(userRequest),
                     "toolsDescription", toolsDescription
             );
 
             Prompt prompt = PromptTemplate.from(promptTemplateString).apply(variables);
             //log.info("Prompt sent to LLM: {}", prompt.text());
 
-            String response = chatLanguageModel.generate(prompt.text()).toString().trim();
+            String response = generate(prompt.text()).trim();
             log.debug("Raw response from LLM: {}", response);
 
             String[] parts = response.split("------");
-            if (parts.length >= 2) {
+            if (parts.length >= 3) {
                 String reasoning = parts[1].trim();
                 String finalAnswer = parts[2].trim().replace("Final Answer: ", "").trim();
 
@@ -106,12 +146,77 @@ public class AiService {
     }
 
     /**
-     * Uses the AI model to transform a user request to match the required schema
+     * Selects a tool with a structured-output request: the response is a JSON object whose
+     * {@code tool} field is constrained to the catalog's tool names.
      */
-// In AiService.java, inside the transformQuery method
+    private String selectToolStructured(Map<String, Object> userRequest, JsonNode tools) {
+        String response = null;
+        try {
+            log.debug("Selecting tool with structured output for request: {}", userRequest.get("title"));
+
+            List<String> toolNames = new ArrayList<>();
+            tools.fieldNames().forEachRemaining(toolNames::add);
+            ResponseFormat format = ResponseFormat.builder()
+                    .type(ResponseFormatType.JSON)
+                    .jsonSchema(JsonSchema.builder()
+                            .name("tool_selection")
+                            .rootElement(JsonObjectSchema.builder()
+                                    .addStringProperty("reasoning", "Brief justification of the choice")
+                                    .addEnumProperty("tool", toolNames, "Name of the selected tool")
+                                    .required("reasoning", "tool")
+                                    .additionalProperties(false)
+                                    .build())
+                            .build())
+                    .build();
+
+            String promptTemplateString = """
+            You are an expert at selecting the appropriate tool based on a user request and a list of available tools.
+
+            == User Request ==
+            {{userRequest}}
+
+            == Available Tools ==
+            {{toolsDescription}}
+
+            == Task ==
+            Analyze the user request, compare it with each tool's description, and select the tool that best meets the requirements.
+            Respond with a JSON object with your brief reasoning in "reasoning" and the selected tool name in "tool".
+            """;
+
+            Prompt prompt = PromptTemplate.from(promptTemplateString).apply(Map.of(
+                    "userRequest", promptBuilder.userData(userRequest),
+                    "toolsDescription", buildToolsDescription(tools)));
+            ChatRequest request = ChatRequest.builder()
+                    .messages(UserMessage.from(prompt.text()))
+                    .parameters(ChatRequestParameters.builder().responseFormat(format).build())
+                    .build();
+
+            response = generate(request, null);
+            String selected = objectMapper.readTree(response).path("tool").asText(null);
+            if (selected != null && tools.has(selected)) {
+                return selected;
+            }
+            log.error("Invalid tool selected: {}", selected);
+            return null;
+        } catch (Exception e) {
+            log.error("Error during structured tool selection. Raw response: {}", response, e);
+            return null;
+        }
+    }
 
+    /**
+     * Uses the AI model to transform a user request to match the required schema
+     */
     public JsonNode transformQuery(Map<String, Object> userRequest, JsonNode schema) {
-        String response=null;
+        return parseJson(transformQueryRaw(userRequest, schema));
+    }
+
+    /**
+     * Asks the AI model to transform a user request to match the schema, without parsing the answer.
+     *
+     * @return the raw model response, or null if the model call failed
+     */
+    public String transformQueryRaw(Map<String, Object> userRequest, JsonNode schema) {
         try {
             log.debug("Transforming query to match schema");
 
@@ -137,34 +242,269 @@ public class AiService {
             * The JSON output MUST represent a valid object.
             """;
 
+            String schemaText = promptBuilder.schema(schema);
+            int reservedTokens = promptBuilder.tokens(promptTemplateString) + promptBuilder.tokens(schemaText);
+
             Map<String, Object> variables = new HashMap<>();
-            variables.put("userData", userRequest);
-            variables.put("schema", schema.toString());
+            variables.put("userData", promptBuilder.userData(userRequest, schema, reservedTokens));
+            variables.put("schema", schemaText);
 
             PromptTemplate promptTemplate = PromptTemplate.from(promptTemplateString);
             Prompt prompt = promptTemplate.apply(variables);
             log.info("PROMPT FEED-->" + prompt.text());
 
-            // Get response from AI model
-            response = chatLanguageModel.generate(prompt.text()).toString();
+            // Get response from AI model; streamed responses are checked while they arrive
+            String response = generate(jsonRequest(prompt.text()), new StreamingJsonChecker(schema));
             log.debug("AI transformation response received");
             log.info("LLM Generated transformation response before cleaning"+ response.toString());
-            // Clean the response to remove any markdown formatting
-            String cleanedResponse = cleanJson(response);
+            return response;
+        } catch (Exception e) {
+            log.error("Error transforming query with AI", e);
+            return null;
+        }
+    }
 
-            // Parse JSON response
-            return objectMapper.readTree(cleanedResponse);
+    /**
+     * Parses a JSON object from a model response, removing any markdown formatting first.
+     *
+     * @return the parsed object, or null if the response is not valid JSON
+     */
+    public JsonNode parseJson(String response) {
+        if (response == null) {
+            return null;
+        }
+        try {
+            // JSON mode responses are plain JSON; otherwise remove any markdown formatting first
+            return objectMapper.readTree(structuredOutput ? response : cleanJson(response));
         } catch (Exception e) {
-            log.error("Error transforming query with AI. Raw response: {}", response, e);
+            log.error("Error parsing AI response as JSON. Raw response: {}", response, e);
             return null;
         }
     }
 
+    /**
+     * Asks the AI model to fix the syntax of a response that was meant to be a JSON object.
+     * Only the malformed text is sent, not the user data or schema.
+     *
+     * @return the repaired object, or null if it still does not parse
+     */
+    public JsonNode repairJson(String malformed) {
+        try {
+            String promptTemplateString = """
+            The following text was meant to be a single JSON object, but it is not valid JSON:
+            {{malformed}}
+
+            Fix only the JSON syntax. Do not add, remove or change any values.
+            Return ONLY the corrected JSON object, without code blocks or explanations.
+            """;
+
+            Prompt prompt = PromptTemplate.from(promptTemplateString).apply(Map.of("malformed", malformed));
+            return parseJson(generate(jsonRequest(prompt.text()), null));
+        } catch (Exception e) {
+            log.error("Error repairing JSON with AI", e);
+            return null;
+        }
+    }
 
     /**
-     * Helper method to build a description of available tools
+     * Asks the AI model for corrected values of specific fields of a transformed tool input.
+     * The prompt contains only the failing fields, their current values and their sub-schemas;
+     * the user data is included only when it is needed to fill in missing fields.
+     *
+     * @param violations   the schema violations to fix
+     * @param fields       current value of each failing field, keyed by JSON path
+     * @param fieldSchemas sub-schema of each failing field, keyed by JSON path
+     * @param userRequest  the original user data, or null if no field has to be sourced from it
+     * @return the corrected values keyed by JSON path, or null if the response is not usable
      */
-    private String buildToolsDescription(JsonNode tools) {
+    public JsonNode repairFields(List<SchemaViolation> violations, JsonNode fields, JsonNode fieldSchemas,
+                                 Map<String, Object> userRequest) {
+        try {
+            StringBuilder problems = new StringBuilder();
+            violations.forEach(violation -> problems.append("* ").append(violation.message()).append("\n"));
+
+            String promptTemplateString = """
+            You are fixing specific fields of a JSON object so that they conform to their JSON schema.
+
+            These fields are invalid:
+            {{problems}}
+            Current values of the invalid fields, keyed by JSON path (missing fields are null):
+            {{fields}}
+
+            JSON schema of each field, keyed by JSON path:
+            {{fieldSchemas}}
+            {{source}}
+            Return ONLY a JSON object whose keys are exactly the JSON paths above and whose values are the corrected field values.
+            Do not include any other text, and do not wrap the JSON in code blocks.
+            """;
+
+            Map<String, Object> variables = new HashMap<>();
+            variables.put("problems", problems.toString());
+            variables.put("fields", fields.toString());
+            variables.put("fieldSchemas", fieldSchemas.toString());
+            variables.put("source", userRequest == null ? ""
+                    : "\nTake the values of missing fields from this user data:\n" + objectMapper.writeValueAsString(userRequest) + "\n");
+
+            Prompt prompt = PromptTemplate.from(promptTemplateString).apply(variables);
+            log.debug("Repair prompt: {}", prompt.text());
+            JsonNode repaired = parseJson(generate(jsonRequest(prompt.text()), null));
+            return repaired != null && repaired.isObject() ? repaired : null;
+        } catch (Exception e) {
+            log.error("Error repairing fields with AI", e);
+            return null;
+        }
+    }
+
+    /**
+     * Uses the AI model to transform several user requests for the same schema in one prompt.
+     *
+     * @return one transformed object per request, in request order, or null if the response
+     *         could not be split back into per-request results
+     */
+    public List<JsonNode> transformQueryBatch(List<Map<String, Object>> userRequests, JsonNode schema) {
+        String response = null;
+        try {
+            log.debug("Transforming batch of {} queries to match schema", userRequests.size());
+
+            String promptTemplateString = """
+            You are an expert at transforming user data into a JSON format that conforms to a given schema.
+
+            Here are {{count}} user data records, as a JSON array:
+            {{userData}}
+
+            Here is the JSON schema each record must adhere to:
+            {{schema}}
+
+            Transform each user data record into a valid JSON object that matches the schema.
+
+            IMPORTANT INSTRUCTIONS:
+
+            * A user data record may contain an enriched 'codeAOC' field. If it is present, you MUST use its value for the 'codeAOC' property of that record.
+            * Return ONLY a valid JSON array with exactly {{count}} objects, one per record, in the same order as the records above.
+            * Do not include any other text or explanations before or after the JSON.
+            * Do not wrap the JSON in code blocks (e.g., ```json).
+            * Ensure the JSON array is parsable by a JSON parser.
+            """;
+
+            String schemaText = promptBuilder.schema(schema);
+            int reservedTokens = promptBuilder.tokens(promptTemplateString) + promptBuilder.tokens(schemaText);
+
+            Map<String, Object> variables = new HashMap<>();
+            variables.put("count", userRequests.size());
+            variables.put("userData", promptBuilder.userData(userRequests, schema, reservedTokens));
+            variables.put("schema", schemaText);
+
+            Prompt prompt = PromptTemplate.from(promptTemplateString).apply(variables);
+            response = generate(prompt.text());
+
+            JsonNode results = objectMapper.readTree(cleanJsonArray(response));
+            if (!results.isArray() || results.size() != userRequests.size()) {
+                log.warn("Batch transformation returned {} results for {} records",
+                        results.isArray() ? results.size() : "no", userRequests.size());
+                return null;
+            }
+            List<JsonNode> transformed = new ArrayList<>(results.size());
+            results.forEach(transformed::add);
+            return transformed;
+        } catch (Exception e) {
+            log.error("Error transforming query batch with AI. Raw response: {}", response, e);
+            return null;
+        }
+    }
+
+    /**
+     * Sends a prompt to the AI model. In streaming mode the call goes through the non-blocking
+     * Azure client, outside the model pool, and only the calling (virtual) thread waits for the
+     * completed response.
+     */
+    private String generate(String prompt) {
+        if (streaming) {
+            return generateAsync(prompt).join();
+        }
+        return chatLanguageModel.chat(prompt);
+    }
+
+    /**
+     * Sends a request that expects a JSON object. With a checker, a streamed response is parsed
+     * as it arrives and abandoned as soon as it can no longer be valid.
+     */
+    private String generate(ChatRequest request, StreamingJsonChecker checker) {
+        if (streaming) {
+            return stream(request, checker).join();
+        }
+        return chatLanguageModel.chat(request).aiMessage().text();
+    }
+
+    /**
+     * Builds a request for a prompt whose answer is a JSON object, using the model's JSON mode
+     * when structured output is enabled.
+     */
+    private ChatRequest jsonRequest(String prompt) {
+        ChatRequest.Builder request = ChatRequest.builder().messages(UserMessage.from(prompt));
+        if (structuredOutput) {
+            request.parameters(ChatRequestParameters.builder()
+                    .responseFormat(ResponseFormat.builder().type(ResponseFormatType.JSON).build())
+                    .build());
+        }
+        return request.build();
+    }
+
+    /**
+     * Sends a prompt to the streaming AI model and completes with the full response text.
+     */
+    public CompletableFuture<String> generateAsync(String prompt) {
+        return stream(ChatRequest.builder().messages(UserMessage.from(prompt)).build(), null);
+    }
+
+    /**
+     * Streams a request and completes with the full response text. If a checker rejects the
+     * partial output, the future fails immediately. The model API offers no cancellation, so
+     * the remaining tokens are still received but ignored.
+     */
+    private CompletableFuture<String> stream(ChatRequest request, StreamingJsonChecker checker) {
+        CompletableFuture<String> result = new CompletableFuture<>();
+        long charged;
+        try {
+            charged = admissionControl.acquire(request.messages());
+        } catch (AdmissionRejectedException e) {
+            result.completeExceptionally(e);
+            return result;
+        }
+        streamingChatLanguageModel.getObject().chat(request, new StreamingChatResponseHandler() {
+            @Override
+            public void onPartialResponse(String partialResponse) {
+                if (checker == null || result.isDone()) {
+                    return;
+                }
+                if (!checker.feed(partialResponse)) {
+                    result.completeExceptionally(new IllegalStateException(
+                            "Abandoned streamed response with invalid JSON: " + checker.syntaxError()));
+                } else if (abortOnViolation && !checker.violations().isEmpty()) {
+                    result.completeExceptionally(new IllegalStateException(
+                            "Abandoned streamed response violating the schema: " + checker.violations()));
+                }
+            }
+
+            @Override
+            public void onCompleteResponse(ChatResponse completeResponse) {
+                admissionControl.settle(charged, completeResponse.tokenUsage());
+                metrics.recordTokens("azure-streaming", completeResponse.tokenUsage());
+                result.complete(completeResponse.aiMessage().text());
+            }
+
+            @Override
+            public void onError(Throwable error) {
+                admissionControl.settle(charged, null);
+                result.completeExceptionally(error);
+            }
+        });
+        return result;
+    }
+
+    /**
+     * Helper method to build a description of available tools. Package-private for the benchmarks.
+     */
+    String buildToolsDescription(JsonNode tools) {
         StringBuilder toolsDescription = new StringBuilder();
         Iterator<String> toolNames = tools.fieldNames();
 
@@ -185,41 +525,28 @@ public class AiService {
     }
 
     /**
-     * Helper method to trim the prompt if it exceeds the context window
-     */
-    private String trimPrompt(String prompt, int maxContextLength) {
-        //  Assuming a rough estimate of 4 characters per token
-        log.info("BIN the Triming prompt method");
-        int maxCharacters = maxContextLength * 4;
-        if (prompt.length() > maxCharacters) {
-            log.warn("Prompt exceeds context window. Trimming prompt.");
-            return prompt.substring(0, maxCharacters);
-        }
-        return prompt;
-    }
-
-    /**
-     * Helper method to estimate the token count of a string
+     * Cleans a string to extract a valid JSON payload.
+     *
+     * @param input The input string from the LLM.
+     * @return A cleaned JSON string, or the original string if cleaning fails.
      */
-    private int estimateTokenCount(String text) {
-        //  Assuming a rough estimate of 4 characters per token
-        return (int) Math.ceil(text.length() / 4.0);
+    private String cleanJson(String input) {
+        //  Keep the text from the first '{' to the last '}', dropping code fences and extraneous text
+        String extracted = extractJson(input);
+        return extracted != null ? extracted : input.trim();
     }
 
     /**
-     * Cleans a string to extract a valid JSON payload.
+     * Cleans a string to extract a JSON array payload.
      *
      * @param input The input string from the LLM.
-     * @return A cleaned JSON string, or the original string if cleaning fails.
+     * @return The text from the first '[' to the last ']', or the trimmed input if there is none.
      */
-    private String cleanJson(String input) {
-        String cleaned = input.trim();
-        //  Remove code blocks, extraneous text, etc.
-        cleaned = cleaned.replaceAll("```json", "");
-        cleaned = cleaned.replaceAll("```", "");
-        cleaned = cleaned.replaceAll("^.*?\\{", "{"); //  Remove anything before the first '{'
-        cleaned = cleaned.replaceAll("\\}[^}]*$", "}"); //  Remove anything after the last '}'
-        return cleaned;
+    private String cleanJsonArray(String input) {
+        String cleaned = input.trim().replace("```json", "").replace("```", "");
+        int start = cleaned.indexOf('[');
+        int end = cleaned.lastIndexOf(']');
+        return start >= 0 && end > start ? cleaned.substring(start, end + 1) : cleaned.trim();
     }
 
     /**
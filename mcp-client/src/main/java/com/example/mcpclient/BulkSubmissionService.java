@@ -0,0 +1,272 @@
+package com.example.mcpclient;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.function.Supplier;
+
+/**
+ * Processes bulk submissions (NDJSON or a JSON array of {@code example.json}-shaped requests).
+ * <p>
+ * Submissions are read lazily in chunks and processed with bounded concurrency. Within a chunk,
+ * requests that selected the same tool and have no learned mapping plan are transformed
+ * together, several records per LLM prompt. Results are written as NDJSON lines, one per
+ * submission, as soon as each one finishes.
+ * <p>
+ * Bulk LLM calls are admitted at {@link AdmissionControl.Priority#BULK}, behind interactive
+ * requests, with one deadline per chunk; a submission whose LLM call was rejected reports when
+ * to retry.
+ */
+@Service
+public class BulkSubmissionService {
+
+    private static final Logger log = LoggerFactory.getLogger(BulkSubmissionService.class);
+
+    private final McpService mcpService;
+    private final AiService aiService;
+    private final ToolCatalogCache toolCatalogCache;
+    private final MappingPlanCache mappingPlanCache;
+    private final McpServerClient mcpServerClient;
+    private final IsicToAocEnricher isicToAocEnricher;
+    private final ExecutorService pipelineExecutor;
+    private final AdmissionControl admissionControl;
+    private final PipelineMetrics metrics;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final ObjectReader submissionReader = objectMapper.readerFor(Map.class);
+
+    @Value("${mcp.bulk.concurrency:16}")
+    private int concurrency;
+
+    @Value("${mcp.bulk.chunk-size:200}")
+    private int chunkSize;
+
+    @Value("${mcp.bulk.llm-batch-size:5}")
+    private int llmBatchSize;
+
+    private static final class BulkItem {
+        final int index;
+        final Map<String, Object> request;
+        String tool;
+        JsonNode transformed;
+        AdmissionRejectedException rejection;
+
+        BulkItem(int index, Map<String, Object> request) {
+            this.index = index;
+            this.request = request;
+        }
+    }
+
+    @Autowired
+    public BulkSubmissionService(McpService mcpService, AiService aiService, ToolCatalogCache toolCatalogCache,
+                                 MappingPlanCache mappingPlanCache, McpServerClient mcpServerClient,
+                                 IsicToAocEnricher isicToAocEnricher,
+                                 @Qualifier("mcpPipelineExecutor") ExecutorService pipelineExecutor,
+                                 AdmissionControl admissionControl, PipelineMetrics metrics) {
+        this.mcpService = mcpService;
+        this.aiService = aiService;
+        this.toolCatalogCache = toolCatalogCache;
+        this.mappingPlanCache = mappingPlanCache;
+        this.mcpServerClient = mcpServerClient;
+        this.isicToAocEnricher = isicToAocEnricher;
+        this.pipelineExecutor = pipelineExecutor;
+        this.admissionControl = admissionControl;
+        this.metrics = metrics;
+    }
+
+    /**
+     * Reads submissions from {@code in} and writes one NDJSON result line per submission to {@code out}.
+     */
+    public void process(InputStream in, OutputStream out) throws IOException {
+        Semaphore permits = new Semaphore(concurrency);
+        int index = 0;
+        int failed = 0;
+
+        try (MappingIterator<Map<String, Object>> submissions = submissionReader.readValues(in)) {
+            List<BulkItem> chunk = new ArrayList<>(chunkSize);
+            while (submissions.hasNextValue()) {
+                chunk.add(new BulkItem(index++, submissions.nextValue()));
+                if (chunk.size() == chunkSize) {
+                    failed += processChunk(chunk, permits, out);
+                    chunk = new ArrayList<>(chunkSize);
+                }
+            }
+            if (!chunk.isEmpty()) {
+                failed += processChunk(chunk, permits, out);
+            }
+        }
+        log.info("Bulk processing finished: {} submissions, {} failed", index, failed);
+    }
+
+    /**
+     * Processes one chunk and returns the number of failed submissions.
+     */
+    private int processChunk(List<BulkItem> chunk, Semaphore permits, OutputStream out) {
+        ToolCatalog catalog = metrics.observe("getTools", toolCatalogCache::get);
+        if (catalog == null) {
+            log.error("Failed to retrieve tools from MCP server");
+            chunk.forEach(item -> writeResult(out, item, null, "Failed to retrieve tools from MCP server"));
+            return chunk.size();
+        }
+
+        // Resolve the chunk's ISIC codes with one lookup instead of one call per submission
+        isicToAocEnricher.prefetch(chunk.stream().map(item -> item.request).toList());
+
+        // The admission deadline counts from the start of the chunk, not from when a task gets a permit
+        AdmissionControl.Ticket ticket = admissionControl.ticket(AdmissionControl.Priority.BULK);
+
+        // 1. Enrich and select a tool for every submission; apply learned mapping plans
+        List<BulkItem> selected = join(chunk.stream()
+                .map(item -> bounded(permits, ticket, () -> {
+                    item.tool = mcpService.enrichAndSelectTool(item.request, catalog);
+                    if (item.tool == null) {
+                        item.rejection = admissionControl.rejection();
+                        writeResult(out, item, null, failure(item, "Failed to select a tool"));
+                        return null;
+                    }
+                    item.transformed = mappingPlanCache.apply(catalog, item.tool, item.request);
+                    return item;
+                }))
+                .toList());
+
+        // 2. Transform the remaining submissions with one LLM prompt per group of records for the same tool
+        Map<String, List<BulkItem>> pendingByTool = new LinkedHashMap<>();
+        for (BulkItem item : selected) {
+            if (item.transformed == null) {
+                pendingByTool.computeIfAbsent(item.tool, tool -> new ArrayList<>()).add(item);
+            }
+        }
+        List<CompletableFuture<List<BulkItem>>> transformations = new ArrayList<>();
+        pendingByTool.forEach((tool, items) -> {
+            for (int i = 0; i < items.size(); i += llmBatchSize) {
+                List<BulkItem> group = items.subList(i, Math.min(i + llmBatchSize, items.size()));
+                transformations.add(bounded(permits, ticket, () -> {
+                    transformGroup(catalog, tool, group);
+                    group.forEach(item -> item.rejection = admissionControl.rejection());
+                    return group;
+                }));
+            }
+        });
+        transformations.forEach(CompletableFuture::join);
+
+        // 3. Execute every transformed submission on the MCP server
+        List<CompletableFuture<Boolean>> executions = selected.stream()
+                .map(item -> bounded(permits, ticket, () -> {
+                    if (item.transformed == null) {
+                        writeResult(out, item, null, failure(item, "Failed to transform query"));
+                        return false;
+                    }
+                    JsonNode response = mcpServerClient.executeTool(item.tool, item.transformed);
+                    writeResult(out, item, response, response == null ? "Failed to execute tool" : null);
+                    return response != null;
+                }))
+                .toList();
+
+        long succeeded = executions.stream().map(CompletableFuture::join).filter(Boolean.TRUE::equals).count();
+        return (int) (chunk.size() - succeeded);
+    }
+
+    /**
+     * Transforms a group of submissions for the same tool in one prompt. Records the batched
+     * response cannot be split into, or whose result fails schema validation, fall back to
+     * one prompt each.
+     */
+    private void transformGroup(ToolCatalog catalog, String tool, List<BulkItem> group) {
+        List<JsonNode> results = null;
+        if (group.size() > 1) {
+            JsonNode schema = catalog.tools().get(tool).get("schema");
+            results = metrics.observe("transformQueryBatch",
+                    () -> aiService.transformQueryBatch(group.stream().map(item -> item.request).toList(), schema));
+        }
+
+        for (int i = 0; i < group.size(); i++) {
+            BulkItem item = group.get(i);
+            if (results != null && results.get(i) != null && results.get(i).isObject()
+                    && mcpService.validate(catalog, tool, results.get(i)).isEmpty()) {
+                item.transformed = results.get(i);
+                mappingPlanCache.learn(catalog, tool, item.request, item.transformed);
+            } else {
+                item.transformed = mcpService.transform(item.request, catalog, tool);
+            }
+        }
+    }
+
+    private static String failure(BulkItem item, String message) {
+        if (item.rejection == null) {
+            return message;
+        }
+        return message + ": " + item.rejection.getMessage() + ", retry after "
+                + item.rejection.retryAfterSeconds() + " s";
+    }
+
+    /**
+     * Runs a task on the pipeline executor once a concurrency permit is available, with its
+     * LLM calls admitted under the chunk's ticket.
+     */
+    private <T> CompletableFuture<T> bounded(Semaphore permits, AdmissionControl.Ticket chunkTicket, Supplier<T> task) {
+        return CompletableFuture.supplyAsync(() -> {
+            permits.acquireUninterruptibly();
+            AdmissionControl.Ticket ticket = admissionControl.open(chunkTicket);
+            try {
+                return task.get();
+            } finally {
+                ticket.close();
+                permits.release();
+            }
+        }, pipelineExecutor);
+    }
+
+    private static <T> List<T> join(List<CompletableFuture<T>> futures) {
+        List<T> results = new ArrayList<>(futures.size());
+        for (CompletableFuture<T> future : futures) {
+            T result = future.join();
+            if (result != null) {
+                results.add(result);
+            }
+        }
+        return results;
+    }
+
+    private void writeResult(OutputStream out, BulkItem item, JsonNode response, String error) {
+        ObjectNode line = objectMapper.createObjectNode();
+        line.put("index", item.index);
+        line.put("tool", item.tool);
+        line.put("status", error == null ? "OK" : "FAILED");
+        if (response != null) {
+            line.set("response", response);
+        }
+        if (error != null) {
+            line.put("error", error);
+        }
+
+        try {
+            byte[] bytes = objectMapper.writeValueAsBytes(line);
+            synchronized (out) {
+                out.write(bytes);
+                out.write('\n');
+                out.flush();
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Error writing bulk result", e);
+        }
+    }
+}
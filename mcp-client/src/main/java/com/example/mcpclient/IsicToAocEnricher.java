@@ -0,0 +1,155 @@
+package com.example.mcpclient;
+
+import com.example.mcpclient.config.CacheConfig;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+
+/**
+ * Checks for an ISIC code in the request, calls the mapping tool, and adds the AOC code.
+ * <p>
+ * Mappings are cached. Bulk callers can {@link #prefetch} the codes of many requests with
+ * a single batch lookup, so enriching each request does not need its own HTTP call.
+ */
+@Component
+public class IsicToAocEnricher implements RequestEnricher {
+
+    public static final String CACHE_NAME = "isicToAoc";
+
+    private static final Logger log = LoggerFactory.getLogger(IsicToAocEnricher.class);
+
+    private final McpServerClient mcpServerClient;
+    private final CaffeineCacheManager cacheManager;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Value("${mcp.isic.hierarchical:true}")
+    private boolean hierarchical;
+
+    @Value("${mcp.isic.cache.max-size:100000}")
+    private long cacheMaxSize;
+
+    @Value("${mcp.isic.cache.ttl-seconds:3600}")
+    private long cacheTtlSeconds;
+
+    private Cache<String, String> cache;
+
+    @Autowired
+    public IsicToAocEnricher(McpServerClient mcpServerClient, CaffeineCacheManager cacheManager) {
+        this.mcpServerClient = mcpServerClient;
+        this.cacheManager = cacheManager;
+    }
+
+    @PostConstruct
+    void init() {
+        cache = Caffeine.newBuilder()
+                .maximumSize(cacheMaxSize)
+                .expireAfterWrite(Duration.ofSeconds(cacheTtlSeconds))
+                .recordStats()
+                .build();
+        CacheConfig.register(cacheManager, CACHE_NAME, cache);
+    }
+
+    @Override
+    public String name() {
+        return "isicToAoc";
+    }
+
+    /**
+     * Looks up the ISIC codes of all given requests with one batch call and caches the results.
+     */
+    public void prefetch(List<Map<String, Object>> userRequests) {
+        Set<String> missing = new LinkedHashSet<>();
+        for (Map<String, Object> userRequest : userRequests) {
+            String isicCode = isicCodeOf(userRequest);
+            if (isicCode != null && cache.getIfPresent(isicCode) == null) {
+                missing.add(isicCode);
+            }
+        }
+        if (missing.isEmpty()) {
+            return;
+        }
+
+        Map<String, String> aocCodes = mcpServerClient.lookupIsicToAoc(missing, hierarchical);
+        if (aocCodes != null) {
+            cache.putAll(aocCodes);
+            log.debug("Prefetched {} of {} ISIC codes", aocCodes.size(), missing.size());
+        }
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public Consumer<Map<String, Object>> enrich(Map<String, Object> userRequest) {
+        String isicCode = isicCodeOf(userRequest);
+        if (isicCode == null) {
+            log.debug("No ISIC code found in the request. Skipping enrichment.");
+            return null; // No ISIC code present, nothing to do
+        }
+        String aocCode = cache.getIfPresent(isicCode);
+        if (aocCode == null) {
+            log.info("ISIC code found: {}. Attempting to fetch corresponding AOC code.", isicCode);
+
+            // Prepare the input for the isicToAocMapping tool
+            ObjectNode isicInput = objectMapper.createObjectNode();
+            isicInput.put("isicCode", isicCode);
+            isicInput.put("hierarchical", hierarchical);
+
+            // Execute the specific tool to get the AOC code
+            JsonNode aocResponse = mcpServerClient.executeTool("isicToAocMapping", isicInput);
+            if (aocResponse == null || !aocResponse.has("aocCode")) {
+                log.warn("Failed to retrieve AOC code for ISIC: {}. Response: {}", isicCode, aocResponse);
+                return null;
+            }
+
+            aocCode = aocResponse.get("aocCode").asText();
+            cache.put(isicCode, aocCode);
+            log.info("Successfully fetched AOC code: {}", aocCode);
+        }
+
+        String resolvedAocCode = aocCode;
+        return request -> {
+            // Enrich the request the patch is applied to with the new AOC code
+            Map<String, Object> initialInformation = (Map<String, Object>)
+                    ((Map<String, Object>) request.get("submission")).get("initialInformation");
+            Map<String, String> aocCodeMap = new HashMap<>();
+            aocCodeMap.put("value", resolvedAocCode);
+            aocCodeMap.put("description", "Activity on Location code derived from ISIC.");
+            initialInformation.put("codeAOC", aocCodeMap);
+            log.info("User request has been enriched with AOC code.");
+        };
+    }
+
+    /**
+     * Safely navigates the request to the ISIC code, returning null if there is none.
+     */
+    @SuppressWarnings("unchecked")
+    private static String isicCodeOf(Map<String, Object> userRequest) {
+        if (!(userRequest.get("submission") instanceof Map<?, ?> submission)) {
+            return null;
+        }
+        if (!(submission.get("initialInformation") instanceof Map<?, ?> initialInformation)) {
+            return null;
+        }
+        if (!(initialInformation.get("codeISIC") instanceof Map<?, ?> isicCodeMap)) {
+            return null;
+        }
+        Object isicCode = ((Map<String, Object>) isicCodeMap).get("value");
+        return isicCode instanceof String code && !code.isEmpty() ? code : null;
+    }
+}
@@ -0,0 +1,224 @@
+package com.example.mcpclient;
+
+import com.azure.core.exception.HttpResponseException;
+import dev.langchain4j.exception.HttpException;
+import dev.langchain4j.model.chat.ChatLanguageModel;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * One chat model in the {@link ModelPool}, with its own concurrency limit, latency history and
+ * circuit breaker.
+ * <p>
+ * The breaker opens after {@code failureThreshold} consecutive failures, or at once on a 429,
+ * and stays open for {@code openDuration}. After that a single trial call is let through;
+ * its outcome closes or reopens the breaker.
+ */
+public final class LlmBackend {
+
+    private static final Logger log = LoggerFactory.getLogger(LlmBackend.class);
+
+    private static final int LATENCY_WINDOW = 128;
+
+    public enum State { CLOSED, OPEN, HALF_OPEN }
+
+    /**
+     * A point-in-time view of a backend, for monitoring.
+     */
+    public record Stats(String name, State state, int inFlight, long p95Millis, long calls, long failures,
+                        long throttled) {
+    }
+
+    private final String name;
+    private final ChatLanguageModel model;
+    private final boolean fallback;
+    private final int maxConcurrency;
+    private final Semaphore permits;
+    private final int failureThreshold;
+    private final long openNanos;
+
+    private final long[] latencies = new long[LATENCY_WINDOW];
+    private int latencyCount;
+    private int latencyNext;
+
+    // Breaker state, guarded by this
+    private int consecutiveFailures;
+    private long openUntil;
+    private boolean trialInFlight;
+
+    private final LongAdder calls = new LongAdder();
+    private final LongAdder failures = new LongAdder();
+    private final LongAdder throttled = new LongAdder();
+
+    /**
+     * @param fallback whether the backend is only used once every other backend has failed
+     */
+    public LlmBackend(String name, ChatLanguageModel model, boolean fallback, int maxConcurrency,
+                      int failureThreshold, Duration openDuration) {
+        this.name = name;
+        this.model = model;
+        this.fallback = fallback;
+        this.maxConcurrency = maxConcurrency;
+        this.permits = new Semaphore(maxConcurrency);
+        this.failureThreshold = failureThreshold;
+        this.openNanos = openDuration.toNanos();
+    }
+
+    public String name() {
+        return name;
+    }
+
+    public ChatLanguageModel model() {
+        return model;
+    }
+
+    public boolean fallback() {
+        return fallback;
+    }
+
+    /**
+     * Whether the breaker lets calls through: closed, or open long enough for a trial call.
+     */
+    public synchronized boolean available() {
+        return openUntil == 0 || (System.nanoTime() - openUntil >= 0 && !trialInFlight);
+    }
+
+    /**
+     * Takes a concurrency permit if the breaker allows a call, waiting at most {@code timeout}.
+     *
+     * @return false if the backend is unavailable or saturated
+     */
+    boolean tryAcquire(Duration timeout) throws InterruptedException {
+        if (!available() || !permits.tryAcquire(timeout.toNanos(), TimeUnit.NANOSECONDS)) {
+            return false;
+        }
+        synchronized (this) {
+            if (openUntil != 0) {
+                if (!available()) {
+                    // The breaker reopened or another caller took the half-open trial in the meantime
+                    permits.release();
+                    return false;
+                }
+                trialInFlight = true;
+            }
+        }
+        calls.increment();
+        return true;
+    }
+
+    /**
+     * Releases the permit of a successful call and records its latency.
+     */
+    void succeeded(long latencyNanos) {
+        permits.release();
+        synchronized (this) {
+            recordLatency(latencyNanos);
+            if (openUntil != 0) {
+                log.info("LLM backend '{}' recovered, closing circuit breaker", name);
+            }
+            consecutiveFailures = 0;
+            openUntil = 0;
+            trialInFlight = false;
+        }
+    }
+
+    /**
+     * Releases the permit of a failed call and updates the breaker.
+     */
+    void failed(Throwable error) {
+        permits.release();
+        failures.increment();
+        boolean rateLimited = isRateLimited(error);
+        if (rateLimited) {
+            throttled.increment();
+        }
+        synchronized (this) {
+            consecutiveFailures++;
+            boolean wasTrial = trialInFlight;
+            trialInFlight = false;
+            if (rateLimited || wasTrial || consecutiveFailures >= failureThreshold) {
+                openUntil = System.nanoTime() + openNanos;
+                log.warn("LLM backend '{}' circuit breaker open for {} ms after {} ({} consecutive failure(s))",
+                        name, TimeUnit.NANOSECONDS.toMillis(openNanos), rateLimited ? "throttling" : "failures",
+                        consecutiveFailures);
+            }
+        }
+    }
+
+    /**
+     * Releases the permit of a call whose result is no longer needed, e.g. the slower side of a
+     * hedged request. It counts neither as a success nor as a failure, but the time it ran is
+     * recorded as a latency: the call would have taken at least that long, and a backend that
+     * keeps losing hedges must not keep looking unmeasured.
+     *
+     * @param elapsedNanos how long the call ran, 0 if it never started
+     */
+    void abandoned(long elapsedNanos) {
+        permits.release();
+        synchronized (this) {
+            if (elapsedNanos > 0) {
+                recordLatency(elapsedNanos);
+            }
+            trialInFlight = false;
+        }
+    }
+
+    /**
+     * Returns the 95th percentile latency of recent calls, or -1 with fewer than
+     * {@code minSamples} of them.
+     */
+    public long p95Nanos(int minSamples) {
+        long[] sorted;
+        synchronized (this) {
+            if (latencyCount < minSamples || latencyCount == 0) {
+                return -1;
+            }
+            sorted = Arrays.copyOf(latencies, latencyCount);
+        }
+        Arrays.sort(sorted);
+        return sorted[(int) Math.ceil(sorted.length * 0.95) - 1];
+    }
+
+    // Called with the lock held
+    private void recordLatency(long latencyNanos) {
+        latencies[latencyNext] = latencyNanos;
+        latencyNext = (latencyNext + 1) % LATENCY_WINDOW;
+        latencyCount = Math.min(latencyCount + 1, LATENCY_WINDOW);
+    }
+
+    public synchronized State state() {
+        if (openUntil == 0) {
+            return State.CLOSED;
+        }
+        return System.nanoTime() - openUntil >= 0 ? State.HALF_OPEN : State.OPEN;
+    }
+
+    public Stats stats() {
+        long p95 = p95Nanos(1);
+        return new Stats(name, state(), maxConcurrency - permits.availablePermits(),
+                p95 < 0 ? -1 : TimeUnit.NANOSECONDS.toMillis(p95), calls.sum(), failures.sum(), throttled.sum());
+    }
+
+    /**
+     * Recognises throttling (HTTP 429) anywhere in the cause chain, by the status code of a
+     * langchain4j {@link HttpException} or an Azure SDK {@link HttpResponseException}.
+     */
+    private static boolean isRateLimited(Throwable error) {
+        for (Throwable t = error; t != null; t = t.getCause()) {
+            if (t instanceof HttpException http && http.statusCode() == 429) {
+                return true;
+            }
+            if (t instanceof HttpResponseException azure && azure.getResponse() != null
+                    && azure.getResponse().getStatusCode() == 429) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,364 @@
+package com.example.mcpclient;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * A deterministic transformation learned from a successful LLM transformation.
+ * <p>
+ * A plan is a list of rules, each copying the scalar at a source JSON path of the user request
+ * to a target JSON path of the tool input, with a type conversion. Array positions are written
+ * as {@code [*]} when source and target elements line up, so one plan covers requests with any
+ * number of parties. Plans are only derived when every output value can be traced back to the
+ * input and replaying the plan reproduces the LLM output exactly.
+ */
+public final class MappingPlan {
+
+    enum Conversion { TEXT, INTEGER, DECIMAL, BOOLEAN, DATE_PARTS }
+
+    record Rule(List<String> source, List<String> target, Conversion conversion) {
+        @Override
+        public String toString() {
+            return render(source) + " -> " + render(target) + " (" + conversion + ")";
+        }
+    }
+
+    private record Leaf(List<String> path, JsonNode value) {
+    }
+
+    private record Match(JsonNode value, List<Integer> indices) {
+    }
+
+    private static final String WILDCARD = "[*]";
+    private static final JsonNodeFactory NODES = JsonNodeFactory.instance;
+
+    private final List<Rule> rules;
+
+    private MappingPlan(List<Rule> rules) {
+        this.rules = rules;
+    }
+
+    /**
+     * Derives a plan that maps {@code input} to {@code output}.
+     *
+     * @return the plan, or null if some output value cannot be traced back to the input
+     */
+    public static MappingPlan derive(JsonNode input, JsonNode output) {
+        if (!output.isObject() || !input.isObject()) {
+            return null;
+        }
+        List<Leaf> sources = new ArrayList<>();
+        List<Leaf> targets = new ArrayList<>();
+        if (!flatten(input, new ArrayList<>(), sources, false) || !flatten(output, new ArrayList<>(), targets, true)) {
+            return null;
+        }
+
+        Set<Rule> rules = new LinkedHashSet<>();
+        for (Leaf target : targets) {
+            Rule rule = ruleFor(target, sources);
+            if (rule == null) {
+                return null;
+            }
+            rules.add(rule);
+        }
+
+        MappingPlan plan = new MappingPlan(List.copyOf(rules));
+        return output.equals(plan.apply(input)) ? plan : null;
+    }
+
+    /**
+     * Runs the plan against a user request.
+     *
+     * @return the transformed tool input, or null if the request does not fit the plan
+     */
+    public JsonNode apply(JsonNode input) {
+        ObjectNode output = NODES.objectNode();
+        for (Rule rule : rules) {
+            List<Match> matches = new ArrayList<>();
+            resolve(input, rule.source(), 0, new ArrayList<>(), matches);
+            if (matches.isEmpty()) {
+                return null;
+            }
+            for (Match match : matches) {
+                JsonNode value = convert(match.value(), rule.conversion());
+                if (value == null) {
+                    return null;
+                }
+                write(output, bind(rule.target(), match.indices()), value);
+            }
+        }
+        return output;
+    }
+
+    public List<Rule> rules() {
+        return rules;
+    }
+
+    @Override
+    public String toString() {
+        return rules.toString();
+    }
+
+    /**
+     * Finds the single input leaf an output leaf was produced from.
+     */
+    private static Rule ruleFor(Leaf target, List<Leaf> sources) {
+        Conversion conversion = conversionFor(target.value());
+        if (conversion == null) {
+            return null;
+        }
+
+        Set<Rule> candidates = new LinkedHashSet<>();
+        Set<Rule> namedCandidates = new LinkedHashSet<>();
+        String targetName = lastFieldName(target.path()).toLowerCase();
+        for (Leaf source : sources) {
+            if (!matches(source.value(), target.value(), conversion)) {
+                continue;
+            }
+            Rule rule = generalize(source.path(), target.path(), conversion);
+            if (rule == null) {
+                continue;
+            }
+            candidates.add(rule);
+            if (String.join(".", source.path()).toLowerCase().contains(targetName)) {
+                namedCandidates.add(rule);
+            }
+        }
+
+        // Ambiguous values are resolved by field name; anything still ambiguous is not planned
+        if (candidates.size() == 1) {
+            return candidates.iterator().next();
+        }
+        return namedCandidates.size() == 1 ? namedCandidates.iterator().next() : null;
+    }
+
+    /**
+     * Turns concrete source and target paths into a rule, replacing aligned array indices with
+     * wildcards. Returns null when the target's array positions do not follow the source's.
+     */
+    private static Rule generalize(List<String> source, List<String> target, Conversion conversion) {
+        List<Integer> targetIndices = indices(target);
+        if (targetIndices.isEmpty()) {
+            return new Rule(List.copyOf(source), List.copyOf(target), conversion);
+        }
+        if (!indices(source).equals(targetIndices)) {
+            return null;
+        }
+        return new Rule(wildcard(source), wildcard(target), conversion);
+    }
+
+    private static Conversion conversionFor(JsonNode value) {
+        if (value.isTextual()) {
+            return Conversion.TEXT;
+        } else if (value.isIntegralNumber()) {
+            return Conversion.INTEGER;
+        } else if (value.isFloatingPointNumber()) {
+            return Conversion.DECIMAL;
+        } else if (value.isBoolean()) {
+            return Conversion.BOOLEAN;
+        } else if (value.isArray()) {
+            return Conversion.DATE_PARTS;
+        }
+        return null;
+    }
+
+    private static boolean matches(JsonNode source, JsonNode target, Conversion conversion) {
+        if (conversion == Conversion.DATE_PARTS) {
+            return target.equals(convert(source, Conversion.DATE_PARTS));
+        }
+        return source.asText().equals(target.asText());
+    }
+
+    private static JsonNode convert(JsonNode source, Conversion conversion) {
+        String text = source.asText().trim();
+        try {
+            switch (conversion) {
+                case TEXT:
+                    return NODES.textNode(source.asText());
+                case INTEGER:
+                    long number = Long.parseLong(text);
+                    return number == (int) number ? NODES.numberNode((int) number) : NODES.numberNode(number);
+                case DECIMAL:
+                    return NODES.numberNode(Double.parseDouble(text));
+                case BOOLEAN:
+                    if (!text.equals("true") && !text.equals("false")) {
+                        return null;
+                    }
+                    return NODES.booleanNode(Boolean.parseBoolean(text));
+                case DATE_PARTS:
+                    if (!source.isTextual() || text.length() < 10) {
+                        return null;
+                    }
+                    LocalDate date = LocalDate.parse(text.substring(0, 10));
+                    ArrayNode parts = NODES.arrayNode();
+                    parts.add(date.getYear()).add(date.getMonthValue()).add(date.getDayOfMonth());
+                    return parts;
+                default:
+                    return null;
+            }
+        } catch (NumberFormatException | DateTimeParseException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Collects the scalar leaves of a tree. For outputs, [YYYY, MM, DD] arrays count as one leaf.
+     * Returns false if the tree contains keys that cannot be addressed by a plan path.
+     */
+    private static boolean flatten(JsonNode node, List<String> path, List<Leaf> leaves, boolean output) {
+        if (node.isObject()) {
+            Iterator<Map.Entry<String, JsonNode>> fields = node.fields();
+            while (fields.hasNext()) {
+                Map.Entry<String, JsonNode> field = fields.next();
+                if (field.getKey().startsWith("[")) {
+                    return false;
+                }
+                path.add(field.getKey());
+                boolean ok = flatten(field.getValue(), path, leaves, output);
+                path.remove(path.size() - 1);
+                if (!ok) {
+                    return false;
+                }
+            }
+        } else if (node.isArray() && !(output && isDateParts(node))) {
+            for (int i = 0; i < node.size(); i++) {
+                path.add("[" + i + "]");
+                boolean ok = flatten(node.get(i), path, leaves, output);
+                path.remove(path.size() - 1);
+                if (!ok) {
+                    return false;
+                }
+            }
+        } else if (!node.isNull()) {
+            leaves.add(new Leaf(List.copyOf(path), node));
+        } else if (output) {
+            return false;
+        }
+        return true;
+    }
+
+    private static boolean isDateParts(JsonNode node) {
+        return node.size() == 3 && node.get(0).isInt() && node.get(1).isInt() && node.get(2).isInt();
+    }
+
+    private static void resolve(JsonNode node, List<String> pattern, int position, List<Integer> indices, List<Match> matches) {
+        if (node == null) {
+            return;
+        }
+        if (position == pattern.size()) {
+            if (node.isValueNode() && !node.isNull()) {
+                matches.add(new Match(node, List.copyOf(indices)));
+            }
+            return;
+        }
+
+        String segment = pattern.get(position);
+        if (segment.equals(WILDCARD)) {
+            if (!node.isArray()) {
+                return;
+            }
+            for (int i = 0; i < node.size(); i++) {
+                indices.add(i);
+                resolve(node.get(i), pattern, position + 1, indices, matches);
+                indices.remove(indices.size() - 1);
+            }
+        } else if (isIndex(segment)) {
+            resolve(node.isArray() ? node.get(index(segment)) : null, pattern, position + 1, indices, matches);
+        } else {
+            resolve(node.isObject() ? node.get(segment) : null, pattern, position + 1, indices, matches);
+        }
+    }
+
+    private static void write(ObjectNode root, List<String> path, JsonNode value) {
+        JsonNode current = root;
+        for (int i = 0; i < path.size() - 1; i++) {
+            current = child(current, path.get(i), isIndex(path.get(i + 1)));
+        }
+        String last = path.get(path.size() - 1);
+        if (current instanceof ObjectNode object) {
+            object.set(last, value);
+        } else if (current instanceof ArrayNode array) {
+            int index = index(last);
+            pad(array, index);
+            array.set(index, value);
+        }
+    }
+
+    private static JsonNode child(JsonNode container, String segment, boolean arrayChild) {
+        if (container instanceof ArrayNode array) {
+            int index = index(segment);
+            pad(array, index);
+            JsonNode existing = array.get(index);
+            if (existing.isNull()) {
+                existing = arrayChild ? NODES.arrayNode() : NODES.objectNode();
+                array.set(index, existing);
+            }
+            return existing;
+        }
+        ObjectNode object = (ObjectNode) container;
+        JsonNode existing = object.get(segment);
+        if (existing == null) {
+            existing = arrayChild ? object.putArray(segment) : object.putObject(segment);
+        }
+        return existing;
+    }
+
+    private static void pad(ArrayNode array, int index) {
+        while (array.size() <= index) {
+            array.addNull();
+        }
+    }
+
+    private static List<String> bind(List<String> pattern, List<Integer> indices) {
+        List<String> path = new ArrayList<>(pattern.size());
+        int next = 0;
+        for (String segment : pattern) {
+            path.add(segment.equals(WILDCARD) ? "[" + indices.get(next++) + "]" : segment);
+        }
+        return path;
+    }
+
+    private static List<String> wildcard(List<String> path) {
+        return path.stream().map(segment -> isIndex(segment) ? WILDCARD : segment).toList();
+    }
+
+    private static List<Integer> indices(List<String> path) {
+        return path.stream().filter(MappingPlan::isIndex).map(MappingPlan::index).toList();
+    }
+
+    private static String lastFieldName(List<String> path) {
+        for (int i = path.size() - 1; i >= 0; i--) {
+            if (!isIndex(path.get(i))) {
+                return path.get(i);
+            }
+        }
+        return "";
+    }
+
+    private static boolean isIndex(String segment) {
+        return segment.startsWith("[");
+    }
+
+    private static int index(String segment) {
+        return Integer.parseInt(segment.substring(1, segment.length() - 1));
+    }
+
+    private static String render(List<String> path) {
+        StringBuilder rendered = new StringBuilder("$");
+        for (String segment : path) {
+            rendered.append(isIndex(segment) ? "" : ".").append(segment);
+        }
+        return rendered.toString();
+    }
+}
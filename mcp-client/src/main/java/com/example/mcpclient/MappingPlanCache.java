@@ -0,0 +1,112 @@
+package com.example.mcpclient;
+
+import com.example.mcpclient.config.CacheConfig;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.networknt.schema.ValidationMessage;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Stores {@link MappingPlan}s learned from LLM transformations, keyed by catalog version, tool
+ * and request shape, and applies them to later requests of the same shape.
+ */
+@Component
+public class MappingPlanCache {
+
+    public static final String CACHE_NAME = "mappingPlans";
+
+    private static final Logger log = LoggerFactory.getLogger(MappingPlanCache.class);
+
+    private final SchemaRegistry schemaRegistry;
+    private final CaffeineCacheManager cacheManager;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Value("${mcp.plan.enabled:true}")
+    private boolean enabled;
+
+    @Value("${mcp.plan.cache.max-size:10000}")
+    private long maxSize;
+
+    private Cache<String, MappingPlan> plans;
+
+    @Autowired
+    public MappingPlanCache(SchemaRegistry schemaRegistry, CaffeineCacheManager cacheManager) {
+        this.schemaRegistry = schemaRegistry;
+        this.cacheManager = cacheManager;
+    }
+
+    @PostConstruct
+    void init() {
+        plans = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .recordStats()
+                .build();
+        CacheConfig.register(cacheManager, CACHE_NAME, plans);
+    }
+
+    /**
+     * Transforms the request with the plan learned for its shape.
+     *
+     * @return the schema-valid tool input, or null if there is no plan or its output is invalid
+     */
+    public JsonNode apply(ToolCatalog catalog, String tool, Map<String, Object> userRequest) {
+        if (!enabled) {
+            return null;
+        }
+        MappingPlan plan = plans.getIfPresent(key(catalog, tool, userRequest));
+        if (plan == null) {
+            return null;
+        }
+
+        JsonNode output = plan.apply(objectMapper.valueToTree(userRequest));
+        if (output == null) {
+            log.debug("Mapping plan for tool '{}' does not fit the request", tool);
+            return null;
+        }
+        Set<ValidationMessage> errors = schemaRegistry.validate(catalog, tool, output);
+        if (!errors.isEmpty()) {
+            log.info("Mapping plan output for tool '{}' failed schema validation: {}", tool, errors);
+            return null;
+        }
+        log.debug("Transformed request for tool '{}' with mapping plan", tool);
+        return output;
+    }
+
+    /**
+     * Derives a plan from a successful LLM transformation and stores it for the request's shape.
+     * Transformations that fail schema validation or cannot be replayed exactly are ignored.
+     */
+    public void learn(ToolCatalog catalog, String tool, Map<String, Object> userRequest, JsonNode transformed) {
+        if (!enabled) {
+            return;
+        }
+        if (!schemaRegistry.validate(catalog, tool, transformed).isEmpty()) {
+            log.debug("Transformation for tool '{}' does not satisfy its schema; no plan derived", tool);
+            return;
+        }
+
+        MappingPlan plan = MappingPlan.derive(objectMapper.valueToTree(userRequest), transformed);
+        if (plan == null) {
+            log.debug("Transformation for tool '{}' cannot be expressed as a mapping plan", tool);
+            return;
+        }
+        plans.put(key(catalog, tool, userRequest), plan);
+        log.info("Learned mapping plan for tool '{}' with {} rules", tool, plan.rules().size());
+        log.debug("Mapping plan: {}", plan);
+    }
+
+    private String key(ToolCatalog catalog, String tool, Map<String, Object> userRequest) {
+        return catalog.version() + ":" + tool + ":" + RequestShape.fingerprint(userRequest);
+    }
+}
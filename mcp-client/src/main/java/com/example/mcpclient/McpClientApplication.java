@@ -1,10 +1,12 @@
 package com.example.mcpclient;
 
+import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
 import org.springframework.boot.CommandLineRunner;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.boot.web.client.RestTemplateBuilder;
 import org.springframework.context.annotation.Bean;
+import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
 import org.springframework.web.client.RestTemplate;
 
 @SpringBootApplication
@@ -14,9 +16,15 @@ public class McpClientApplication {
         SpringApplication.run(McpClientApplication.class, args);
     }
 
+    /**
+     * RestTemplate for the MCP server, on the pooled keep-alive client from
+     * {@link com.example.mcpclient.config.HttpClientConfig}.
+     */
     @Bean
-    public RestTemplate restTemplate(RestTemplateBuilder builder) {
-        return builder.build();
+    public RestTemplate restTemplate(RestTemplateBuilder builder, CloseableHttpClient mcpHttpClient) {
+        return builder
+                .requestFactory(() -> new HttpComponentsClientHttpRequestFactory(mcpHttpClient))
+                .build();
     }
 
 //    @Bean
@@ -1,18 +1,33 @@
 package com.example.mcpclient.controller;
 
+import com.example.mcpclient.AdmissionControl;
+import com.example.mcpclient.AdmissionRejectedException;
+import com.example.mcpclient.BulkSubmissionService;
 import com.example.mcpclient.McpService;
 import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import com.fasterxml.jackson.databind.node.ObjectNode;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import jakarta.servlet.http.HttpServletRequest;
+import java.io.IOException;
+import java.io.InputStream;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 
 @RestController
 @RequestMapping("/mcpclient")
@@ -20,22 +35,84 @@ public class McpController {
 
     private static final Logger log = LoggerFactory.getLogger(McpController.class);
 
+    private static final String NDJSON_VALUE = "application/x-ndjson";
+    private static final MediaType NDJSON = MediaType.parseMediaType(NDJSON_VALUE);
+
     private final McpService mcpService;
+    private final BulkSubmissionService bulkSubmissionService;
+    private final AdmissionControl admissionControl;
 
     @Autowired
-    public McpController(McpService mcpService) {
+    public McpController(McpService mcpService, BulkSubmissionService bulkSubmissionService,
+                         AdmissionControl admissionControl) {
         this.mcpService = mcpService;
+        this.bulkSubmissionService = bulkSubmissionService;
+        this.admissionControl = admissionControl;
     }
 
+    /**
+     * Processes a single request at interactive priority. Requests whose LLM calls cannot be
+     * admitted in time are answered with 429 and a Retry-After header.
+     */
     @PostMapping("/processRequest")
-    public ResponseEntity<JsonNode> processRequest(@RequestBody Map<String, Object> userRequest) {
+    public CompletableFuture<ResponseEntity<JsonNode>> processRequest(@RequestBody Map<String, Object> userRequest) {
         //log.info("Received user request: {}", userRequest);
-        JsonNode response = mcpService.processUserRequest(userRequest);
-
-        if (response != null) {
-            return new ResponseEntity<>(response, HttpStatus.OK);
-        } else {
-            return new ResponseEntity<>(HttpStatus.INTERNAL_SERVER_ERROR);
+        try (AdmissionControl.Ticket ticket = admissionControl.open(AdmissionControl.Priority.INTERACTIVE)) {
+            return mcpService.processUserRequestAsync(userRequest).thenApply(response -> {
+                if (response != null) {
+                    return new ResponseEntity<>(response, HttpStatus.OK);
+                } else if (ticket.rejection() != null) {
+                    return tooManyRequests(ticket.rejection());
+                } else {
+                    return new ResponseEntity<>(HttpStatus.INTERNAL_SERVER_ERROR);
+                }
+            });
         }
     }
+
+    /**
+     * Processes a bulk upload sent as the request body, either NDJSON or a JSON array of requests.
+     * Results are streamed back as NDJSON, one line per submission, in completion order.
+     */
+    @PostMapping(value = "/processBatch", consumes = {NDJSON_VALUE, MediaType.APPLICATION_JSON_VALUE}, produces = NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> processBatch(HttpServletRequest request) {
+        return streamResults(request::getInputStream);
+    }
+
+    /**
+     * Processes a bulk upload sent as a multipart file.
+     */
+    @PostMapping(value = "/processBatch", consumes = MediaType.MULTIPART_FORM_DATA_VALUE, produces = NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> processBatchFile(@RequestParam("file") MultipartFile file) {
+        return streamResults(file::getInputStream);
+    }
+
+    private ResponseEntity<StreamingResponseBody> streamResults(InputSource source) {
+        admissionControl.check(AdmissionControl.Priority.BULK);
+        StreamingResponseBody body = out -> {
+            try (InputStream in = source.open()) {
+                bulkSubmissionService.process(in, out);
+            } catch (Exception e) {
+                log.error("Error processing bulk submissions", e);
+                throw e;
+            }
+        };
+        return ResponseEntity.ok().contentType(NDJSON).body(body);
+    }
+
+    @ExceptionHandler(AdmissionRejectedException.class)
+    public ResponseEntity<JsonNode> tooManyRequests(AdmissionRejectedException e) {
+        log.warn("Request rejected by admission control: {}", e.getMessage());
+        ObjectNode body = JsonNodeFactory.instance.objectNode()
+                .put("error", e.getMessage())
+                .put("retryAfterSeconds", e.retryAfterSeconds());
+        return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(e.retryAfterSeconds()))
+                .body(body);
+    }
+
+    @FunctionalInterface
+    private interface InputSource {
+        InputStream open() throws IOException;
+    }
 }
@@ -0,0 +1,246 @@
+package com.example.mcpclient;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.RestTemplate;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * HTTP client for tool execution on the MCP server.
+ * <p>
+ * With batching enabled, concurrent {@link #executeTool} calls arriving within a short window
+ * are coalesced into one POST /mcp/execute/batch request, and each caller receives its own
+ * item's result.
+ */
+@Component
+public class McpServerClient {
+
+    private static final Logger log = LoggerFactory.getLogger(McpServerClient.class);
+
+    private final RestTemplate restTemplate;
+    private final ExecutorService pipelineExecutor;
+    private final PipelineMetrics metrics;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Value("${mcp.server.url}")
+    private String mcpServerUrl;
+
+    @Value("${mcp.execute.batch.enabled:false}")
+    private boolean batchEnabled;
+
+    @Value("${mcp.execute.batch.window-ms:5}")
+    private long batchWindowMs;
+
+    @Value("${mcp.execute.batch.max-size:50}")
+    private int batchMaxSize;
+
+    private final ScheduledExecutorService batchScheduler = Executors.newSingleThreadScheduledExecutor(
+            Thread.ofPlatform().name("mcp-batch-flush").daemon().factory());
+
+    // Calls waiting for the current batch window to close
+    private final Object batchLock = new Object();
+    private List<PendingCall> pendingCalls = new ArrayList<>();
+
+    private record PendingCall(String tool, JsonNode input, CompletableFuture<JsonNode> result) {
+    }
+
+    @Autowired
+    public McpServerClient(RestTemplate restTemplate, @Qualifier("mcpPipelineExecutor") ExecutorService pipelineExecutor,
+                           PipelineMetrics metrics) {
+        this.restTemplate = restTemplate;
+        this.pipelineExecutor = pipelineExecutor;
+        this.metrics = metrics;
+    }
+
+    @PreDestroy
+    void shutdown() {
+        batchScheduler.shutdown();
+    }
+
+    /**
+     * Executes a selected tool on the MCP server with transformed input.
+     */
+    public JsonNode executeTool(String tool, JsonNode input) {
+        return metrics.observe("executeTool", () -> {
+            if (batchEnabled) {
+                return enqueue(tool, input).join();
+            }
+            return executeSingle(tool, input);
+        });
+    }
+
+    /**
+     * Adds a call to the current batch. The batch is sent when the window closes or when it
+     * reaches the maximum size, whichever comes first.
+     */
+    private CompletableFuture<JsonNode> enqueue(String tool, JsonNode input) {
+        PendingCall call = new PendingCall(tool, input, new CompletableFuture<>());
+        List<PendingCall> fullBatch = null;
+        synchronized (batchLock) {
+            pendingCalls.add(call);
+            if (pendingCalls.size() == 1) {
+                batchScheduler.schedule(this::flush, batchWindowMs, TimeUnit.MILLISECONDS);
+            }
+            if (pendingCalls.size() >= batchMaxSize) {
+                fullBatch = drainPendingCalls();
+            }
+        }
+        if (fullBatch != null) {
+            List<PendingCall> batch = fullBatch;
+            pipelineExecutor.execute(() -> sendBatch(batch));
+        }
+        return call.result();
+    }
+
+    private void flush() {
+        List<PendingCall> batch;
+        synchronized (batchLock) {
+            batch = drainPendingCalls();
+        }
+        if (!batch.isEmpty()) {
+            pipelineExecutor.execute(() -> sendBatch(batch));
+        }
+    }
+
+    private List<PendingCall> drainPendingCalls() {
+        List<PendingCall> batch = pendingCalls;
+        pendingCalls = new ArrayList<>();
+        return batch;
+    }
+
+    /**
+     * Sends a batch of calls to the MCP server and completes each caller's future with its
+     * item's response, or null if that item failed.
+     */
+    private void sendBatch(List<PendingCall> batch) {
+        if (batch.size() == 1) {
+            PendingCall call = batch.get(0);
+            call.result().complete(executeSingle(call.tool(), call.input()));
+            return;
+        }
+
+        String url = mcpServerUrl + "/mcp/execute/batch";
+        log.debug("Executing batch of {} tool calls at: {}", batch.size(), url);
+        try {
+            ArrayNode requestBody = objectMapper.createArrayNode();
+            for (PendingCall call : batch) {
+                ObjectNode item = requestBody.addObject();
+                item.put("tool", call.tool());
+                item.set("input", call.input());
+            }
+
+            HttpHeaders headers = new HttpHeaders();
+            headers.setContentType(MediaType.APPLICATION_JSON);
+            ResponseEntity<JsonNode> response = restTemplate.postForEntity(
+                    url, new HttpEntity<>(requestBody, headers), JsonNode.class);
+
+            if (response.getStatusCode().is2xxSuccessful() && response.getBody() != null) {
+                for (JsonNode result : response.getBody()) {
+                    PendingCall call = batch.get(result.get("index").asInt());
+                    int status = result.get("status").asInt();
+                    if (status >= 200 && status < 300) {
+                        call.result().complete(result.get("response"));
+                    } else {
+                        log.error("Error executing tool '{}': {} {}", call.tool(), status, result.get("response"));
+                        call.result().complete(null);
+                    }
+                }
+            } else {
+                log.error("Error executing tool batch: {}", response.getStatusCode());
+            }
+        } catch (Exception e) {
+            log.error("Exception while executing tool batch of {} calls", batch.size(), e);
+        } finally {
+            // Any call without a result in the response counts as failed
+            batch.forEach(call -> call.result().complete(null));
+        }
+    }
+
+    private JsonNode executeSingle(String tool, JsonNode input) {
+        String url = mcpServerUrl + "/mcp/execute";
+        log.debug("Executing tool '{}' at: {}", tool, url);
+
+        try {
+            HttpHeaders headers = new HttpHeaders();
+            headers.setContentType(MediaType.APPLICATION_JSON);
+
+            ObjectNode requestBody = objectMapper.createObjectNode();
+            requestBody.put("tool", tool);
+            requestBody.set("input", input);
+
+            HttpEntity<JsonNode> request = new HttpEntity<>(requestBody, headers);
+            ResponseEntity<JsonNode> response = restTemplate.postForEntity(url, request, JsonNode.class);
+
+            if (response.getStatusCode().is2xxSuccessful()) {
+                return response.getBody();
+            } else {
+                log.error("Error executing tool '{}': {}", tool, response.getStatusCode());
+                return null;
+            }
+        } catch (Exception e) {
+            log.error("Exception while executing tool '{}'", tool, e);
+            return null;
+        }
+    }
+
+    /**
+     * Looks up many ISIC codes with one call to /mcp/isicToAoc/batch.
+     *
+     * @return AOC codes by ISIC code (codes without a mapping are absent), or null on failure
+     */
+    public Map<String, String> lookupIsicToAoc(Collection<String> isicCodes, boolean hierarchical) {
+        String url = mcpServerUrl + "/mcp/isicToAoc/batch";
+        log.debug("Looking up {} ISIC codes at: {}", isicCodes.size(), url);
+
+        try {
+            HttpHeaders headers = new HttpHeaders();
+            headers.setContentType(MediaType.APPLICATION_JSON);
+
+            ObjectNode requestBody = objectMapper.createObjectNode();
+            ArrayNode codes = requestBody.putArray("isicCodes");
+            isicCodes.forEach(codes::add);
+            requestBody.put("hierarchical", hierarchical);
+
+            ResponseEntity<JsonNode> response = restTemplate.postForEntity(
+                    url, new HttpEntity<>(requestBody, headers), JsonNode.class);
+            if (!response.getStatusCode().is2xxSuccessful() || response.getBody() == null) {
+                log.error("Error looking up ISIC codes: {}", response.getStatusCode());
+                return null;
+            }
+
+            Map<String, String> aocCodes = new HashMap<>();
+            for (JsonNode result : response.getBody().path("results")) {
+                if (result.hasNonNull("aocCode")) {
+                    aocCodes.put(result.get("isicCode").asText(), result.get("aocCode").asText());
+                }
+            }
+            return aocCodes;
+        } catch (Exception e) {
+            log.error("Exception while looking up ISIC codes", e);
+            return null;
+        }
+    }
+}
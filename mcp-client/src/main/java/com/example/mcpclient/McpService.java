@@ -1,70 +1,105 @@
 package com.example.mcpclient;
 
 import com.fasterxml.jackson.databind.JsonNode;
-import com.fasterxml.jackson.databind.ObjectMapper;
-import com.fasterxml.jackson.databind.node.ObjectNode;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.http.HttpEntity;
-import org.springframework.http.HttpHeaders;
-import org.springframework.http.MediaType;
-import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Service;
-import org.springframework.web.client.RestTemplate;
 
-import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.function.Consumer;
 
 @Service
 public class McpService {
 
     private static final Logger log = LoggerFactory.getLogger(McpService.class);
 
-    private final RestTemplate restTemplate;
+    private final McpServerClient mcpServerClient;
     private final AiService aiService;
-    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final ToolCatalogCache toolCatalogCache;
+    private final MappingPlanCache mappingPlanCache;
+    private final RequestResultCache resultCache;
+    private final SchemaRegistry schemaRegistry;
+    private final TransformationRepairer transformationRepairer;
+    private final List<RequestEnricher> enrichers;
+    private final ExecutorService pipelineExecutor;
+    private final PipelineMetrics metrics;
 
-    @Value("${mcp.server.url}")
-    private String mcpServerUrl;
+    @Value("${mcp.pipeline.async.enabled:true}")
+    private boolean asyncEnabled;
+
+    @Value("${mcp.validation.enabled:true}")
+    private boolean validationEnabled;
 
     @Autowired
-    public McpService(RestTemplate restTemplate, AiService aiService) {
-        this.restTemplate = restTemplate;
+    public McpService(McpServerClient mcpServerClient, AiService aiService, ToolCatalogCache toolCatalogCache,
+                      MappingPlanCache mappingPlanCache, RequestResultCache resultCache,
+                      SchemaRegistry schemaRegistry,
+                      TransformationRepairer transformationRepairer,
+                      List<RequestEnricher> enrichers,
+                      @Qualifier("mcpPipelineExecutor") ExecutorService pipelineExecutor,
+                      PipelineMetrics metrics) {
+        this.mcpServerClient = mcpServerClient;
         this.aiService = aiService;
+        this.toolCatalogCache = toolCatalogCache;
+        this.mappingPlanCache = mappingPlanCache;
+        this.resultCache = resultCache;
+        this.schemaRegistry = schemaRegistry;
+        this.transformationRepairer = transformationRepairer;
+        this.enrichers = enrichers;
+        this.pipelineExecutor = pipelineExecutor;
+        this.metrics = metrics;
+    }
+
+    /**
+     * Process a user request through the MCP pipeline without holding the caller's thread.
+     * The pipeline runs on a virtual thread; with async mode disabled it runs on the caller's thread.
+     */
+    public CompletableFuture<JsonNode> processUserRequestAsync(Map<String, Object> userRequest) {
+        if (!asyncEnabled) {
+            return CompletableFuture.completedFuture(processUserRequest(userRequest));
+        }
+        return CompletableFuture.supplyAsync(() -> processUserRequest(userRequest), pipelineExecutor);
     }
 
     /**
      * Process a user request through the MCP pipeline.
+     * <p>
+     * Enrichment stages and tool selection both only read the original request, so they run
+     * concurrently; the transformation waits for all of them. Every stage is timed by
+     * {@link PipelineMetrics}. A request seen before, e.g. replayed by an upstream retry, is
+     * answered from the {@link RequestResultCache}.
      */
     public JsonNode processUserRequest(Map<String, Object> userRequest) {
+        return resultCache.get(userRequest, () -> processUncached(userRequest));
+    }
+
+    private JsonNode processUncached(Map<String, Object> userRequest) {
         log.info("Starting MCP client process");
 
-        // 1. Get tools from MCP server
-        JsonNode tools = getTools();
-        if (tools == null) {
+        // 1. Get tools from the cached MCP server catalog
+        ToolCatalog catalog = metrics.observe("getTools", toolCatalogCache::get);
+        if (catalog == null) {
             log.error("Failed to retrieve tools from MCP server");
             return null;
         }
-        log.debug("Retrieved tools: {}", tools);
-
-        // 2. NEW: Check for ISIC code and enrich the request with the corresponding AOC code.
-        enrichRequestWithAocCode(userRequest);
+        log.debug("Using tool catalog version {}", catalog.version());
 
-        // 3. Select appropriate tool using the (potentially enriched) AI request
-        String selectedTool = aiService.selectTool(userRequest, tools);
+        // 2-3. Enrich the request and select the appropriate tool
+        String selectedTool = enrichAndSelectTool(userRequest, catalog);
         if (selectedTool == null) {
             log.error("Failed to select a tool");
             return null;
         }
 
-        // 4. Transform the request using AI
-        JsonNode schema = tools.get(selectedTool).get("schema");
-        JsonNode transformedInput = aiService.transformQuery(
-                userRequest,
-                schema
-        );
+        // 4. Transform the request to match the selected tool's schema
+        JsonNode transformedInput = transform(userRequest, catalog, selectedTool);
         if (transformedInput == null) {
             log.error("Failed to transform query");
             return null;
@@ -72,7 +107,7 @@ public class McpService {
         log.debug("Transformed input: {}", transformedInput);
 
         // 5. Execute the tool via MCP server
-        JsonNode response = executeTool(selectedTool, transformedInput);
+        JsonNode response = mcpServerClient.executeTool(selectedTool, transformedInput);
         if (response != null) {
             log.info("Successfully executed tool");
             log.info("Response from MCP server: {}", response);
@@ -84,101 +119,87 @@ public class McpService {
     }
 
     /**
-     * NEW HELPER METHOD
-     * Checks for an ISIC code in the request, calls the mapping tool, and adds the AOC code.
+     * Runs the enrichment stages (e.g. ISIC to AOC) and tool selection in parallel, then applies
+     * the enrichment patches to the request.
+     *
+     * @return the selected tool, or null if no tool could be selected
      */
-    private void enrichRequestWithAocCode(Map<String, Object> userRequest) {
-        try {
-            // Safely navigate the map to find the ISIC code
-            Map<String, Object> submission = (Map<String, Object>) userRequest.get("submission");
-            if (submission == null) return;
-
-            Map<String, Object> initialInformation = (Map<String, Object>) submission.get("initialInformation");
-            if (initialInformation == null || !initialInformation.containsKey("codeISIC")) {
-                log.debug("No ISIC code found in the request. Skipping enrichment.");
-                return; // No ISIC code present, nothing to do
-            }
-
-            Map<String, Object> isicCodeMap = (Map<String, Object>) initialInformation.get("codeISIC");
-            String isicCode = (String) isicCodeMap.get("value");
-
-            if (isicCode != null && !isicCode.isEmpty()) {
-                log.info("ISIC code found: {}. Attempting to fetch corresponding AOC code.", isicCode);
-
-                // Prepare the input for the isicToAocMapping tool
-                ObjectNode isicInput = objectMapper.createObjectNode();
-                isicInput.put("isicCode", isicCode);
+    public String enrichAndSelectTool(Map<String, Object> userRequest, ToolCatalog catalog) {
+        List<CompletableFuture<Consumer<Map<String, Object>>>> enrichments = enrichers.stream()
+                .map(enricher -> CompletableFuture.supplyAsync(() -> runEnricher(enricher, userRequest), pipelineExecutor))
+                .toList();
+        CompletableFuture<String> selection = CompletableFuture.supplyAsync(
+                () -> metrics.observe("selectTool", () -> aiService.selectTool(userRequest, catalog)), pipelineExecutor);
+
+        String selectedTool = selection.join();
+        enrichments.stream()
+                .map(CompletableFuture::join)
+                .filter(Objects::nonNull)
+                .forEach(patch -> patch.accept(userRequest));
+        return selectedTool;
+    }
 
-                // Execute the specific tool to get the AOC code
-                JsonNode aocResponse = executeTool("isicToAocMapping", isicInput);
+    /**
+     * Transforms the request for the selected tool, using the mapping plan learned for this
+     * request shape if there is one and falling back to the AI model otherwise. AI output is
+     * validated against the tool's schema, so invalid input never reaches the MCP server;
+     * output that does not parse or validate goes through a targeted repair first.
+     *
+     * @return the tool input, or null if the transformation failed or produced invalid input
+     */
+    public JsonNode transform(Map<String, Object> userRequest, ToolCatalog catalog, String selectedTool) {
+        return metrics.observe("transformQuery", () -> transformUntimed(userRequest, catalog, selectedTool));
+    }
 
-                if (aocResponse != null && aocResponse.has("aocCode")) {
-                    String aocCode = aocResponse.get("aocCode").asText();
-                    log.info("Successfully fetched AOC code: {}", aocCode);
+    private JsonNode transformUntimed(Map<String, Object> userRequest, ToolCatalog catalog, String selectedTool) {
+        JsonNode transformedInput = mappingPlanCache.apply(catalog, selectedTool, userRequest);
+        if (transformedInput == null) {
+            JsonNode schema = catalog.tools().get(selectedTool).get("schema");
+            String response = aiService.transformQueryRaw(
+                    userRequest,
+                    schema
+            );
+            transformedInput = transformationRepairer.parse(response);
+            if (transformedInput == null) {
+                return null;
+            }
 
-                    // Enrich the original user request with the new AOC code
-                    Map<String, String> aocCodeMap = new HashMap<>();
-                    aocCodeMap.put("value", aocCode);
-                    aocCodeMap.put("description", "Activity on Location code derived from ISIC.");
-                    initialInformation.put("codeAOC", aocCodeMap);
-                    log.info("User request has been enriched with AOC code.");
-                } else {
-                    log.warn("Failed to retrieve AOC code for ISIC: {}. Response: {}", isicCode, aocResponse);
+            List<SchemaViolation> violations = validate(catalog, selectedTool, transformedInput);
+            if (!violations.isEmpty()) {
+                log.info("Transformed input for tool '{}' does not match its schema: {}", selectedTool, violations);
+                transformedInput = transformationRepairer.repair(
+                        userRequest, catalog, selectedTool, transformedInput, violations);
+                if (transformedInput == null) {
+                    log.error("Transformed input for tool '{}' could not be repaired", selectedTool);
+                    return null;
                 }
             }
-        } catch (Exception e) {
-            // Log the exception but don't stop the main process.
-            // The transformation can still proceed without the AOC code.
-            log.error("Error during ISIC to AOC enrichment process. The main flow will continue.", e);
+            mappingPlanCache.learn(catalog, selectedTool, userRequest, transformedInput);
         }
+        return transformedInput;
     }
 
     /**
-     * Retrieves available tools from the MCP server.
+     * Validates a tool input against the tool's compiled schema.
+     *
+     * @return the violations, empty if the input is valid or validation is disabled
      */
-    private JsonNode getTools() {
-        String url = mcpServerUrl + "/mcp/tools";
-        log.debug("Requesting tools from: {}", url);
-        try {
-            ResponseEntity<JsonNode> response = restTemplate.getForEntity(url, JsonNode.class);
-            if (response.getStatusCode().is2xxSuccessful()) {
-                return response.getBody();
-            } else {
-                log.error("Error getting tools: {}", response.getStatusCode());
-                return null;
-            }
-        } catch (Exception e) {
-            log.error("Exception while getting tools", e);
-            return null;
+    public List<SchemaViolation> validate(ToolCatalog catalog, String tool, JsonNode input) {
+        if (!validationEnabled) {
+            return List.of();
         }
+        return schemaRegistry.violations(catalog, tool, input);
     }
 
     /**
-     * Executes a selected tool on the MCP server with transformed input.
+     * Runs one enrichment stage. Failures are logged but don't stop the main process;
+     * the transformation can still proceed without the enrichment.
      */
-    private JsonNode executeTool(String tool, JsonNode input) {
-        String url = mcpServerUrl + "/mcp/execute";
-        log.debug("Executing tool '{}' at: {}", tool, url);
-
+    private Consumer<Map<String, Object>> runEnricher(RequestEnricher enricher, Map<String, Object> userRequest) {
         try {
-            HttpHeaders headers = new HttpHeaders();
-            headers.setContentType(MediaType.APPLICATION_JSON);
-
-            ObjectNode requestBody = objectMapper.createObjectNode();
-            requestBody.put("tool", tool);
-            requestBody.set("input", input);
-
-            HttpEntity<JsonNode> request = new HttpEntity<>(requestBody, headers);
-            ResponseEntity<JsonNode> response = restTemplate.postForEntity(url, request, JsonNode.class);
-
-            if (response.getStatusCode().is2xxSuccessful()) {
-                return response.getBody();
-            } else {
-                log.error("Error executing tool '{}': {}", tool, response.getStatusCode());
-                return null;
-            }
+            return metrics.observe("enrichment", () -> enricher.enrich(userRequest), patch -> true);
         } catch (Exception e) {
-            log.error("Exception while executing tool '{}'", tool, e);
+            log.error("Error during '{}' enrichment. The main flow will continue.", enricher.name(), e);
             return null;
         }
     }
@@ -0,0 +1,284 @@
+package com.example.mcpclient;
+
+import dev.langchain4j.data.message.AiMessage;
+import dev.langchain4j.data.message.ChatMessage;
+import dev.langchain4j.model.chat.ChatLanguageModel;
+import dev.langchain4j.model.chat.request.ChatRequest;
+import dev.langchain4j.model.chat.response.ChatResponse;
+import dev.langchain4j.model.output.Response;
+import dev.langchain4j.model.output.TokenUsage;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Comparator;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Chat model that spreads calls over several {@link LlmBackend}s.
+ * <p>
+ * Each call goes to the available primary backend with the lowest recent p95 latency. If it
+ * has not answered within that p95 (or {@code default-delay-ms} before enough samples exist),
+ * a hedged copy of the call goes to the next primary backend and the first answer wins; the
+ * slower call is cancelled. A failed call moves on to the next backend, and fallback backends
+ * (the local Ollama model) are only tried once every primary backend has failed or is
+ * unavailable. Saturated backends are skipped; if every backend is saturated the call waits
+ * up to {@code acquire-timeout-ms} for a permit.
+ * <p>
+ * Every call is first admitted by {@link AdmissionControl}, which charges it against the
+ * token quota once, however many backends end up serving it.
+ */
+@Component
+public class ModelPool implements ChatLanguageModel {
+
+    private static final Logger log = LoggerFactory.getLogger(ModelPool.class);
+
+    private static final long HEDGE_RETRY_NANOS = TimeUnit.MILLISECONDS.toNanos(50);
+
+    private record Outcome(LlmBackend backend, ChatResponse response, Throwable error) {
+    }
+
+    /**
+     * A call in flight. Whichever of the task and its canceller sets {@code started} first owns
+     * the backend permit, so a task cancelled before it ran still gives its permit back.
+     */
+    private record Call(Future<?> future, AtomicBoolean started, long startNanos) {
+    }
+
+    private final List<LlmBackend> backends;
+    private final ExecutorService executor;
+    private final AdmissionControl admissionControl;
+    private final PipelineMetrics metrics;
+
+    private final LongAdder hedges = new LongAdder();
+    private final LongAdder fallbacks = new LongAdder();
+
+    @Value("${mcp.llm.pool.hedging.enabled:true}")
+    private boolean hedging;
+
+    @Value("${mcp.llm.pool.hedging.min-samples:20}")
+    private int minSamples;
+
+    @Value("${mcp.llm.pool.hedging.default-delay-ms:10000}")
+    private long defaultHedgeDelayMs;
+
+    @Value("${mcp.llm.pool.acquire-timeout-ms:5000}")
+    private long acquireTimeoutMs;
+
+    @Autowired
+    public ModelPool(List<LlmBackend> backends, @Qualifier("mcpPipelineExecutor") ExecutorService executor,
+                     AdmissionControl admissionControl, PipelineMetrics metrics) {
+        if (backends.isEmpty()) {
+            throw new IllegalStateException("No LLM backend configured");
+        }
+        this.backends = List.copyOf(backends);
+        this.executor = executor;
+        this.admissionControl = admissionControl;
+        this.metrics = metrics;
+        log.info("LLM pool backends: {}", backends.stream()
+                .map(backend -> backend.name() + (backend.fallback() ? " (fallback)" : "")).toList());
+    }
+
+    @Override
+    public ChatResponse chat(ChatRequest request) {
+        long charged = admissionControl.acquire(request.messages());
+        TokenUsage usage = null;
+        try {
+            ChatResponse response = dispatch(request);
+            usage = response.tokenUsage();
+            return response;
+        } finally {
+            admissionControl.settle(charged, usage);
+        }
+    }
+
+    private ChatResponse dispatch(ChatRequest request) {
+        List<LlmBackend> order = order();
+        BlockingQueue<Outcome> outcomes = new LinkedBlockingQueue<>();
+        Map<LlmBackend, Call> inFlight = new IdentityHashMap<>();
+        AtomicBoolean done = new AtomicBoolean();
+        Throwable lastError = null;
+        boolean hedged = false;
+        long hedgeRetryAt = System.nanoTime();
+
+        try {
+            int next = launch(order, 0, request, outcomes, inFlight, done, true);
+            while (!inFlight.isEmpty()) {
+                Outcome outcome;
+                if (hedging && !hedged && inFlight.size() == 1 && hasPrimary(order, next)) {
+                    Map.Entry<LlmBackend, Call> current = inFlight.entrySet().iterator().next();
+                    long wait = Math.max(
+                            hedgeDelayNanos(current.getKey()) - (System.nanoTime() - current.getValue().startNanos()),
+                            hedgeRetryAt - System.nanoTime());
+                    outcome = outcomes.poll(Math.max(wait, 0), TimeUnit.NANOSECONDS);
+                    if (outcome == null) {
+                        next = launch(order, next, request, outcomes, inFlight, done, false);
+                        if (inFlight.size() > 1) {
+                            hedged = true;
+                            hedges.increment();
+                            log.debug("LLM call on '{}' slower than its p95, hedged", current.getKey().name());
+                        } else {
+                            // Every other primary is saturated; try again shortly
+                            hedgeRetryAt = System.nanoTime() + HEDGE_RETRY_NANOS;
+                        }
+                        continue;
+                    }
+                } else {
+                    outcome = outcomes.take();
+                }
+
+                inFlight.remove(outcome.backend());
+                if (outcome.response() != null) {
+                    if (outcome.backend().fallback()) {
+                        fallbacks.increment();
+                    }
+                    metrics.recordTokens(outcome.backend().name(), outcome.response().tokenUsage());
+                    return outcome.response();
+                }
+                lastError = outcome.error();
+                log.warn("LLM backend '{}' failed: {}", outcome.backend().name(), lastError.toString());
+                if (inFlight.isEmpty()) {
+                    next = launch(order, next, request, outcomes, inFlight, done, true);
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for the LLM", e);
+        } finally {
+            done.set(true);
+            inFlight.forEach((backend, call) -> {
+                call.future().cancel(true);
+                if (!call.started().getAndSet(true)) {
+                    backend.abandoned(0);
+                }
+            });
+        }
+        throw new IllegalStateException(lastError == null
+                ? "No LLM backend available (all open or saturated)" : "All LLM backends failed", lastError);
+    }
+
+    /**
+     * Required by {@link ChatLanguageModel} in this langchain4j version; the client only calls
+     * {@link #chat(ChatRequest)}.
+     */
+    @Override
+    @Deprecated
+    @SuppressWarnings("removal")
+    public Response<AiMessage> generate(List<ChatMessage> messages) {
+        ChatResponse response = chat(messages);
+        return Response.from(response.aiMessage(), response.tokenUsage(), response.finishReason());
+    }
+
+    public List<LlmBackend.Stats> stats() {
+        return backends.stream().map(LlmBackend::stats).toList();
+    }
+
+    public long hedges() {
+        return hedges.sum();
+    }
+
+    public long fallbacks() {
+        return fallbacks.sum();
+    }
+
+    /**
+     * Orders the backends for a call: available primaries by p95 latency (unmeasured ones first,
+     * so new backends get traffic), then unavailable primaries, then the fallbacks. The keys are
+     * read once, as breaker state and latencies change while sorting.
+     */
+    private List<LlmBackend> order() {
+        record Key(LlmBackend backend, boolean fallback, boolean unavailable, long p95) {
+        }
+        return backends.stream()
+                .map(backend -> new Key(backend, backend.fallback(), !backend.available(), backend.p95Nanos(minSamples)))
+                .sorted(Comparator.comparing(Key::fallback)
+                        .thenComparing(Key::unavailable)
+                        .thenComparingLong(Key::p95))
+                .map(Key::backend)
+                .toList();
+    }
+
+    /**
+     * Starts the call on the first primary backend from {@code from} with a free permit. Unless
+     * hedging ({@code wait} false), a call that finds every primary saturated waits for a permit
+     * on the first available one, and moves on to the fallbacks if there is none.
+     *
+     * @return the index to continue from
+     */
+    private int launch(List<LlmBackend> order, int from, ChatRequest request, BlockingQueue<Outcome> outcomes,
+                       Map<LlmBackend, Call> inFlight, AtomicBoolean done, boolean wait)
+            throws InterruptedException {
+        for (int i = from; i < order.size() && !order.get(i).fallback(); i++) {
+            if (order.get(i).tryAcquire(Duration.ZERO)) {
+                inFlight.put(order.get(i), submit(order.get(i), request, outcomes, done));
+                return i + 1;
+            }
+        }
+        if (!wait) {
+            return from;
+        }
+        for (int i = from; i < order.size(); i++) {
+            LlmBackend backend = order.get(i);
+            if (!backend.available()) {
+                continue;
+            }
+            if (backend.tryAcquire(Duration.ofMillis(acquireTimeoutMs))) {
+                inFlight.put(backend, submit(backend, request, outcomes, done));
+                return i + 1;
+            }
+            log.warn("LLM backend '{}' saturated for {} ms", backend.name(), acquireTimeoutMs);
+        }
+        return order.size();
+    }
+
+    private Call submit(LlmBackend backend, ChatRequest request, BlockingQueue<Outcome> outcomes,
+                        AtomicBoolean done) {
+        AtomicBoolean started = new AtomicBoolean();
+        Future<?> future = executor.submit(() -> {
+            if (started.getAndSet(true)) {
+                return;
+            }
+            long start = System.nanoTime();
+            try {
+                ChatResponse response = backend.model().chat(request);
+                backend.succeeded(System.nanoTime() - start);
+                outcomes.add(new Outcome(backend, response, null));
+            } catch (Throwable e) {
+                if (done.get()) {
+                    backend.abandoned(System.nanoTime() - start);
+                } else {
+                    backend.failed(e);
+                    outcomes.add(new Outcome(backend, null, e));
+                }
+            }
+        });
+        return new Call(future, started, System.nanoTime());
+    }
+
+    private long hedgeDelayNanos(LlmBackend backend) {
+        long p95 = backend.p95Nanos(minSamples);
+        return p95 >= 0 ? p95 : TimeUnit.MILLISECONDS.toNanos(defaultHedgeDelayMs);
+    }
+
+    private static boolean hasPrimary(List<LlmBackend> order, int from) {
+        for (int i = from; i < order.size(); i++) {
+            if (!order.get(i).fallback() && order.get(i).available()) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
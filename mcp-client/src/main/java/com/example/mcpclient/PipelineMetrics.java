@@ -0,0 +1,91 @@
+package com.example.mcpclient;
+
+import dev.langchain4j.model.output.TokenUsage;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.observation.Observation;
+import io.micrometer.observation.ObservationRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.Objects;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+/**
+ * Instrumentation of the MCP pipeline.
+ * <p>
+ * Each stage runs as a Micrometer observation named {@value #STAGE}, tagged with the stage and
+ * its outcome. That produces a timer (with a histogram, see {@code application.properties}) and
+ * a trace span nested under the request's span. A stage that returns null counts as a failure,
+ * matching how the pipeline reports failures.
+ */
+@Component
+public class PipelineMetrics {
+
+    public static final String STAGE = "mcp.pipeline.stage";
+    public static final String TOKENS = "mcp.llm.tokens";
+
+    private final ObservationRegistry observationRegistry;
+    private final MeterRegistry meterRegistry;
+
+    @Autowired
+    public PipelineMetrics(ObservationRegistry observationRegistry, MeterRegistry meterRegistry) {
+        this.observationRegistry = observationRegistry;
+        this.meterRegistry = meterRegistry;
+    }
+
+    /**
+     * Runs one pipeline stage under an observation. A null result counts as a failure.
+     */
+    public <T> T observe(String stage, Supplier<T> work) {
+        return observe(stage, work, Objects::nonNull);
+    }
+
+    /**
+     * Runs one pipeline stage under an observation, judging its outcome by {@code succeeded}.
+     */
+    public <T> T observe(String stage, Supplier<T> work, Predicate<? super T> succeeded) {
+        Observation observation = Observation.createNotStarted(STAGE, observationRegistry)
+                .contextualName(stage)
+                .lowCardinalityKeyValue("stage", stage)
+                .start();
+        Observation.Scope scope = observation.openScope();
+        try {
+            T result = work.get();
+            observation.lowCardinalityKeyValue("outcome", succeeded.test(result) ? "success" : "failure");
+            return result;
+        } catch (RuntimeException e) {
+            observation.lowCardinalityKeyValue("outcome", "error");
+            observation.error(e);
+            throw e;
+        } finally {
+            scope.close();
+            observation.stop();
+        }
+    }
+
+    /**
+     * Counts the prompt and completion tokens of an LLM response.
+     */
+    public void recordTokens(String backend, TokenUsage usage) {
+        if (usage == null) {
+            return;
+        }
+        if (usage.inputTokenCount() != null) {
+            tokens(backend, "prompt").increment(usage.inputTokenCount());
+        }
+        if (usage.outputTokenCount() != null) {
+            tokens(backend, "completion").increment(usage.outputTokenCount());
+        }
+    }
+
+    private Counter tokens(String backend, String type) {
+        return Counter.builder(TOKENS)
+                .description("LLM tokens used")
+                .baseUnit("tokens")
+                .tag("backend", backend)
+                .tag("type", type)
+                .register(meterRegistry);
+    }
+}
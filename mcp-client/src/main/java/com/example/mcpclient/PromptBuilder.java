@@ -0,0 +1,240 @@
+package com.example.mcpclient;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import dev.langchain4j.model.Tokenizer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Renders schemas and user data compactly for LLM prompts.
+ * <p>
+ * Schemas are stripped of metadata the model does not need ({@code $schema}, the root title and
+ * description, examples) and rendered once per schema instance, so the catalog's schemas are
+ * only serialized once. User data loses its annotations: {@code {"value": ..., "description": ...}}
+ * pairs collapse to the value and descriptive text next to nested fields is dropped.
+ * <p>
+ * Prompts are held to {@code mcp.llm.prompt.max-input-tokens}, counted with the model's
+ * tokenizer. Over budget, user fields the schema does not mention are dropped, largest first.
+ * Fields the schema mentions are never cut, as their values are copied into the tool input; if
+ * they alone exceed the budget, the prompt is sent over budget with a warning.
+ */
+@Component
+public class PromptBuilder {
+
+    private static final Logger log = LoggerFactory.getLogger(PromptBuilder.class);
+
+    // Keywords that describe a schema rather than constrain it
+    private static final Set<String> SCHEMA_METADATA = Set.of("$schema", "$id", "$comment", "examples", "default");
+
+    // Fields that annotate a {"value": ...} pair
+    private static final Set<String> VALUE_METADATA = Set.of("description", "title", "type", "format", "example");
+
+    private record RenderedSchema(String text, Set<String> propertyNames) {
+    }
+
+    private record Leaf(ObjectNode parent, String field, int tokens, boolean referenced) {
+    }
+
+    private final Tokenizer tokenizer;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    // Catalog schemas are immutable and reused, so they are keyed by identity
+    private final Cache<JsonNode, RenderedSchema> schemas = Caffeine.newBuilder()
+            .weakKeys()
+            .maximumSize(1000)
+            .build();
+
+    @Value("${mcp.llm.prompt.max-input-tokens:6000}")
+    private int maxInputTokens;
+
+    @Autowired
+    public PromptBuilder(Tokenizer tokenizer) {
+        this.tokenizer = tokenizer;
+    }
+
+    /**
+     * Returns the minified rendering of a tool input schema.
+     */
+    public String schema(JsonNode schema) {
+        return rendered(schema).text();
+    }
+
+    /**
+     * Returns the user data with annotations removed, without a token budget.
+     */
+    public String userData(Object userRequest) {
+        return compact(objectMapper.valueToTree(userRequest)).toString();
+    }
+
+    /**
+     * Returns the user data with annotations removed, cut down so that it fits in the prompt
+     * budget together with {@code reservedTokens} of template and schema text, as far as
+     * dropping the fields the schema does not use allows.
+     */
+    public String userData(Object userRequest, JsonNode schema, int reservedTokens) {
+        JsonNode data = compact(objectMapper.valueToTree(userRequest));
+        String text = data.toString();
+        int budget = maxInputTokens - reservedTokens;
+        int tokens = tokens(text);
+        if (tokens <= budget || !data.isContainerNode()) {
+            return text;
+        }
+
+        Set<String> referenced = rendered(schema).propertyNames();
+        List<Leaf> leaves = new ArrayList<>();
+        collectLeaves(data, referenced, leaves);
+        leaves.sort(Comparator.comparingInt(Leaf::tokens).reversed());
+
+        int dropped = 0;
+        for (Iterator<Leaf> it = leaves.iterator(); it.hasNext() && tokens > budget; ) {
+            Leaf leaf = it.next();
+            if (!leaf.referenced()) {
+                leaf.parent().remove(leaf.field());
+                tokens -= leaf.tokens();
+                dropped++;
+            }
+        }
+
+        text = data.toString();
+        tokens = tokens(text);
+        if (tokens > budget) {
+            log.warn("User data needs {} tokens, over the prompt budget of {} after dropping {} field(s) "
+                    + "the tool schema does not use", tokens, budget, dropped);
+        } else {
+            log.debug("Dropped {} field(s) to fit the prompt budget of {} tokens", dropped, budget);
+        }
+        return text;
+    }
+
+    /**
+     * Counts the tokens of a text with the model's tokenizer.
+     */
+    public int tokens(String text) {
+        return tokenizer.estimateTokenCountInText(text);
+    }
+
+    private RenderedSchema rendered(JsonNode schema) {
+        return schemas.get(schema, key -> {
+            ObjectNode minified = key.deepCopy();
+            minified.remove("title");
+            minified.remove("description");
+            Set<String> propertyNames = new HashSet<>();
+            strip(minified, propertyNames);
+            return new RenderedSchema(minified.toString(), Set.copyOf(propertyNames));
+        });
+    }
+
+    /**
+     * Removes schema metadata recursively and collects the names of all declared properties.
+     */
+    private static void strip(JsonNode node, Set<String> propertyNames) {
+        if (node instanceof ObjectNode object) {
+            object.remove(SCHEMA_METADATA);
+            object.fields().forEachRemaining(field -> {
+                if (field.getKey().equals("properties") && field.getValue().isObject()) {
+                    // Property names are not keywords; only their sub-schemas are stripped
+                    field.getValue().fields().forEachRemaining(property -> {
+                        propertyNames.add(property.getKey().toLowerCase());
+                        strip(property.getValue(), propertyNames);
+                    });
+                } else {
+                    strip(field.getValue(), propertyNames);
+                }
+            });
+        } else if (node.isArray()) {
+            node.forEach(child -> strip(child, propertyNames));
+        }
+    }
+
+    /**
+     * Collapses annotated {@code {"value": ...}} pairs to their value and drops descriptive text
+     * sitting next to nested fields.
+     */
+    private static JsonNode compact(JsonNode node) {
+        if (node instanceof ObjectNode object) {
+            if (object.has("value") && isAnnotatedValue(object)) {
+                return compact(object.get("value"));
+            }
+            boolean describesNested = object.size() > 1 && object.path("description").isTextual();
+            for (Iterator<Map.Entry<String, JsonNode>> it = object.fields(); it.hasNext() && describesNested; ) {
+                Map.Entry<String, JsonNode> field = it.next();
+                describesNested = field.getKey().equals("description") || field.getValue().isContainerNode();
+            }
+            ObjectNode compacted = object.objectNode();
+            for (Iterator<Map.Entry<String, JsonNode>> it = object.fields(); it.hasNext(); ) {
+                Map.Entry<String, JsonNode> field = it.next();
+                if (!field.getValue().isNull() && !(describesNested && field.getKey().equals("description"))) {
+                    compacted.set(field.getKey(), compact(field.getValue()));
+                }
+            }
+            return compacted;
+        }
+        if (node instanceof ArrayNode array) {
+            ArrayNode compacted = array.arrayNode(array.size());
+            array.forEach(element -> compacted.add(compact(element)));
+            return compacted;
+        }
+        return node;
+    }
+
+    private static boolean isAnnotatedValue(ObjectNode object) {
+        for (Iterator<String> it = object.fieldNames(); it.hasNext(); ) {
+            String name = it.next();
+            if (!name.equals("value") && !VALUE_METADATA.contains(name)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Collects the object fields holding a scalar or an array of scalars, with their token cost.
+     */
+    private void collectLeaves(JsonNode node, Set<String> referenced, List<Leaf> leaves) {
+        if (node instanceof ObjectNode object) {
+            object.fields().forEachRemaining(field -> {
+                JsonNode value = field.getValue();
+                if (isLeaf(value)) {
+                    int cost = tokens(objectMapper.createObjectNode().set(field.getKey(), value).toString());
+                    leaves.add(new Leaf(object, field.getKey(), cost,
+                            referenced.contains(field.getKey().toLowerCase())));
+                } else {
+                    collectLeaves(value, referenced, leaves);
+                }
+            });
+        } else if (node instanceof ArrayNode array) {
+            array.forEach(element -> collectLeaves(element, referenced, leaves));
+        }
+    }
+
+    private static boolean isLeaf(JsonNode value) {
+        if (value.isValueNode()) {
+            return true;
+        }
+        if (value.isArray()) {
+            for (JsonNode element : value) {
+                if (element.isContainerNode()) {
+                    return false;
+                }
+            }
+            return true;
+        }
+        return false;
+    }
+}
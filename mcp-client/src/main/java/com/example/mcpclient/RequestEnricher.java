@@ -0,0 +1,27 @@
+package com.example.mcpclient;
+
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * A pipeline stage that adds reference data to a user request before it is transformed.
+ * <p>
+ * Enrichers are Spring beans and are picked up by {@link McpService} automatically. They run
+ * concurrently with each other and with tool selection, so they must not modify the request
+ * they are given. Instead they return a patch, which the pipeline applies once every stage
+ * has finished.
+ */
+public interface RequestEnricher {
+
+    /**
+     * Name of the stage, used in logs.
+     */
+    String name();
+
+    /**
+     * Computes the enrichment for a request.
+     *
+     * @return a patch to apply to the request, or null if there is nothing to add
+     */
+    Consumer<Map<String, Object>> enrich(Map<String, Object> userRequest);
+}
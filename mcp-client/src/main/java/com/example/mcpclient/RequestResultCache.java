@@ -0,0 +1,189 @@
+package com.example.mcpclient;
+
+import com.example.mcpclient.config.CacheConfig;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
+
+/**
+ * Caches the results of whole pipeline runs, so a request replayed by an upstream retry is
+ * answered without another LLM call or tool execution.
+ * <p>
+ * Keys are the SHA-256 of the request in canonical form: object fields sorted by name, and
+ * fields listed in {@code mcp.result.cache.volatile-fields} (request IDs, timestamps) left out
+ * at any depth, so replays that differ only in field order or in those fields share a key.
+ * The digest also covers the version of the tool catalog, so results computed against an
+ * older catalog are not replayed once the server's tools change. Concurrent identical requests
+ * share one pipeline run. Failed runs are not cached, so a retry
+ * after a failure runs the pipeline again.
+ */
+@Component
+public class RequestResultCache {
+
+    public static final String CACHE_NAME = "requestResults";
+
+    private static final Logger log = LoggerFactory.getLogger(RequestResultCache.class);
+
+    private final CaffeineCacheManager cacheManager;
+    private final ToolCatalogCache toolCatalogCache;
+    private final AdmissionControl admissionControl;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Value("${mcp.result.cache.enabled:true}")
+    private boolean enabled;
+
+    @Value("${mcp.result.cache.max-size:10000}")
+    private long maxSize;
+
+    @Value("${mcp.result.cache.ttl-seconds:900}")
+    private long ttlSeconds;
+
+    @Value("${mcp.result.cache.volatile-fields:}")
+    private Set<String> volatileFields;
+
+    private AsyncCache<String, JsonNode> cache;
+
+    @Autowired
+    public RequestResultCache(CaffeineCacheManager cacheManager, ToolCatalogCache toolCatalogCache,
+                              AdmissionControl admissionControl) {
+        this.cacheManager = cacheManager;
+        this.toolCatalogCache = toolCatalogCache;
+        this.admissionControl = admissionControl;
+    }
+
+    @PostConstruct
+    void init() {
+        cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(Duration.ofSeconds(ttlSeconds))
+                .recordStats()
+                .buildAsync();
+        CacheConfig.register(cacheManager, CACHE_NAME, cache.synchronous());
+    }
+
+    /**
+     * Returns the cached result for the request, or runs {@code pipeline} and caches its
+     * result. The key is taken before the pipeline runs, as enrichment patches the request.
+     * Without a tool catalog the pipeline runs uncached. Every caller gets its own copy of the
+     * result, so changing it does not change the cached one.
+     * <p>
+     * As in {@link ToolSelectionCache}, the pipeline runs on the calling thread outside the
+     * cache's map lock, and callers with the same key wait for its result. A run whose LLM call
+     * was not admitted is not shared: the callers waiting for it run the pipeline under their
+     * own tickets, which may have a higher priority or a later deadline.
+     */
+    public JsonNode get(Map<String, Object> userRequest, Supplier<JsonNode> pipeline) {
+        if (!enabled) {
+            return pipeline.get();
+        }
+        ToolCatalog catalog = toolCatalogCache.get();
+        if (catalog == null) {
+            return pipeline.get();
+        }
+        String key = key(catalog.version(), userRequest);
+
+        CompletableFuture<JsonNode> run = new CompletableFuture<>();
+        CompletableFuture<JsonNode> cached = cache.get(key, (k, executor) -> run);
+        if (cached == run) {
+            JsonNode result;
+            try {
+                result = pipeline.get();
+            } catch (Throwable e) {
+                // Errors too, or the callers waiting for the run would wait forever
+                run.completeExceptionally(e);
+                throw e;
+            }
+            if (result == null && admissionControl.rejection() != null) {
+                cache.asMap().remove(key, run);
+                run.cancel(false);
+                return null;
+            }
+            run.complete(result);
+        } else {
+            log.info("Replaying result of request {}", key);
+        }
+
+        JsonNode result;
+        try {
+            result = cached.join();
+        } catch (CancellationException e) {
+            return get(userRequest, pipeline);
+        }
+        return result != null ? result.deepCopy() : null;
+    }
+
+    public CacheStats stats() {
+        return cache.synchronous().stats();
+    }
+
+    /**
+     * Returns the hex-encoded SHA-256 of the catalog version and the request in canonical form.
+     */
+    String key(String catalogVersion, Object request) {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+        try (JsonGenerator generator = objectMapper.createGenerator(
+                new DigestOutputStream(OutputStream.nullOutputStream(), digest))) {
+            generator.writeStartArray();
+            generator.writeString(catalogVersion);
+            writeCanonical(request, generator);
+            generator.writeEndArray();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Error hashing request", e);
+        }
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    private void writeCanonical(Object node, JsonGenerator generator) throws IOException {
+        if (node instanceof Map<?, ?> map) {
+            generator.writeStartObject();
+            Map<String, Object> sorted = new TreeMap<>();
+            map.forEach((name, value) -> sorted.put(String.valueOf(name), value));
+            for (Map.Entry<String, Object> entry : sorted.entrySet()) {
+                if (!volatileFields.contains(entry.getKey())) {
+                    generator.writeFieldName(entry.getKey());
+                    writeCanonical(entry.getValue(), generator);
+                }
+            }
+            generator.writeEndObject();
+        } else if (node instanceof List<?> list) {
+            generator.writeStartArray();
+            for (Object element : list) {
+                writeCanonical(element, generator);
+            }
+            generator.writeEndArray();
+        } else {
+            generator.writeObject(node);
+        }
+    }
+}
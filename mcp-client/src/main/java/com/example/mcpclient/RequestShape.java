@@ -0,0 +1,70 @@
+package com.example.mcpclient;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedSet;
+import java.util.TreeSet;
+
+/**
+ * Computes a canonical fingerprint of a user request's structure.
+ * <p>
+ * The fingerprint covers the sorted set of field paths in the request, with array indices
+ * collapsed to {@code []}, and ignores all values. Two submissions that carry the same fields
+ * therefore share a fingerprint regardless of their content or field order.
+ */
+public final class RequestShape {
+
+    private RequestShape() {
+    }
+
+    /**
+     * Returns the hex-encoded SHA-256 fingerprint of the request's field paths.
+     */
+    public static String fingerprint(Object request) {
+        return hash(String.join("\n", paths(request)));
+    }
+
+    /**
+     * Returns the sorted set of leaf field paths of the request, e.g.
+     * {@code submission.parties[].partyName.value}.
+     */
+    public static SortedSet<String> paths(Object request) {
+        SortedSet<String> paths = new TreeSet<>();
+        collect(request, "", paths);
+        return paths;
+    }
+
+    private static void collect(Object node, String path, SortedSet<String> paths) {
+        if (node instanceof Map<?, ?> map) {
+            if (map.isEmpty()) {
+                paths.add(path + "{}");
+            }
+            for (Map.Entry<?, ?> entry : map.entrySet()) {
+                String child = path.isEmpty() ? String.valueOf(entry.getKey()) : path + "." + entry.getKey();
+                collect(entry.getValue(), child, paths);
+            }
+        } else if (node instanceof List<?> list) {
+            if (list.isEmpty()) {
+                paths.add(path + "[]");
+            }
+            for (Object element : list) {
+                collect(element, path + "[]", paths);
+            }
+        } else {
+            paths.add(path);
+        }
+    }
+
+    private static String hash(String value) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(value.getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+}
@@ -0,0 +1,52 @@
+package com.example.mcpclient;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.networknt.schema.JsonSchema;
+import com.networknt.schema.JsonSchemaFactory;
+import com.networknt.schema.SpecVersion;
+import com.networknt.schema.ValidationMessage;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Compiles tool input schemas once per catalog version and validates JSON against them.
+ */
+@Component
+public class SchemaRegistry {
+
+    private final JsonSchemaFactory schemaFactory = JsonSchemaFactory.getInstance(SpecVersion.VersionFlag.V7);
+
+    private final Cache<String, JsonSchema> schemas = Caffeine.newBuilder()
+            .maximumSize(1000)
+            .build();
+
+    /**
+     * Returns the compiled input schema of a tool in the given catalog.
+     */
+    public JsonSchema getSchema(ToolCatalog catalog, String tool) {
+        return schemas.get(catalog.version() + ":" + tool,
+                key -> schemaFactory.getSchema(catalog.tools().get(tool).get("schema")));
+    }
+
+    /**
+     * Validates a tool input against the tool's schema.
+     *
+     * @return the validation errors, empty if the input is valid
+     */
+    public Set<ValidationMessage> validate(ToolCatalog catalog, String tool, JsonNode input) {
+        return getSchema(catalog, tool).validate(input);
+    }
+
+    /**
+     * Validates a tool input and reports each violation with the JSON path of the offending field.
+     *
+     * @return the violations, empty if the input is valid
+     */
+    public List<SchemaViolation> violations(ToolCatalog catalog, String tool, JsonNode input) {
+        return validate(catalog, tool, input).stream().map(SchemaViolation::from).toList();
+    }
+}
@@ -0,0 +1,20 @@
+package com.example.mcpclient;
+
+import com.networknt.schema.ValidationMessage;
+
+/**
+ * A JSON schema violation in a tool input: the JSON path of the offending field, the schema
+ * keyword that failed (e.g. {@code required}, {@code type}) and a readable message.
+ */
+public record SchemaViolation(String path, String keyword, String message) {
+
+    static SchemaViolation from(ValidationMessage message) {
+        String path = message.getPath();
+        // For a missing property the validator reports the parent object; point at the property itself
+        String[] arguments = message.getArguments();
+        if ("required".equals(message.getType()) && arguments != null && arguments.length > 0) {
+            path = path + "." + arguments[0];
+        }
+        return new SchemaViolation(path, message.getType(), message.getMessage());
+    }
+}
@@ -0,0 +1,124 @@
+package com.example.mcpclient;
+
+import dev.langchain4j.data.message.AiMessage;
+import dev.langchain4j.data.message.ChatMessage;
+import dev.langchain4j.data.message.UserMessage;
+import dev.langchain4j.exception.HttpException;
+import dev.langchain4j.model.Tokenizer;
+import dev.langchain4j.model.chat.ChatLanguageModel;
+import dev.langchain4j.model.chat.request.ChatRequest;
+import dev.langchain4j.model.chat.request.ResponseFormat;
+import dev.langchain4j.model.chat.response.ChatResponse;
+import dev.langchain4j.model.output.FinishReason;
+import dev.langchain4j.model.output.Response;
+import dev.langchain4j.model.output.TokenUsage;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Chat model that stands in for an LLM deployment offline, for load tests and capacity
+ * planning without Azure. Answers come from {@link SimulatedResponses}; the model adds the
+ * behaviour of a deployment under load:
+ * <ul>
+ *   <li>latency: a time to first token drawn from a log-normal distribution with the configured
+ *   median and p99, plus a fixed time per output token;</li>
+ *   <li>failures: a share of calls is throttled at once with HTTP 429, and another share fails
+ *   with HTTP 500 after the time to first token;</li>
+ *   <li>token usage: counted with the real tokenizer, so admission control and the token
+ *   metrics see realistic numbers.</li>
+ * </ul>
+ * All randomness comes from one seeded generator, so a sequential run replays exactly.
+ */
+public class SimulatedChatModel implements ChatLanguageModel {
+
+    /**
+     * How the simulated deployment behaves.
+     */
+    public record Behaviour(Duration medianLatency, Duration p99Latency, Duration perOutputToken,
+                            double errorRate, double throttleRate, long seed) {
+    }
+
+    // Standard normal quantile of the 99th percentile
+    private static final double Z_99 = 2.3263;
+
+    private final SimulatedResponses responses;
+    private final Tokenizer tokenizer;
+    private final Behaviour behaviour;
+    private final double sigma;
+    private final Random random;
+
+    public SimulatedChatModel(SimulatedResponses responses, Tokenizer tokenizer, Behaviour behaviour) {
+        this.responses = responses;
+        this.tokenizer = tokenizer;
+        this.behaviour = behaviour;
+        long median = behaviour.medianLatency().toNanos();
+        long p99 = behaviour.p99Latency().toNanos();
+        this.sigma = median > 0 && p99 > median ? Math.log((double) p99 / median) / Z_99 : 0;
+        this.random = new Random(behaviour.seed());
+    }
+
+    @Override
+    public ChatResponse chat(ChatRequest request) {
+        List<ChatMessage> messages = request.messages();
+        String prompt = messages.get(messages.size() - 1) instanceof UserMessage user && user.hasSingleText()
+                ? user.singleText() : "";
+        ResponseFormat format = request.parameters().responseFormat();
+        boolean structured = format != null && format.jsonSchema() != null;
+
+        // Draw everything for the call at once, so concurrent calls do not interleave draws
+        double outcome;
+        double gaussian;
+        synchronized (random) {
+            outcome = random.nextDouble();
+            gaussian = random.nextGaussian();
+        }
+        long firstToken = (long) (behaviour.medianLatency().toNanos() * Math.exp(sigma * gaussian));
+
+        if (outcome < behaviour.throttleRate()) {
+            throw new HttpException(429, "Too Many Requests (simulated)");
+        }
+        if (outcome < behaviour.throttleRate() + behaviour.errorRate()) {
+            sleep(firstToken);
+            throw new HttpException(500, "Internal Server Error (simulated)");
+        }
+
+        String answer = responses.answer(prompt, structured);
+        int inputTokens = tokenizer.estimateTokenCountInMessages(messages);
+        int outputTokens = tokenizer.estimateTokenCountInText(answer);
+        sleep(firstToken + outputTokens * behaviour.perOutputToken().toNanos());
+
+        return ChatResponse.builder()
+                .aiMessage(AiMessage.from(answer))
+                .tokenUsage(new TokenUsage(inputTokens, outputTokens))
+                .finishReason(FinishReason.STOP)
+                .build();
+    }
+
+    /**
+     * Required by {@link ChatLanguageModel} in this langchain4j version; the client only calls
+     * {@link #chat(ChatRequest)}.
+     */
+    @Override
+    @Deprecated
+    @SuppressWarnings("removal")
+    public Response<AiMessage> generate(List<ChatMessage> messages) {
+        ChatResponse response = chat(messages);
+        return Response.from(response.aiMessage(), response.tokenUsage(), response.finishReason());
+    }
+
+    private static void sleep(long nanos) {
+        if (nanos <= 0) {
+            return;
+        }
+        try {
+            TimeUnit.NANOSECONDS.sleep(nanos);
+        } catch (InterruptedException e) {
+            // Hedged calls are cancelled by interrupting them
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while simulating the LLM", e);
+        }
+    }
+}
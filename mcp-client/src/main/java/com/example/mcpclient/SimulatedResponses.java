@@ -0,0 +1,459 @@
+package com.example.mcpclient;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import java.io.IOException;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+/**
+ * Answers the client's prompts the way a well-behaved model would, by rule instead of by
+ * inference, for the {@link SimulatedChatModel}.
+ * <p>
+ * The kind of prompt is recognised from the text of {@link AiService}'s templates. Tool
+ * selection picks the tool whose name, title and description share the most words with the
+ * request. Transformations build an instance of the schema in the prompt, taking each property
+ * from the user data field of the same name (or ending in it, so {@code partyName} fills
+ * {@code name}) and falling back to values that satisfy the property's enum, pattern or bounds.
+ * A canned response configured for a kind is returned as is instead.
+ */
+public class SimulatedResponses {
+
+    public enum Kind { SELECT_TOOL, TRANSFORM_QUERY, TRANSFORM_BATCH, REPAIR_FIELDS, REPAIR_JSON, OTHER }
+
+    private static final Pattern TOOL_LINE = Pattern.compile("Tool Name: (.+?), Title: (.*?), Description: (.*)");
+    private static final Pattern WORD = Pattern.compile("[^A-Za-z0-9]+|(?<=[a-z])(?=[A-Z])");
+
+    private final ObjectMapper objectMapper;
+    private final Map<Kind, String> canned;
+
+    /**
+     * @param canned fixed responses by prompt kind, used instead of the generated ones
+     */
+    public SimulatedResponses(ObjectMapper objectMapper, Map<Kind, String> canned) {
+        this.objectMapper = objectMapper;
+        this.canned = Map.copyOf(canned);
+    }
+
+    public static Kind kind(String prompt) {
+        if (prompt.contains("== Available Tools ==")) {
+            return Kind.SELECT_TOOL;
+        }
+        if (prompt.contains("user data records, as a JSON array:")) {
+            return Kind.TRANSFORM_BATCH;
+        }
+        if (prompt.contains("Here is the JSON schema you must adhere to:")) {
+            return Kind.TRANSFORM_QUERY;
+        }
+        if (prompt.contains("JSON schema of each field, keyed by JSON path:")) {
+            return Kind.REPAIR_FIELDS;
+        }
+        if (prompt.contains("was meant to be a single JSON object")) {
+            return Kind.REPAIR_JSON;
+        }
+        return Kind.OTHER;
+    }
+
+    /**
+     * Answers a prompt.
+     *
+     * @param structured whether the request asked for a JSON object response (structured tool selection)
+     */
+    public String answer(String prompt, boolean structured) {
+        Kind kind = kind(prompt);
+        String fixed = canned.get(kind);
+        if (fixed != null) {
+            return fixed;
+        }
+        try {
+            return switch (kind) {
+                case SELECT_TOOL -> selectTool(prompt, structured);
+                case TRANSFORM_QUERY -> instance(json(prompt, "Here is the JSON schema you must adhere to:"),
+                        json(prompt, "Here is the user data:")).toString();
+                case TRANSFORM_BATCH -> transformBatch(prompt);
+                case REPAIR_FIELDS -> repairFields(prompt);
+                case REPAIR_JSON -> repairJson(prompt);
+                case OTHER -> "OK";
+            };
+        } catch (IOException e) {
+            // A model answers even when it cannot make sense of the prompt
+            return "I could not process this request.";
+        }
+    }
+
+    private String selectTool(String prompt, boolean structured) {
+        int tools = prompt.indexOf("== Available Tools ==");
+        int request = prompt.indexOf("== User Request ==");
+        Set<String> requestWords = words(prompt.substring(Math.max(request, 0), tools));
+
+        String selected = null;
+        String title = null;
+        int bestScore = -1;
+        Iterator<String> lines = prompt.substring(tools).lines().iterator();
+        while (lines.hasNext()) {
+            Matcher tool = TOOL_LINE.matcher(lines.next());
+            if (!tool.matches()) {
+                continue;
+            }
+            Set<String> toolWords = words(tool.group(1) + " " + tool.group(2) + " " + tool.group(3));
+            toolWords.retainAll(requestWords);
+            if (toolWords.size() > bestScore) {
+                bestScore = toolWords.size();
+                selected = tool.group(1);
+                title = tool.group(2);
+            }
+        }
+        if (selected == null) {
+            return "No tool matches the request.";
+        }
+
+        String reasoning = "The request matches the " + title + " tool.";
+        if (structured) {
+            return objectMapper.createObjectNode().put("reasoning", reasoning).put("tool", selected).toString();
+        }
+        return "------\n" + reasoning + "\n------\nFinal Answer: " + selected;
+    }
+
+    private String transformBatch(String prompt) throws IOException {
+        JsonNode records = json(prompt, "user data records, as a JSON array:");
+        JsonNode schema = json(prompt, "Here is the JSON schema each record must adhere to:");
+        ArrayNode results = objectMapper.createArrayNode();
+        records.forEach(record -> results.add(instance(schema, record)));
+        return results.toString();
+    }
+
+    private String repairFields(String prompt) throws IOException {
+        JsonNode fields = json(prompt, "(missing fields are null):");
+        JsonNode fieldSchemas = json(prompt, "JSON schema of each field, keyed by JSON path:");
+        JsonNode source = prompt.contains("Take the values of missing fields from this user data:")
+                ? json(prompt, "Take the values of missing fields from this user data:") : null;
+
+        ObjectNode repaired = objectMapper.createObjectNode();
+        fieldSchemas.fields().forEachRemaining(field -> {
+            String path = field.getKey();
+            String name = path.substring(Math.max(path.lastIndexOf('/'), path.lastIndexOf('.')) + 1);
+            JsonNode value = fields.get(path);
+            if ((value == null || value.isNull()) && source != null) {
+                value = find(source, name);
+            }
+            repaired.set(path, generate(field.getValue(), field.getValue(), value, source));
+        });
+        return repaired.toString();
+    }
+
+    private static String repairJson(String prompt) {
+        int start = prompt.indexOf('{', prompt.indexOf("was meant to be a single JSON object"));
+        int end = prompt.lastIndexOf("Fix only the JSON syntax.");
+        String malformed = start < 0 || end < start ? "" : prompt.substring(start, end).trim();
+        int close = malformed.lastIndexOf('}');
+        return close < 0 ? "{}" : malformed.substring(0, close + 1);
+    }
+
+    /**
+     * Reads the first JSON value after {@code marker}.
+     */
+    private JsonNode json(String prompt, String marker) throws IOException {
+        int at = prompt.indexOf(marker);
+        if (at < 0) {
+            throw new IOException("No '" + marker + "' in prompt");
+        }
+        try (JsonParser parser = objectMapper.createParser(prompt.substring(at + marker.length()))) {
+            JsonNode value = parser.readValueAsTree();
+            if (value == null) {
+                throw new IOException("No JSON after '" + marker + "'");
+            }
+            return value;
+        }
+    }
+
+    /**
+     * Builds an instance of {@code schema} from {@code data}.
+     */
+    private JsonNode instance(JsonNode schema, JsonNode data) {
+        return generate(schema, schema, data, data);
+    }
+
+    /**
+     * Generates a value for {@code schema}: {@code source} is the matching user value (or
+     * missing), {@code scope} the part of the user data nested properties are looked up in.
+     */
+    private JsonNode generate(JsonNode root, JsonNode schema, JsonNode source, JsonNode scope) {
+        schema = resolve(root, schema);
+        if (schema.has("const")) {
+            return schema.get("const");
+        }
+        if (schema.has("enum")) {
+            for (JsonNode option : schema.get("enum")) {
+                if (option.equals(source)) {
+                    return option;
+                }
+            }
+            return schema.get("enum").get(0);
+        }
+
+        JsonNodeFactory nodes = objectMapper.getNodeFactory();
+        switch (type(schema)) {
+            case "object" -> {
+                JsonNode nested = source != null && source.isObject() ? source : scope;
+                Set<String> required = new HashSet<>();
+                schema.path("required").forEach(name -> required.add(name.asText()));
+                ObjectNode object = nodes.objectNode();
+                schema.path("properties").fields().forEachRemaining(property -> {
+                    JsonNode value = find(nested, property.getKey());
+                    if (value != null || required.contains(property.getKey())) {
+                        object.set(property.getKey(), generate(root, property.getValue(), value,
+                                value != null && value.isContainerNode() ? value : nested));
+                    }
+                });
+                return object;
+            }
+            case "array" -> {
+                JsonNode items = schema.path("items");
+                ArrayNode array = nodes.arrayNode();
+                String itemType = type(resolve(root, items));
+                if (source != null && source.isTextual() && itemType.equals("integer")) {
+                    // Dates written as ISO strings are asked for as [YYYY, MM, DD]
+                    LocalDate date = date(source.asText());
+                    if (date != null) {
+                        return array.add(date.getYear()).add(date.getMonthValue()).add(date.getDayOfMonth());
+                    }
+                }
+                JsonNode elements = source != null && source.isArray() ? source
+                        : itemType.equals("object") ? firstArrayOfObjects(scope) : null;
+                if (elements != null && !elements.isEmpty()) {
+                    elements.forEach(element -> array.add(generate(root, items, element,
+                            element.isContainerNode() ? element : scope)));
+                    return array;
+                }
+                int count = Math.max(1, schema.path("minItems").asInt(1));
+                for (int i = 0; i < count; i++) {
+                    array.add(generate(root, items, null, scope));
+                }
+                return array;
+            }
+            case "integer" -> {
+                if (source != null && (source.canConvertToLong() || source.isTextual() && source.asText().matches("-?\\d+"))) {
+                    return nodes.numberNode(source.asLong());
+                }
+                return nodes.numberNode(schema.path("minimum").asLong(0));
+            }
+            case "number" -> {
+                if (source != null && source.isNumber()) {
+                    return source;
+                }
+                return nodes.numberNode(schema.path("minimum").asDouble(0));
+            }
+            case "boolean" -> {
+                return nodes.booleanNode(source != null && source.asBoolean());
+            }
+            default -> {
+                String pattern = schema.path("pattern").asText(null);
+                if (source != null && source.isValueNode() && !source.isNull()
+                        && (pattern == null || Pattern.compile(pattern).matcher(source.asText()).find())) {
+                    return nodes.textNode(source.asText());
+                }
+                if (pattern != null) {
+                    return nodes.textNode(example(pattern));
+                }
+                String format = schema.path("format").asText("");
+                return nodes.textNode(switch (format) {
+                    case "date" -> "2025-01-01";
+                    case "date-time" -> "2025-01-01T00:00:00Z";
+                    case "email" -> "simulated@example.com";
+                    default -> "simulated";
+                });
+            }
+        }
+    }
+
+    private static JsonNode resolve(JsonNode root, JsonNode schema) {
+        for (int depth = 0; depth < 32; depth++) {
+            if (schema.has("$ref") && schema.get("$ref").asText().startsWith("#")) {
+                schema = root.at(schema.get("$ref").asText().substring(1));
+            } else if (schema.has("allOf") || schema.has("anyOf") || schema.has("oneOf")) {
+                JsonNode options = schema.has("allOf") ? schema.get("allOf")
+                        : schema.has("anyOf") ? schema.get("anyOf") : schema.get("oneOf");
+                schema = options.path(0);
+            } else {
+                break;
+            }
+        }
+        return schema;
+    }
+
+    private static String type(JsonNode schema) {
+        JsonNode type = schema.path("type");
+        if (type.isArray()) {
+            for (JsonNode option : type) {
+                if (!option.asText().equals("null")) {
+                    return option.asText();
+                }
+            }
+        }
+        if (type.isTextual()) {
+            return type.asText();
+        }
+        return schema.has("properties") ? "object" : schema.has("items") ? "array" : "string";
+    }
+
+    /**
+     * Finds the user data field for a property: the first field with the same name in a
+     * breadth-first walk, or failing that the first whose name ends in it.
+     */
+    private static JsonNode find(JsonNode data, String property) {
+        if (data == null || !data.isContainerNode()) {
+            return null;
+        }
+        String lower = property.toLowerCase(Locale.ROOT);
+        JsonNode suffixMatch = null;
+        ArrayDeque<JsonNode> queue = new ArrayDeque<>();
+        queue.add(data);
+        while (!queue.isEmpty()) {
+            JsonNode node = queue.poll();
+            if (node.isObject()) {
+                Iterator<Map.Entry<String, JsonNode>> fields = node.fields();
+                while (fields.hasNext()) {
+                    Map.Entry<String, JsonNode> field = fields.next();
+                    String name = field.getKey().toLowerCase(Locale.ROOT);
+                    if (name.equals(lower)) {
+                        return field.getValue();
+                    }
+                    if (suffixMatch == null && name.endsWith(lower)) {
+                        suffixMatch = field.getValue();
+                    }
+                    if (field.getValue().isObject()) {
+                        queue.add(field.getValue());
+                    }
+                }
+            }
+        }
+        return suffixMatch;
+    }
+
+    private static JsonNode firstArrayOfObjects(JsonNode data) {
+        if (data == null || !data.isContainerNode()) {
+            return null;
+        }
+        for (JsonNode child : data) {
+            if (child.isArray() && !child.isEmpty() && child.get(0).isObject()) {
+                return child;
+            }
+        }
+        for (JsonNode child : data) {
+            JsonNode found = child.isObject() ? firstArrayOfObjects(child) : null;
+            if (found != null) {
+                return found;
+            }
+        }
+        return null;
+    }
+
+    private static LocalDate date(String text) {
+        try {
+            return LocalDate.parse(text.length() >= 10 ? text.substring(0, 10) : text);
+        } catch (DateTimeParseException e) {
+            return null;
+        }
+    }
+
+    private static Set<String> words(String text) {
+        return Arrays.stream(WORD.split(text))
+                .filter(word -> word.length() >= 4)
+                .map(word -> word.toLowerCase(Locale.ROOT))
+                .collect(Collectors.toCollection(HashSet::new));
+    }
+
+    /**
+     * Builds a short string matching a simple regular expression: literals, escapes, character
+     * classes, groups with alternatives and quantifiers. Anchors are dropped.
+     */
+    static String example(String regex) {
+        StringBuilder out = new StringBuilder();
+        int i = 0;
+        while (i < regex.length()) {
+            char c = regex.charAt(i);
+            String atom;
+            int next;
+            if (c == '^' || c == '$') {
+                i++;
+                continue;
+            } else if (c == '\\' && i + 1 < regex.length()) {
+                atom = switch (regex.charAt(i + 1)) {
+                    case 'd' -> "1";
+                    case 'w' -> "a";
+                    case 's' -> " ";
+                    default -> String.valueOf(regex.charAt(i + 1));
+                };
+                next = i + 2;
+            } else if (c == '[') {
+                int end = i + 1;
+                while (end < regex.length() && (regex.charAt(end) != ']' || end == i + 1)) {
+                    end += regex.charAt(end) == '\\' ? 2 : 1;
+                }
+                String members = regex.substring(i + 1, Math.min(end, regex.length()));
+                atom = members.startsWith("^") ? "x" : members.startsWith("\\d") ? "1"
+                        : members.isEmpty() ? "" : members.substring(0, 1);
+                next = end + 1;
+            } else if (c == '(') {
+                int depth = 0;
+                int end = i;
+                int alternative = -1;
+                for (; end < regex.length(); end++) {
+                    char g = regex.charAt(end);
+                    if (g == '\\') {
+                        end++;
+                    } else if (g == '(') {
+                        depth++;
+                    } else if (g == ')' && --depth == 0) {
+                        break;
+                    } else if (g == '|' && depth == 1 && alternative < 0) {
+                        alternative = end;
+                    }
+                }
+                String group = regex.substring(i + 1, alternative < 0 ? Math.min(end, regex.length()) : alternative);
+                atom = example(group.startsWith("?:") ? group.substring(2) : group);
+                next = end + 1;
+            } else {
+                atom = c == '.' ? "a" : String.valueOf(c);
+                next = i + 1;
+            }
+
+            int count = 1;
+            if (next < regex.length()) {
+                char quantifier = regex.charAt(next);
+                if (quantifier == '{') {
+                    int end = regex.indexOf('}', next);
+                    String bounds = regex.substring(next + 1, end);
+                    count = Integer.parseInt(bounds.split(",")[0].trim());
+                    next = end + 1;
+                } else if (quantifier == '*' || quantifier == '?') {
+                    count = 0;
+                    next++;
+                } else if (quantifier == '+') {
+                    next++;
+                }
+                if (next < regex.length() && regex.charAt(next) == '?') {
+                    next++;
+                }
+            }
+            out.append(atom.repeat(count));
+            i = next;
+        }
+        return out.toString();
+    }
+}
@@ -0,0 +1,203 @@
+package com.example.mcpclient;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.async.ByteArrayFeeder;
+import com.fasterxml.jackson.databind.JsonNode;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+
+/**
+ * Checks a JSON object while the model is still generating it.
+ * <p>
+ * Chunks are fed to Jackson's non-blocking parser as they arrive, so a syntax error is noticed
+ * at the offending token rather than after the whole response. Values are also checked against
+ * the {@code type} and {@code additionalProperties} keywords of the schema on the way, giving
+ * early schema violations. Text before the first '{' and after the root object (e.g. markdown
+ * fences) is ignored. Not thread-safe; chunks must be fed in order.
+ */
+final class StreamingJsonChecker {
+
+    private static final JsonFactory JSON_FACTORY = new JsonFactory();
+
+    private static final class Frame {
+        final JsonNode schema;
+        final String path;
+        final boolean array;
+        int nextIndex;
+        String field;
+
+        Frame(JsonNode schema, String path, boolean array) {
+            this.schema = schema;
+            this.path = path;
+            this.array = array;
+        }
+    }
+
+    private final JsonNode schema;
+    private final JsonParser parser;
+    private final ByteArrayFeeder feeder;
+    private final Deque<Frame> frames = new ArrayDeque<>();
+    private final List<SchemaViolation> violations = new ArrayList<>();
+
+    private boolean started;
+    private boolean complete;
+    private String syntaxError;
+
+    StreamingJsonChecker(JsonNode schema) {
+        this.schema = schema;
+        try {
+            this.parser = JSON_FACTORY.createNonBlockingByteArrayParser();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        this.feeder = (ByteArrayFeeder) parser.getNonBlockingInputFeeder();
+    }
+
+    /**
+     * Feeds the next chunk of the response.
+     *
+     * @return false once the response can no longer become a valid JSON object
+     */
+    boolean feed(String chunk) {
+        if (syntaxError != null || complete) {
+            return syntaxError == null;
+        }
+        if (!started) {
+            int start = chunk.indexOf('{');
+            if (start < 0) {
+                return true;
+            }
+            chunk = chunk.substring(start);
+            started = true;
+        }
+
+        byte[] bytes = chunk.getBytes(StandardCharsets.UTF_8);
+        try {
+            feeder.feedInput(bytes, 0, bytes.length);
+            JsonToken token;
+            while (!complete && (token = parser.nextToken()) != null && token != JsonToken.NOT_AVAILABLE) {
+                handle(token);
+            }
+        } catch (IOException e) {
+            syntaxError = e.getMessage();
+        }
+        return syntaxError == null;
+    }
+
+    /**
+     * Whether a complete root object has been parsed.
+     */
+    boolean complete() {
+        return complete;
+    }
+
+    String syntaxError() {
+        return syntaxError;
+    }
+
+    /**
+     * Schema violations seen so far. Only type and unknown-property checks are done while
+     * streaming; full validation still runs on the completed object.
+     */
+    List<SchemaViolation> violations() {
+        return violations;
+    }
+
+    private void handle(JsonToken token) {
+        if (token == JsonToken.FIELD_NAME) {
+            Frame object = frames.peek();
+            object.field = currentName();
+            JsonNode properties = object.schema == null ? null : object.schema.get("properties");
+            if (properties != null && !properties.has(object.field)
+                    && object.schema.path("additionalProperties").isBoolean()
+                    && !object.schema.get("additionalProperties").asBoolean()) {
+                violations.add(new SchemaViolation(object.path + "." + object.field, "additionalProperties",
+                        object.path + "." + object.field + ": is not defined in the schema"));
+            }
+            return;
+        }
+        if (token == JsonToken.END_OBJECT || token == JsonToken.END_ARRAY) {
+            frames.pop();
+            complete = frames.isEmpty();
+            return;
+        }
+
+        // A value: work out where it sits and which part of the schema describes it
+        Frame parent = frames.peek();
+        JsonNode valueSchema;
+        String path;
+        if (parent == null) {
+            valueSchema = schema;
+            path = "$";
+        } else if (parent.array) {
+            valueSchema = parent.schema == null ? null : parent.schema.get("items");
+            path = parent.path + "[" + parent.nextIndex++ + "]";
+        } else {
+            valueSchema = parent.schema == null ? null : parent.schema.path("properties").get(parent.field);
+            path = parent.path + "." + parent.field;
+        }
+        checkType(valueSchema, token, path);
+
+        if (token == JsonToken.START_OBJECT || token == JsonToken.START_ARRAY) {
+            frames.push(new Frame(valueSchema, path, token == JsonToken.START_ARRAY));
+        }
+    }
+
+    private void checkType(JsonNode valueSchema, JsonToken token, String path) {
+        JsonNode type = valueSchema == null ? null : valueSchema.get("type");
+        if (type == null) {
+            return;
+        }
+        String actual = jsonType(token);
+        if (type.isArray()) {
+            for (JsonNode allowed : type) {
+                if (typeMatches(allowed.asText(), actual)) {
+                    return;
+                }
+            }
+        } else if (typeMatches(type.asText(), actual)) {
+            return;
+        }
+        violations.add(new SchemaViolation(path, "type", path + ": " + actual + " found, " + type + " expected"));
+    }
+
+    private static boolean typeMatches(String expected, String actual) {
+        return expected.equals(actual) || (expected.equals("number") && actual.equals("integer"));
+    }
+
+    private static String jsonType(JsonToken token) {
+        switch (token) {
+            case START_OBJECT:
+                return "object";
+            case START_ARRAY:
+                return "array";
+            case VALUE_STRING:
+                return "string";
+            case VALUE_NUMBER_INT:
+                return "integer";
+            case VALUE_NUMBER_FLOAT:
+                return "number";
+            case VALUE_TRUE:
+            case VALUE_FALSE:
+                return "boolean";
+            default:
+                return "null";
+        }
+    }
+
+    private String currentName() {
+        try {
+            return parser.getCurrentName();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,9 @@
+package com.example.mcpclient;
+
+import com.fasterxml.jackson.databind.JsonNode;
+
+/**
+ * A snapshot of the MCP server's tool catalog together with the version (ETag) it was served with.
+ */
+public record ToolCatalog(String version, JsonNode tools) {
+}
@@ -0,0 +1,132 @@
+package com.example.mcpclient;
+
+import com.example.mcpclient.config.CacheConfig;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.github.benmanes.caffeine.cache.CacheLoader;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.LoadingCache;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.RestTemplate;
+
+import java.time.Duration;
+
+/**
+ * Client-side cache of the MCP server's tool catalog.
+ * <p>
+ * The catalog is fetched once and then refreshed in the background after {@code refresh-seconds};
+ * refreshes use a conditional GET with the last seen ETag, so an unchanged catalog costs a 304
+ * without a body. Entries are dropped after {@code ttl-seconds} if no refresh has succeeded.
+ */
+@Component
+public class ToolCatalogCache {
+
+    public static final String CACHE_NAME = "toolCatalog";
+
+    private static final Logger log = LoggerFactory.getLogger(ToolCatalogCache.class);
+    private static final String CATALOG_KEY = "tools";
+
+    private final RestTemplate restTemplate;
+    private final CaffeineCacheManager cacheManager;
+
+    @Value("${mcp.server.url}")
+    private String mcpServerUrl;
+
+    @Value("${mcp.tools.cache.ttl-seconds:600}")
+    private long ttlSeconds;
+
+    @Value("${mcp.tools.cache.refresh-seconds:60}")
+    private long refreshSeconds;
+
+    private LoadingCache<String, ToolCatalog> cache;
+
+    @Autowired
+    public ToolCatalogCache(RestTemplate restTemplate, CaffeineCacheManager cacheManager) {
+        this.restTemplate = restTemplate;
+        this.cacheManager = cacheManager;
+    }
+
+    @PostConstruct
+    void init() {
+        cache = Caffeine.newBuilder()
+                .maximumSize(1)
+                .expireAfterWrite(Duration.ofSeconds(ttlSeconds))
+                .refreshAfterWrite(Duration.ofSeconds(refreshSeconds))
+                .recordStats()
+                .build(new CatalogLoader());
+        CacheConfig.register(cacheManager, CACHE_NAME, cache);
+    }
+
+    /**
+     * Returns the current tool catalog, loading it from the MCP server if nothing is cached yet.
+     *
+     * @return the catalog, or null if it could not be retrieved
+     */
+    public ToolCatalog get() {
+        try {
+            return cache.get(CATALOG_KEY);
+        } catch (Exception e) {
+            log.error("Exception while getting tools", e);
+            return null;
+        }
+    }
+
+    /**
+     * Drops the cached catalog so that the next call to {@link #get()} fetches it again.
+     */
+    public void invalidate() {
+        cache.invalidate(CATALOG_KEY);
+    }
+
+    /**
+     * Fetches the catalog from the MCP server, sending the previous version as If-None-Match.
+     * Returns the previous catalog unchanged when the server answers 304 Not Modified.
+     */
+    private ToolCatalog fetch(ToolCatalog previous) {
+        String url = mcpServerUrl + "/mcp/tools";
+        log.debug("Requesting tools from: {}", url);
+
+        HttpHeaders headers = new HttpHeaders();
+        if (previous != null && previous.version() != null) {
+            headers.setIfNoneMatch(previous.version());
+        }
+
+        ResponseEntity<JsonNode> response = restTemplate.exchange(
+                url, HttpMethod.GET, new HttpEntity<>(headers), JsonNode.class);
+
+        if (response.getStatusCode().isSameCodeAs(HttpStatus.NOT_MODIFIED) && previous != null) {
+            log.debug("Tool catalog unchanged (version {})", previous.version());
+            return previous;
+        }
+        if (!response.getStatusCode().is2xxSuccessful() || response.getBody() == null) {
+            throw new IllegalStateException("Error getting tools: " + response.getStatusCode());
+        }
+
+        String version = response.getHeaders().getETag();
+        log.info("Loaded tool catalog version {}", version);
+        return new ToolCatalog(version, response.getBody());
+    }
+
+    private class CatalogLoader implements CacheLoader<String, ToolCatalog> {
+
+        @Override
+        public ToolCatalog load(String key) {
+            return fetch(null);
+        }
+
+        @Override
+        public ToolCatalog reload(String key, ToolCatalog oldValue) {
+            return fetch(oldValue);
+        }
+    }
+}
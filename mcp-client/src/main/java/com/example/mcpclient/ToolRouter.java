@@ -0,0 +1,205 @@
+package com.example.mcpclient;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+/**
+ * Deterministic tool router that decides most requests without asking the LLM.
+ * <p>
+ * Rules from {@code mcp.routing.rules} are checked first, in order: a rule {@code path:tool}
+ * routes every request that has a field at {@code path} (e.g. {@code submission}) to the tool.
+ * Requests no rule matches are compared with each tool by cosine similarity of hashed
+ * bag-of-words vectors: a tool's vector covers its title, description and schema property
+ * names and is computed once per catalog version, a request's vector covers its field names.
+ * The best tool is only taken if it scores at least {@code min-score} and leads the runner-up
+ * by {@code min-margin}; otherwise the caller falls back to the LLM.
+ */
+@Component
+public class ToolRouter {
+
+    private static final Logger log = LoggerFactory.getLogger(ToolRouter.class);
+
+    private static final int DIMENSIONS = 1024;
+
+    // Splits identifiers and text into words, including camelCase boundaries
+    private static final Pattern WORD_BOUNDARY = Pattern.compile("[^A-Za-z0-9]+|(?<=[a-z0-9])(?=[A-Z])");
+
+    private static final Set<String> STOP_WORDS = Set.of(
+            "a", "an", "and", "as", "be", "by", "for", "in", "is", "it", "of", "on", "or", "the", "to", "with",
+            "value", "description");
+
+    /**
+     * A routing decision and what made it: {@code rule} or {@code similarity}.
+     */
+    public record Route(String tool, String source, String detail) {
+    }
+
+    private record Rule(List<String> path, String tool) {
+    }
+
+    private record ToolVectors(String version, Map<String, float[]> vectors) {
+    }
+
+    private final List<Rule> rules = new ArrayList<>();
+    private volatile ToolVectors toolVectors;
+
+    @Value("${mcp.routing.enabled:true}")
+    private boolean enabled;
+
+    @Value("${mcp.routing.similarity.min-score:0.3}")
+    private double minScore;
+
+    @Value("${mcp.routing.similarity.min-margin:0.1}")
+    private double minMargin;
+
+    @Autowired
+    public ToolRouter(@Value("${mcp.routing.rules:}") List<String> rules) {
+        for (String rule : rules) {
+            int separator = rule.lastIndexOf(':');
+            if (separator <= 0 || separator == rule.length() - 1) {
+                throw new IllegalArgumentException("Invalid routing rule '" + rule + "', expected path:tool");
+            }
+            this.rules.add(new Rule(List.of(rule.substring(0, separator).trim().split("\\.")),
+                    rule.substring(separator + 1).trim()));
+        }
+        log.info("Loaded {} tool routing rule(s)", this.rules.size());
+    }
+
+    /**
+     * Routes a request to a tool of the catalog.
+     *
+     * @return the route, or null if the request needs the LLM to decide
+     */
+    public Route route(Map<String, Object> userRequest, ToolCatalog catalog) {
+        if (!enabled) {
+            return null;
+        }
+        JsonNode tools = catalog.tools();
+        for (Rule rule : rules) {
+            if (tools.has(rule.tool()) && hasPath(userRequest, rule.path())) {
+                return new Route(rule.tool(), "rule", String.join(".", rule.path()));
+            }
+        }
+        return routeBySimilarity(userRequest, catalog);
+    }
+
+    private Route routeBySimilarity(Map<String, Object> userRequest, ToolCatalog catalog) {
+        float[] request = new float[DIMENSIONS];
+        RequestShape.paths(userRequest).forEach(path -> addWords(request, path, 1f));
+        if (!normalize(request)) {
+            return null;
+        }
+
+        String best = null;
+        double bestScore = 0;
+        double secondScore = 0;
+        for (Map.Entry<String, float[]> tool : vectors(catalog).entrySet()) {
+            double score = dot(request, tool.getValue());
+            if (score > bestScore) {
+                secondScore = bestScore;
+                bestScore = score;
+                best = tool.getKey();
+            } else if (score > secondScore) {
+                secondScore = score;
+            }
+        }
+
+        String detail = String.format(Locale.ROOT, "score %.2f, runner-up %.2f", bestScore, secondScore);
+        if (best == null || bestScore < minScore || bestScore - secondScore < minMargin) {
+            log.debug("No confident similarity route (best {}: {})", best, detail);
+            return null;
+        }
+        return new Route(best, "similarity", detail);
+    }
+
+    /**
+     * Returns the tool vectors for the catalog, computing them when the catalog version changes.
+     */
+    private Map<String, float[]> vectors(ToolCatalog catalog) {
+        ToolVectors current = toolVectors;
+        if (current != null && current.version() != null && current.version().equals(catalog.version())) {
+            return current.vectors();
+        }
+
+        Map<String, float[]> vectors = new LinkedHashMap<>();
+        for (Iterator<Map.Entry<String, JsonNode>> it = catalog.tools().fields(); it.hasNext(); ) {
+            Map.Entry<String, JsonNode> tool = it.next();
+            float[] vector = new float[DIMENSIONS];
+            addWords(vector, tool.getKey(), 1f);
+            addWords(vector, tool.getValue().path("title").asText(""), 1f);
+            addWords(vector, tool.getValue().path("description").asText(""), 1f);
+            addPropertyNames(vector, tool.getValue().path("schema"));
+            if (normalize(vector)) {
+                vectors.put(tool.getKey(), vector);
+            }
+        }
+        toolVectors = new ToolVectors(catalog.version(), vectors);
+        log.debug("Computed routing vectors for tools {} (catalog version {})", vectors.keySet(), catalog.version());
+        return vectors;
+    }
+
+    private static void addPropertyNames(float[] vector, JsonNode schema) {
+        JsonNode properties = schema.path("properties");
+        properties.fields().forEachRemaining(property -> {
+            // Field names are the strongest signal a request carries, so they weigh double
+            addWords(vector, property.getKey(), 2f);
+            addPropertyNames(vector, property.getValue());
+        });
+        JsonNode items = schema.path("items");
+        if (items.isObject()) {
+            addPropertyNames(vector, items);
+        }
+    }
+
+    private static void addWords(float[] vector, String text, float weight) {
+        for (String word : WORD_BOUNDARY.split(text)) {
+            String normalized = word.toLowerCase(Locale.ROOT);
+            if (normalized.length() > 1 && !STOP_WORDS.contains(normalized)) {
+                vector[Math.floorMod(normalized.hashCode(), DIMENSIONS)] += weight;
+            }
+        }
+    }
+
+    private static boolean normalize(float[] vector) {
+        double norm = Math.sqrt(dot(vector, vector));
+        if (norm == 0) {
+            return false;
+        }
+        for (int i = 0; i < vector.length; i++) {
+            vector[i] /= (float) norm;
+        }
+        return true;
+    }
+
+    private static double dot(float[] a, float[] b) {
+        double sum = 0;
+        for (int i = 0; i < a.length; i++) {
+            sum += a[i] * b[i];
+        }
+        return sum;
+    }
+
+    private static boolean hasPath(Object node, List<String> path) {
+        Object current = node;
+        for (String field : path) {
+            if (!(current instanceof Map<?, ?> map) || !map.containsKey(field)) {
+                return false;
+            }
+            current = map.get(field);
+        }
+        return current != null;
+    }
+}
@@ -0,0 +1,108 @@
+package com.example.mcpclient;
+
+import com.example.mcpclient.config.CacheConfig;
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
+
+/**
+ * Caches the tool chosen for a request shape, so that structurally identical requests
+ * skip the LLM tool selection call.
+ * <p>
+ * Keys combine the {@link RequestShape} fingerprint with the tool catalog version, so a
+ * catalog change naturally misses. Eviction is Caffeine's size-bounded W-TinyLFU policy.
+ */
+@Component
+public class ToolSelectionCache {
+
+    public static final String CACHE_NAME = "toolSelection";
+
+    private static final Logger log = LoggerFactory.getLogger(ToolSelectionCache.class);
+
+    private final CaffeineCacheManager cacheManager;
+    private final AdmissionControl admissionControl;
+
+    @Value("${mcp.selection.cache.max-size:10000}")
+    private long maxSize;
+
+    @Value("${mcp.selection.cache.ttl-seconds:86400}")
+    private long ttlSeconds;
+
+    private AsyncCache<String, String> cache;
+
+    @Autowired
+    public ToolSelectionCache(CaffeineCacheManager cacheManager, AdmissionControl admissionControl) {
+        this.cacheManager = cacheManager;
+        this.admissionControl = admissionControl;
+    }
+
+    @PostConstruct
+    void init() {
+        cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(Duration.ofSeconds(ttlSeconds))
+                .recordStats()
+                .buildAsync();
+        CacheConfig.register(cacheManager, CACHE_NAME, cache.synchronous());
+    }
+
+    /**
+     * Returns the cached tool for the request's shape, or runs {@code selector} and caches
+     * its result. Concurrent misses for the same key share one selection; null results
+     * (failed selections) are not cached. A selection whose LLM call was not admitted is not
+     * shared: the callers waiting for it select under their own tickets.
+     * <p>
+     * The selector runs on the calling thread outside the cache's map lock: a selection holds
+     * the thread for a whole LLM call, and blocking inside the lock would pin a virtual thread
+     * to its carrier for that long.
+     */
+    public String get(Map<String, Object> userRequest, ToolCatalog catalog, Supplier<String> selector) {
+        String key = catalog.version() + ":" + RequestShape.fingerprint(userRequest);
+
+        CompletableFuture<String> selection = new CompletableFuture<>();
+        CompletableFuture<String> cached = cache.get(key, (k, executor) -> selection);
+        if (cached == selection) {
+            String selected;
+            try {
+                selected = selector.get();
+            } catch (Throwable e) {
+                // Errors too, or the callers waiting for the selection would wait forever
+                selection.completeExceptionally(e);
+                throw e;
+            }
+            if (selected == null && admissionControl.rejection() != null) {
+                cache.asMap().remove(key, selection);
+                selection.cancel(false);
+                return null;
+            }
+            selection.complete(selected);
+        }
+
+        String selected;
+        try {
+            selected = cached.join();
+        } catch (CancellationException e) {
+            return get(userRequest, catalog, selector);
+        }
+        log.debug("Tool selection for shape {}: {} (hit rate {})",
+                key, selected, String.format("%.2f", stats().hitRate()));
+        return selected;
+    }
+
+    public CacheStats stats() {
+        return cache.synchronous().stats();
+    }
+}
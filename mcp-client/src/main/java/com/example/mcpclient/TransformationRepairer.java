@@ -0,0 +1,253 @@
+package com.example.mcpclient;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Repairs LLM transformations that fail to parse or do not match the tool schema, without
+ * re-sending the whole request.
+ * <p>
+ * Unparsable output is sent back with a syntax-only prompt. Schema violations are fixed by
+ * asking only for the failing fields, with their current values and sub-schemas, and patching
+ * the answers into the existing output. Each transformation gets at most
+ * {@code mcp.repair.max-attempts} field repair prompts.
+ */
+@Component
+public class TransformationRepairer {
+
+    private static final Logger log = LoggerFactory.getLogger(TransformationRepairer.class);
+
+    // Splits "$.a.b[0].c" into "a", "b", "[0]", "c"
+    private static final Pattern PATH_SEGMENT = Pattern.compile("\\.([^.\\[]+)|\\[(\\d+)]");
+
+    /**
+     * Repair counters since startup. The repair rate is {@code succeeded / attempted}.
+     */
+    public record RepairStats(long attempted, long succeeded, long failed, long prompts, long fieldsPatched) {
+    }
+
+    private final AiService aiService;
+    private final SchemaRegistry schemaRegistry;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private final LongAdder attempted = new LongAdder();
+    private final LongAdder succeeded = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+    private final LongAdder prompts = new LongAdder();
+    private final LongAdder fieldsPatched = new LongAdder();
+
+    @Value("${mcp.repair.enabled:true}")
+    private boolean enabled;
+
+    @Value("${mcp.repair.max-attempts:2}")
+    private int maxAttempts;
+
+    @Autowired
+    public TransformationRepairer(AiService aiService, SchemaRegistry schemaRegistry) {
+        this.aiService = aiService;
+        this.schemaRegistry = schemaRegistry;
+    }
+
+    /**
+     * Parses a raw transformation response, asking the model to fix its syntax if it does not parse.
+     *
+     * @return the parsed object, or null if it could not be parsed or repaired
+     */
+    public JsonNode parse(String raw) {
+        JsonNode parsed = aiService.parseJson(raw);
+        if (parsed != null || raw == null || !enabled) {
+            return parsed;
+        }
+
+        attempted.increment();
+        prompts.increment();
+        parsed = aiService.repairJson(raw);
+        record(parsed != null, "syntax");
+        return parsed;
+    }
+
+    /**
+     * Fixes the fields of {@code output} reported in {@code violations}.
+     *
+     * @return a schema-valid copy of the output, or null if it could not be repaired
+     */
+    public JsonNode repair(Map<String, Object> userRequest, ToolCatalog catalog, String tool,
+                           JsonNode output, List<SchemaViolation> violations) {
+        if (!enabled || !output.isObject()) {
+            return null;
+        }
+        attempted.increment();
+
+        JsonNode schema = catalog.tools().get(tool).get("schema");
+        ObjectNode repaired = (ObjectNode) output.deepCopy();
+        List<SchemaViolation> remaining = violations;
+        for (int attempt = 1; attempt <= maxAttempts && !remaining.isEmpty(); attempt++) {
+            if (!repairOnce(userRequest, schema, repaired, remaining)) {
+                break;
+            }
+            remaining = schemaRegistry.violations(catalog, tool, repaired);
+            log.debug("Repair attempt {} for tool '{}' left {} violation(s)", attempt, tool, remaining.size());
+        }
+
+        boolean success = remaining.isEmpty();
+        record(success, "schema");
+        if (!success) {
+            log.warn("Could not repair transformation for tool '{}': {}", tool, remaining);
+        }
+        return success ? repaired : null;
+    }
+
+    public RepairStats stats() {
+        return new RepairStats(attempted.sum(), succeeded.sum(), failed.sum(), prompts.sum(), fieldsPatched.sum());
+    }
+
+    /**
+     * Sends one field repair prompt and patches the answers into {@code output}.
+     *
+     * @return false if no field could be repaired, so further attempts are pointless
+     */
+    private boolean repairOnce(Map<String, Object> userRequest, JsonNode schema, ObjectNode output,
+                               List<SchemaViolation> violations) {
+        Map<String, List<String>> targets = new LinkedHashMap<>();
+        ObjectNode fields = objectMapper.createObjectNode();
+        ObjectNode fieldSchemas = objectMapper.createObjectNode();
+        boolean missingFields = false;
+
+        for (SchemaViolation violation : violations) {
+            List<String> segments = segments(violation.path());
+            if (segments == null || segments.isEmpty() || targets.containsKey(violation.path())) {
+                continue;
+            }
+            targets.put(violation.path(), segments);
+            JsonNode current = resolve(output, segments);
+            fields.set(violation.path(), current == null ? objectMapper.nullNode() : current);
+            JsonNode fieldSchema = subSchema(schema, segments);
+            fieldSchemas.set(violation.path(), fieldSchema == null ? objectMapper.createObjectNode() : fieldSchema);
+            missingFields |= current == null;
+        }
+        if (targets.isEmpty()) {
+            return false;
+        }
+
+        prompts.increment();
+        JsonNode answers = aiService.repairFields(violations, fields, fieldSchemas, missingFields ? userRequest : null);
+        if (answers == null) {
+            return false;
+        }
+
+        int patched = 0;
+        for (Map.Entry<String, List<String>> target : targets.entrySet()) {
+            JsonNode value = answers.get(target.getKey());
+            if (value != null && write(output, target.getValue(), value)) {
+                patched++;
+            }
+        }
+        fieldsPatched.add(patched);
+        return patched > 0;
+    }
+
+    private void record(boolean success, String kind) {
+        (success ? succeeded : failed).increment();
+        RepairStats stats = stats();
+        log.info("{} repair {} (repair rate {}/{})", kind, success ? "succeeded" : "failed",
+                stats.succeeded(), stats.attempted());
+    }
+
+    /**
+     * Parses a validator path like {@code $.a.b[0].c}; returns null for paths it cannot address.
+     */
+    static List<String> segments(String path) {
+        if (path == null || !path.startsWith("$")) {
+            return null;
+        }
+        List<String> segments = new ArrayList<>();
+        Matcher matcher = PATH_SEGMENT.matcher(path);
+        int end = 1;
+        while (matcher.find()) {
+            if (matcher.start() != end) {
+                return null;
+            }
+            segments.add(matcher.group(1) != null ? matcher.group(1) : "[" + matcher.group(2) + "]");
+            end = matcher.end();
+        }
+        return end == path.length() ? segments : null;
+    }
+
+    private static JsonNode resolve(JsonNode node, List<String> segments) {
+        JsonNode current = node;
+        for (String segment : segments) {
+            current = isIndex(segment) ? current.get(index(segment)) : current.get(segment);
+            if (current == null) {
+                return null;
+            }
+        }
+        return current;
+    }
+
+    /**
+     * Follows {@code properties} and {@code items} down the schema to the field at the path.
+     */
+    private static JsonNode subSchema(JsonNode schema, List<String> segments) {
+        JsonNode current = schema;
+        for (String segment : segments) {
+            current = isIndex(segment) ? current.get("items") : current.path("properties").get(segment);
+            if (current == null) {
+                return null;
+            }
+        }
+        return current;
+    }
+
+    /**
+     * Sets the value at the path, creating missing objects along the way. Array elements must
+     * already exist.
+     */
+    static boolean write(ObjectNode root, List<String> segments, JsonNode value) {
+        JsonNode current = root;
+        for (int i = 0; i < segments.size() - 1; i++) {
+            String segment = segments.get(i);
+            JsonNode next = isIndex(segment) ? current.get(index(segment)) : current.get(segment);
+            if (next == null && current instanceof ObjectNode object && !isIndex(segments.get(i + 1))) {
+                next = object.putObject(segment);
+            }
+            if (next == null || !next.isContainerNode()) {
+                return false;
+            }
+            current = next;
+        }
+
+        String last = segments.get(segments.size() - 1);
+        if (current instanceof ObjectNode object && !isIndex(last)) {
+            object.set(last, value);
+            return true;
+        }
+        if (current instanceof ArrayNode array && isIndex(last) && index(last) < array.size()) {
+            array.set(index(last), value);
+            return true;
+        }
+        return false;
+    }
+
+    private static boolean isIndex(String segment) {
+        return segment.startsWith("[");
+    }
+
+    private static int index(String segment) {
+        return Integer.parseInt(segment.substring(1, segment.length() - 1));
+    }
+}
@@ -1,12 +1,30 @@
 package com.example.mcpclient.config;
 
+import com.example.mcpclient.LlmBackend;
+import com.example.mcpclient.ModelPool;
+import com.example.mcpclient.SimulatedChatModel;
+import com.example.mcpclient.SimulatedResponses;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import dev.langchain4j.model.Tokenizer;
 import dev.langchain4j.model.azure.AzureOpenAiChatModel;
+import dev.langchain4j.model.azure.AzureOpenAiStreamingChatModel;
+import dev.langchain4j.model.azure.AzureOpenAiTokenizer;
 import dev.langchain4j.model.chat.ChatLanguageModel;
+import dev.langchain4j.model.chat.StreamingChatLanguageModel;
+import dev.langchain4j.model.ollama.OllamaChatModel;
+import dev.langchain4j.model.openai.OpenAiChatModel;
 import lombok.extern.log4j.Log4j2;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.io.ResourceLoader;
+
+import java.io.IOException;
+import java.io.InputStream;
 import java.time.Duration;
+import java.util.Map;
 
 
 @Configuration
@@ -34,10 +52,115 @@ public class AiConfig {
     @Value("${spring.ai.azure.openai.chat.options.timeout-seconds}")
     private Integer timeoutSeconds;
 
+    @Value("${mcp.llm.pool.breaker.failure-threshold:5}")
+    private int failureThreshold;
+
+    @Value("${mcp.llm.pool.breaker.open-seconds:30}")
+    private long openSeconds;
+
+    /**
+     * The Azure OpenAI deployment, the primary backend of the {@link ModelPool}.
+     */
+    @Bean
+    @ConditionalOnProperty(name = "mcp.llm.backends.azure.enabled", havingValue = "true", matchIfMissing = true)
+    public LlmBackend azureBackend(@Value("${mcp.llm.backends.azure.max-concurrency:32}") int maxConcurrency) {
+
+        ChatLanguageModel chatModel = AzureOpenAiChatModel.builder()
+        .endpoint(endpoint)
+        .apiKey(apiKey)
+        .serviceVersion(version)
+        .deploymentName(model)
+        .maxTokens(maxTokens)
+        .temperature(temperature)
+        .timeout(Duration.ofSeconds(timeoutSeconds))
+        .build();
+        return new LlmBackend("azure", chatModel, false, maxConcurrency, failureThreshold, Duration.ofSeconds(openSeconds));
+    }
+
+    /**
+     * A second primary backend on the OpenAI API, used for hedging and when Azure is throttled.
+     */
+    @Bean
+    @ConditionalOnProperty(name = "mcp.llm.backends.openai.enabled", havingValue = "true")
+    public LlmBackend openAiBackend(@Value("${mcp.llm.backends.openai.base-url:https://api.openai.com/v1}") String baseUrl,
+                                    @Value("${mcp.llm.backends.openai.api-key}") String openAiKey,
+                                    @Value("${mcp.llm.backends.openai.model:gpt-4o}") String openAiModel,
+                                    @Value("${mcp.llm.backends.openai.max-concurrency:16}") int maxConcurrency) {
+
+        ChatLanguageModel chatModel = OpenAiChatModel.builder()
+        .baseUrl(baseUrl)
+        .apiKey(openAiKey)
+        .modelName(openAiModel)
+        .maxTokens(maxTokens)
+        .temperature(temperature)
+        .timeout(Duration.ofSeconds(timeoutSeconds))
+        .build();
+        return new LlmBackend("openai", chatModel, false, maxConcurrency, failureThreshold, Duration.ofSeconds(openSeconds));
+    }
+
+    /**
+     * A local Ollama model, only used when every primary backend has failed. With the other
+     * backends disabled it serves as an offline stand-in.
+     */
+    @Bean
+    @ConditionalOnProperty(name = "mcp.llm.backends.ollama.enabled", havingValue = "true")
+    public LlmBackend ollamaBackend(@Value("${mcp.llm.backends.ollama.base-url:http://localhost:11434}") String baseUrl,
+                                    @Value("${mcp.llm.backends.ollama.model:llama3.1}") String ollamaModel,
+                                    @Value("${mcp.llm.backends.ollama.timeout-seconds:120}") int ollamaTimeoutSeconds,
+                                    @Value("${mcp.llm.backends.ollama.max-concurrency:4}") int maxConcurrency) {
+
+        ChatLanguageModel chatModel = OllamaChatModel.builder()
+        .baseUrl(baseUrl)
+        .modelName(ollamaModel)
+        .temperature(temperature)
+        .timeout(Duration.ofSeconds(ollamaTimeoutSeconds))
+        .build();
+        return new LlmBackend("ollama", chatModel, true, maxConcurrency, failureThreshold, Duration.ofSeconds(openSeconds));
+    }
+
+    /**
+     * A simulated deployment for offline load tests (the {@code simulated} profile): rule-based
+     * answers with configurable latency, failure and throttling rates. Canned responses by
+     * prompt kind can be loaded from {@code mcp.llm.simulated.responses}.
+     */
     @Bean
-    public ChatLanguageModel chatLanguageModel() {
-        
-        return AzureOpenAiChatModel.builder()
+    @ConditionalOnProperty(name = "mcp.llm.backends.simulated.enabled", havingValue = "true")
+    public LlmBackend simulatedBackend(ObjectMapper objectMapper, Tokenizer tokenizer, ResourceLoader resourceLoader,
+                                       @Value("${mcp.llm.simulated.responses:}") String responsesLocation,
+                                       @Value("${mcp.llm.simulated.latency.median-ms:800}") long medianMs,
+                                       @Value("${mcp.llm.simulated.latency.p99-ms:4000}") long p99Ms,
+                                       @Value("${mcp.llm.simulated.latency.per-output-token-ms:15}") long perTokenMs,
+                                       @Value("${mcp.llm.simulated.error-rate:0.0}") double errorRate,
+                                       @Value("${mcp.llm.simulated.throttle-rate:0.0}") double throttleRate,
+                                       @Value("${mcp.llm.simulated.seed:42}") long seed,
+                                       @Value("${mcp.llm.backends.simulated.max-concurrency:32}") int maxConcurrency)
+            throws IOException {
+
+        Map<SimulatedResponses.Kind, String> canned = Map.of();
+        if (!responsesLocation.isEmpty()) {
+            try (InputStream in = resourceLoader.getResource(responsesLocation).getInputStream()) {
+                canned = objectMapper.readValue(in, new TypeReference<>() {});
+            }
+            log.info("Simulated LLM uses canned responses for {}", canned.keySet());
+        }
+
+        SimulatedChatModel chatModel = new SimulatedChatModel(new SimulatedResponses(objectMapper, canned), tokenizer,
+                new SimulatedChatModel.Behaviour(Duration.ofMillis(medianMs), Duration.ofMillis(p99Ms),
+                        Duration.ofMillis(perTokenMs), errorRate, throttleRate, seed));
+        return new LlmBackend("simulated", chatModel, false, maxConcurrency, failureThreshold, Duration.ofSeconds(openSeconds));
+    }
+
+    /**
+     * Streaming variant of the Azure chat model, only created with {@code mcp.llm.streaming} on.
+     * Its responses are delivered on the Azure client's I/O threads, which gives the pipeline a
+     * non-blocking LLM path. Streamed calls are admitted like any other but go straight to Azure,
+     * bypassing the {@link ModelPool}: no routing, hedging, circuit breaker or Ollama fallback.
+     */
+    @Bean
+    @ConditionalOnProperty(name = "mcp.llm.streaming", havingValue = "true")
+    public StreamingChatLanguageModel streamingChatLanguageModel() {
+
+        return AzureOpenAiStreamingChatModel.builder()
         .endpoint(endpoint)
         .apiKey(apiKey)
         .serviceVersion(version)
@@ -47,4 +170,18 @@ public class AiConfig {
         .timeout(Duration.ofSeconds(timeoutSeconds))
         .build();
     }
+
+    /**
+     * Tokenizer used to hold prompts to their token budget. Deployment names that are not model
+     * names fall back to the default OpenAI encoding.
+     */
+    @Bean
+    public Tokenizer tokenizer() {
+        try {
+            return new AzureOpenAiTokenizer(model);
+        } catch (IllegalArgumentException e) {
+            log.warn("No tokenizer for model '{}', using the default encoding", model);
+            return new AzureOpenAiTokenizer();
+        }
+    }
 }
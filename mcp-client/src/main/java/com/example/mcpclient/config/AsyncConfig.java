@@ -0,0 +1,25 @@
+package com.example.mcpclient.config;
+
+import io.micrometer.context.ContextExecutorService;
+import io.micrometer.context.ContextSnapshotFactory;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+@Configuration
+public class AsyncConfig {
+
+    /**
+     * Executor for the MCP pipeline. Each request runs on its own virtual thread, so blocking
+     * HTTP and LLM calls park the virtual thread instead of holding a platform thread. Tasks
+     * inherit the submitter's observation context, so their spans and log lines carry the
+     * request's trace ID.
+     */
+    @Bean(destroyMethod = "shutdown")
+    public ExecutorService mcpPipelineExecutor() {
+        ContextSnapshotFactory snapshots = ContextSnapshotFactory.builder().build();
+        return ContextExecutorService.wrap(Executors.newVirtualThreadPerTaskExecutor(), snapshots::captureAll);
+    }
+}
@@ -0,0 +1,31 @@
+package com.example.mcpclient.config;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@EnableCaching
+public class CacheConfig {
+
+    /**
+     * Cache manager for the client's Caffeine caches. Caches that need custom loaders or
+     * refresh policies are built by their owners and registered here by name.
+     */
+    @Bean
+    public CaffeineCacheManager cacheManager() {
+        CaffeineCacheManager cacheManager = new CaffeineCacheManager();
+        cacheManager.setAllowNullValues(false);
+        return cacheManager;
+    }
+
+    /**
+     * Registers a natively built Caffeine cache with the cache manager under the given name.
+     */
+    @SuppressWarnings("unchecked")
+    public static void register(CaffeineCacheManager cacheManager, String name, Cache<?, ?> cache) {
+        cacheManager.registerCustomCache(name, (Cache<Object, Object>) cache);
+    }
+}
@@ -0,0 +1,75 @@
+package com.example.mcpclient.config;
+
+import org.apache.hc.client5.http.config.ConnectionConfig;
+import org.apache.hc.client5.http.config.RequestConfig;
+import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
+import org.apache.hc.client5.http.impl.classic.HttpClientBuilder;
+import org.apache.hc.client5.http.impl.classic.HttpClients;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManager;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManagerBuilder;
+import org.apache.hc.core5.util.TimeValue;
+import org.apache.hc.core5.util.Timeout;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class HttpClientConfig {
+
+    @Value("${mcp.http.max-connections:200}")
+    private int maxConnections;
+
+    @Value("${mcp.http.max-connections-per-route:100}")
+    private int maxConnectionsPerRoute;
+
+    @Value("${mcp.http.connect-timeout-ms:2000}")
+    private long connectTimeoutMs;
+
+    @Value("${mcp.http.read-timeout-ms:30000}")
+    private long readTimeoutMs;
+
+    @Value("${mcp.http.pool-timeout-ms:5000}")
+    private long poolTimeoutMs;
+
+    @Value("${mcp.http.idle-timeout-seconds:30}")
+    private long idleTimeoutSeconds;
+
+    @Value("${mcp.http.time-to-live-seconds:300}")
+    private long timeToLiveSeconds;
+
+    @Value("${mcp.http.compression:true}")
+    private boolean compression;
+
+    /**
+     * HTTP client for calls to the MCP server. Connections are pooled and kept alive, so the
+     * two or three calls a submission makes reuse open connections instead of connecting each
+     * time. Idle and stale connections are evicted in the background, and gzip responses are
+     * decompressed transparently when compression is on.
+     */
+    @Bean(destroyMethod = "close")
+    public CloseableHttpClient mcpHttpClient() {
+        PoolingHttpClientConnectionManager connectionManager = PoolingHttpClientConnectionManagerBuilder.create()
+                .setMaxConnTotal(maxConnections)
+                .setMaxConnPerRoute(maxConnectionsPerRoute)
+                .setDefaultConnectionConfig(ConnectionConfig.custom()
+                        .setConnectTimeout(Timeout.ofMilliseconds(connectTimeoutMs))
+                        .setSocketTimeout(Timeout.ofMilliseconds(readTimeoutMs))
+                        .setTimeToLive(TimeValue.ofSeconds(timeToLiveSeconds))
+                        .setValidateAfterInactivity(TimeValue.ofSeconds(2))
+                        .build())
+                .build();
+
+        HttpClientBuilder builder = HttpClients.custom()
+                .setConnectionManager(connectionManager)
+                .setDefaultRequestConfig(RequestConfig.custom()
+                        .setConnectionRequestTimeout(Timeout.ofMilliseconds(poolTimeoutMs))
+                        .setResponseTimeout(Timeout.ofMilliseconds(readTimeoutMs))
+                        .build())
+                .evictExpiredConnections()
+                .evictIdleConnections(TimeValue.ofSeconds(idleTimeoutSeconds));
+        if (!compression) {
+            builder.disableContentCompression();
+        }
+        return builder.build();
+    }
+}
@@ -0,0 +1,82 @@
+package com.example.mcpclient.config;
+
+import com.example.mcpclient.AdmissionControl;
+import com.example.mcpclient.LlmBackend;
+import com.example.mcpclient.ModelPool;
+import com.example.mcpclient.TransformationRepairer;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tag;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.boot.actuate.metrics.cache.CacheMetricsRegistrar;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.ToDoubleFunction;
+
+@Configuration
+public class MetricsConfig {
+
+    /**
+     * Publishes the LLM pool, backend, admission and repair statistics the components already
+     * keep, and the Caffeine statistics of every registered cache. Binders run once all beans
+     * exist, so caches that register themselves at startup are included.
+     */
+    @Bean
+    public MeterBinder mcpClientMetrics(ModelPool modelPool, List<LlmBackend> backends,
+                                        AdmissionControl admissionControl, TransformationRepairer repairer,
+                                        CaffeineCacheManager cacheManager, CacheMetricsRegistrar cacheMetricsRegistrar) {
+        return registry -> {
+            FunctionCounter.builder("mcp.llm.pool.hedges", modelPool, ModelPool::hedges)
+                    .description("LLM calls hedged to a second backend").register(registry);
+            FunctionCounter.builder("mcp.llm.pool.fallbacks", modelPool, ModelPool::fallbacks)
+                    .description("LLM calls answered by a fallback backend").register(registry);
+
+            for (LlmBackend backend : backends) {
+                Tags tags = Tags.of("backend", backend.name());
+                FunctionCounter.builder("mcp.llm.backend.calls", backend, b -> b.stats().calls())
+                        .tags(tags).register(registry);
+                FunctionCounter.builder("mcp.llm.backend.failures", backend, b -> b.stats().failures())
+                        .tags(tags).register(registry);
+                FunctionCounter.builder("mcp.llm.backend.throttled", backend, b -> b.stats().throttled())
+                        .tags(tags).register(registry);
+                Gauge.builder("mcp.llm.backend.in.flight", backend, b -> b.stats().inFlight())
+                        .tags(tags).register(registry);
+                Gauge.builder("mcp.llm.backend.latency.p95", backend, b -> Math.max(0, b.p95Nanos(1)) / (double) TimeUnit.SECONDS.toNanos(1))
+                        .tags(tags).baseUnit("seconds").register(registry);
+                Gauge.builder("mcp.llm.backend.circuit.open", backend,
+                                b -> b.state() == LlmBackend.State.CLOSED ? 0 : 1)
+                        .tags(tags).description("1 while the circuit breaker is open or half-open").register(registry);
+            }
+
+            FunctionCounter.builder("mcp.admission.admitted", admissionControl, AdmissionControl::admitted)
+                    .register(registry);
+            FunctionCounter.builder("mcp.admission.rejected", admissionControl, AdmissionControl::rejected)
+                    .register(registry);
+            Gauge.builder("mcp.admission.queued", admissionControl, AdmissionControl::queued).register(registry);
+
+            repairCounter(registry, "attempted", repairer, r -> r.stats().attempted());
+            repairCounter(registry, "succeeded", repairer, r -> r.stats().succeeded());
+            repairCounter(registry, "failed", repairer, r -> r.stats().failed());
+            FunctionCounter.builder("mcp.repair.prompts", repairer, r -> r.stats().prompts()).register(registry);
+            FunctionCounter.builder("mcp.repair.fields.patched", repairer, r -> r.stats().fieldsPatched())
+                    .register(registry);
+
+            // Same tags as the caches Spring Boot binds itself, so either binding finds the other's meters
+            cacheManager.getCacheNames().forEach(name -> cacheMetricsRegistrar.bindCacheToRegistry(
+                    cacheManager.getCache(name), Tag.of("cache.manager", "cacheManager")));
+        };
+    }
+
+    private static void repairCounter(MeterRegistry registry, String outcome,
+                                      TransformationRepairer repairer, ToDoubleFunction<TransformationRepairer> count) {
+        FunctionCounter.builder("mcp.repair.transformations", repairer, count)
+                .tag("outcome", outcome)
+                .register(registry);
+    }
+}
@@ -0,0 +1,157 @@
+package com.example.mcpclient;
+
+import dev.langchain4j.model.Tokenizer;
+import dev.langchain4j.model.output.TokenUsage;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class AdmissionControlTest {
+
+    private static final long CALL_TOKENS = 100;
+
+    @Test
+    void rejectsCallsThatCannotStartBeforeTheirDeadline() {
+        AdmissionControl admissionControl = admissionControl(60, 10);
+        admissionControl.acquire(List.of());
+
+        try (AdmissionControl.Ticket ticket = admissionControl.open(
+                admissionControl.ticket(AdmissionControl.Priority.BULK))) {
+            assertThatThrownBy(() -> admissionControl.acquire(List.of()))
+                    .isInstanceOf(AdmissionRejectedException.class)
+                    .hasMessageContaining("deadline")
+                    .satisfies(e -> assertThat(((AdmissionRejectedException) e).retryAfterSeconds())
+                            .isGreaterThanOrEqualTo(90));
+            assertThat(ticket.rejection()).isNotNull();
+        }
+        assertThat(admissionControl.admitted()).isEqualTo(1);
+        assertThat(admissionControl.rejected()).isEqualTo(1);
+    }
+
+    @Test
+    void checksInteractiveRequestsWhenTheyEnter() {
+        AdmissionControl admissionControl = admissionControl(60, 10);
+        admissionControl.acquire(List.of());
+
+        assertThatThrownBy(() -> admissionControl.open(AdmissionControl.Priority.INTERACTIVE))
+                .isInstanceOf(AdmissionRejectedException.class);
+        admissionControl.open(AdmissionControl.Priority.BULK).close();
+    }
+
+    @Test
+    void settlingReturnsUnusedTokensAndTheWholeChargeWithoutUsage() {
+        AdmissionControl admissionControl = admissionControl(60, 10);
+
+        admissionControl.settle(admissionControl.acquire(List.of()), null);
+        long charged = admissionControl.acquire(List.of());
+        admissionControl.settle(charged, new TokenUsage(10, 10));
+
+        assertThatThrownBy(() -> admissionControl.acquire(List.of()))
+                .isInstanceOf(AdmissionRejectedException.class)
+                .satisfies(e -> assertThat(((AdmissionRejectedException) e).retryAfterSeconds())
+                        .isBetween(15L, 20L));
+    }
+
+    @Test
+    void admitsInteractiveCallsBeforeQueuedBulkCalls() throws InterruptedException {
+        AdmissionControl admissionControl = admissionControl(6000, 10);
+        admissionControl.acquire(List.of());
+        Queue<AdmissionControl.Priority> admitted = new ConcurrentLinkedQueue<>();
+
+        Thread bulk = waiter(admissionControl, AdmissionControl.Priority.BULK, admitted, new AtomicReference<>());
+        awaitQueued(admissionControl, 1);
+        Thread interactive = waiter(admissionControl, AdmissionControl.Priority.INTERACTIVE, admitted,
+                new AtomicReference<>());
+        awaitQueued(admissionControl, 2);
+        bulk.join(10_000);
+        interactive.join(10_000);
+
+        assertThat(admitted).containsExactly(AdmissionControl.Priority.INTERACTIVE, AdmissionControl.Priority.BULK);
+    }
+
+    @Test
+    void fullQueueShedsBulkCallForInteractiveCall() throws InterruptedException {
+        AdmissionControl admissionControl = admissionControl(6000, 1);
+        admissionControl.acquire(List.of());
+        Queue<AdmissionControl.Priority> admitted = new ConcurrentLinkedQueue<>();
+        AtomicReference<AdmissionRejectedException> bulkRejection = new AtomicReference<>();
+
+        Thread bulk = waiter(admissionControl, AdmissionControl.Priority.BULK, admitted, bulkRejection);
+        awaitQueued(admissionControl, 1);
+        try (AdmissionControl.Ticket ticket = admissionControl.open(
+                admissionControl.ticket(AdmissionControl.Priority.INTERACTIVE))) {
+            assertThat(admissionControl.acquire(List.of())).isEqualTo(CALL_TOKENS);
+        }
+        bulk.join(10_000);
+
+        assertThat(admitted).isEmpty();
+        assertThat(bulkRejection.get()).hasMessageContaining("Shed");
+    }
+
+    @Test
+    void fullQueueRejectsCallWithNothingToShed() throws InterruptedException {
+        AdmissionControl admissionControl = admissionControl(6000, 1);
+        admissionControl.acquire(List.of());
+        Queue<AdmissionControl.Priority> admitted = new ConcurrentLinkedQueue<>();
+
+        Thread first = waiter(admissionControl, AdmissionControl.Priority.BULK, admitted, new AtomicReference<>());
+        awaitQueued(admissionControl, 1);
+        try (AdmissionControl.Ticket ticket = admissionControl.open(
+                admissionControl.ticket(AdmissionControl.Priority.BULK))) {
+            assertThatThrownBy(() -> admissionControl.acquire(List.of()))
+                    .isInstanceOf(AdmissionRejectedException.class)
+                    .hasMessageContaining("queue is full");
+        }
+        first.join(10_000);
+
+        assertThat(admitted).containsExactly(AdmissionControl.Priority.BULK);
+    }
+
+    /**
+     * Returns admission control whose bucket holds one call, refilled at {@code tokensPerMinute}.
+     */
+    private static AdmissionControl admissionControl(long tokensPerMinute, int queueCapacity) {
+        Tokenizer tokenizer = mock(Tokenizer.class);
+        when(tokenizer.estimateTokenCountInMessages(any())).thenReturn(0);
+        AdmissionControl admissionControl = new AdmissionControl(tokenizer);
+        ReflectionTestUtils.setField(admissionControl, "enabled", true);
+        ReflectionTestUtils.setField(admissionControl, "tokensPerMinute", tokensPerMinute);
+        ReflectionTestUtils.setField(admissionControl, "burstTokens", CALL_TOKENS);
+        ReflectionTestUtils.setField(admissionControl, "expectedOutputTokens", (int) CALL_TOKENS);
+        ReflectionTestUtils.setField(admissionControl, "queueCapacity", queueCapacity);
+        ReflectionTestUtils.setField(admissionControl, "interactiveDeadlineMs", 5000L);
+        ReflectionTestUtils.setField(admissionControl, "bulkDeadlineMs", 5000L);
+        admissionControl.init();
+        return admissionControl;
+    }
+
+    private static Thread waiter(AdmissionControl admissionControl, AdmissionControl.Priority priority,
+                                 Queue<AdmissionControl.Priority> admitted,
+                                 AtomicReference<AdmissionRejectedException> rejection) {
+        return Thread.ofPlatform().start(() -> {
+            try (AdmissionControl.Ticket ticket = admissionControl.open(admissionControl.ticket(priority))) {
+                admissionControl.acquire(List.of());
+                admitted.add(priority);
+            } catch (AdmissionRejectedException e) {
+                rejection.set(e);
+            }
+        });
+    }
+
+    private static void awaitQueued(AdmissionControl admissionControl, int queued) throws InterruptedException {
+        for (int i = 0; i < 500 && admissionControl.queued() < queued; i++) {
+            Thread.sleep(10);
+        }
+        assertThat(admissionControl.queued()).isEqualTo(queued);
+    }
+}
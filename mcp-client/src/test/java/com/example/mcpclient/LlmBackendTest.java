@@ -0,0 +1,54 @@
+package com.example.mcpclient;
+
+import dev.langchain4j.exception.HttpException;
+import dev.langchain4j.model.chat.ChatLanguageModel;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+
+class LlmBackendTest {
+
+    private final LlmBackend backend = new LlmBackend("test", mock(ChatLanguageModel.class), false, 2, 3,
+            Duration.ofMinutes(1));
+
+    @Test
+    void opensAtOnceWhenThrottled() throws InterruptedException {
+        fail(new IllegalStateException("Request failed", new HttpException(429, "Too Many Requests")));
+
+        assertThat(backend.state()).isEqualTo(LlmBackend.State.OPEN);
+        assertThat(backend.available()).isFalse();
+        assertThat(backend.stats().throttled()).isEqualTo(1);
+    }
+
+    @Test
+    void doesNotTakeOtherErrorsMentioning429ForThrottling() throws InterruptedException {
+        fail(new HttpException(500, "Internal error in request 4291"));
+        fail(new IllegalStateException("Too Many Requests"));
+
+        assertThat(backend.state()).isEqualTo(LlmBackend.State.CLOSED);
+        assertThat(backend.stats().throttled()).isZero();
+    }
+
+    @Test
+    void opensAfterConsecutiveFailuresAndClosesOnSuccess() throws InterruptedException {
+        fail(new IllegalStateException("boom"));
+        assertThat(backend.tryAcquire(Duration.ZERO)).isTrue();
+        backend.succeeded(1_000_000);
+        fail(new IllegalStateException("boom"));
+        fail(new IllegalStateException("boom"));
+        assertThat(backend.state()).isEqualTo(LlmBackend.State.CLOSED);
+
+        fail(new IllegalStateException("boom"));
+        assertThat(backend.state()).isEqualTo(LlmBackend.State.OPEN);
+        assertThat(backend.tryAcquire(Duration.ZERO)).isFalse();
+        assertThat(backend.stats().inFlight()).isZero();
+    }
+
+    private void fail(Throwable error) throws InterruptedException {
+        assertThat(backend.tryAcquire(Duration.ZERO)).isTrue();
+        backend.failed(error);
+    }
+}
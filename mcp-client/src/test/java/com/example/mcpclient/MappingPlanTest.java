@@ -0,0 +1,76 @@
+package com.example.mcpclient;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class MappingPlanTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Test
+    void derivesPlanThatReplaysOnRequestsWithOtherValuesAndMoreElements() throws JsonProcessingException {
+        MappingPlan plan = MappingPlan.derive(json("""
+                {"submission": {"year": "2025", "inception": "2025-02-04T01:01:01Z", "bound": "true",
+                  "parties": [{"name": "A", "duns": "1"}, {"name": "B", "duns": "2"}]}}
+                """), json("""
+                {"info": {"underwritingYear": 2025, "inceptionDate": [2025, 2, 4], "bound": true},
+                 "intermediaries": [{"party": {"name": "A", "duns": "1"}}, {"party": {"name": "B", "duns": "2"}}]}
+                """));
+
+        assertThat(plan).isNotNull();
+        assertThat(plan.rules()).extracting(Object::toString).contains(
+                "$.submission.year -> $.info.underwritingYear (INTEGER)",
+                "$.submission.inception -> $.info.inceptionDate (DATE_PARTS)",
+                "$.submission.parties[*].name -> $.intermediaries[*].party.name (TEXT)");
+        assertThat(plan.apply(json("""
+                {"submission": {"year": "2026", "inception": "2026-12-30", "bound": "false",
+                  "parties": [{"name": "C", "duns": "3"}, {"name": "D", "duns": "4"}, {"name": "E", "duns": "5"}]}}
+                """))).isEqualTo(json("""
+                {"info": {"underwritingYear": 2026, "inceptionDate": [2026, 12, 30], "bound": false},
+                 "intermediaries": [{"party": {"name": "C", "duns": "3"}}, {"party": {"name": "D", "duns": "4"}},
+                                    {"party": {"name": "E", "duns": "5"}}]}
+                """));
+    }
+
+    @Test
+    void doesNotDerivePlanForValuesMissingFromTheInput() throws JsonProcessingException {
+        assertThat(MappingPlan.derive(json("{\"name\": \"A\"}"), json("{\"name\": \"A\", \"currency\": \"EUR\"}")))
+                .isNull();
+        assertThat(MappingPlan.derive(json("{\"name\": \"A\"}"), json("{\"name\": null}"))).isNull();
+    }
+
+    @Test
+    void resolvesAmbiguousValuesByFieldName() throws JsonProcessingException {
+        JsonNode input = json("{\"partyName\": \"X\", \"alias\": \"X\"}");
+
+        MappingPlan plan = MappingPlan.derive(input, json("{\"name\": \"X\"}"));
+        assertThat(plan).isNotNull();
+        assertThat(plan.apply(json("{\"partyName\": \"Y\", \"alias\": \"Z\"}"))).isEqualTo(json("{\"name\": \"Y\"}"));
+
+        assertThat(MappingPlan.derive(input, json("{\"label\": \"X\"}"))).isNull();
+    }
+
+    @Test
+    void doesNotDerivePlanForMisalignedArrays() throws JsonProcessingException {
+        assertThat(MappingPlan.derive(json("{\"parties\": [{\"name\": \"A\"}, {\"name\": \"B\"}]}"),
+                json("{\"names\": [\"B\", \"A\"]}"))).isNull();
+    }
+
+    @Test
+    void applyReturnsNullForRequestsThatDoNotFit() throws JsonProcessingException {
+        MappingPlan plan = MappingPlan.derive(json("{\"year\": \"2025\", \"name\": \"A\"}"),
+                json("{\"year\": 2025, \"name\": \"A\"}"));
+
+        assertThat(plan).isNotNull();
+        assertThat(plan.apply(json("{\"year\": \"soon\", \"name\": \"A\"}"))).isNull();
+        assertThat(plan.apply(json("{\"name\": \"A\"}"))).isNull();
+    }
+
+    private JsonNode json(String text) throws JsonProcessingException {
+        return objectMapper.readTree(text);
+    }
+}
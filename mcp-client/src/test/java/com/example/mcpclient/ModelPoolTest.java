@@ -0,0 +1,164 @@
+package com.example.mcpclient;
+
+import dev.langchain4j.data.message.AiMessage;
+import dev.langchain4j.data.message.ChatMessage;
+import dev.langchain4j.data.message.UserMessage;
+import dev.langchain4j.model.Tokenizer;
+import dev.langchain4j.model.chat.ChatLanguageModel;
+import dev.langchain4j.model.chat.request.ChatRequest;
+import dev.langchain4j.model.chat.response.ChatResponse;
+import dev.langchain4j.model.output.Response;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.micrometer.observation.ObservationRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+
+class ModelPoolTest {
+
+    private static final ChatRequest REQUEST = ChatRequest.builder().messages(UserMessage.from("hello")).build();
+
+    private final ExecutorService executor = Executors.newCachedThreadPool();
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void hedgesSlowCallAndReturnsTheFirstAnswer() throws InterruptedException {
+        LlmBackend slow = backend("slow", false, 1, () -> {
+            Thread.sleep(10_000);
+            return "slow";
+        });
+        LlmBackend fast = backend("fast", false, 1, () -> "fast");
+        ModelPool pool = pool(slow, fast);
+
+        assertThat(pool.chat(REQUEST).aiMessage().text()).isEqualTo("fast");
+        assertThat(pool.hedges()).isEqualTo(1);
+        awaitIdle(slow);
+        assertThat(fast.stats().inFlight()).isZero();
+        assertThat(slow.stats().failures()).isZero();
+    }
+
+    @Test
+    void doesNotCountHedgeWhenEveryOtherPrimaryIsSaturated() throws InterruptedException {
+        LlmBackend first = backend("first", false, 1, () -> {
+            Thread.sleep(300);
+            return "first";
+        });
+        LlmBackend busy = backend("busy", false, 1, () -> "busy");
+        assertThat(busy.tryAcquire(Duration.ZERO)).isTrue();
+        ModelPool pool = pool(first, busy);
+
+        assertThat(pool.chat(REQUEST).aiMessage().text()).isEqualTo("first");
+        assertThat(pool.hedges()).isZero();
+        busy.abandoned(0);
+        assertThat(busy.stats().calls()).isEqualTo(1);
+    }
+
+    @Test
+    void movesOnAfterFailuresAndOpensTheBreaker() {
+        LlmBackend failing = backend("failing", false, 2, () -> {
+            throw new IllegalStateException("boom");
+        });
+        LlmBackend healthy = backend("healthy", false, 2, () -> "healthy");
+        ModelPool pool = pool(failing, healthy);
+        ReflectionTestUtils.setField(pool, "hedging", false);
+
+        for (int i = 0; i < 3; i++) {
+            assertThat(pool.chat(REQUEST).aiMessage().text()).isEqualTo("healthy");
+        }
+        assertThat(failing.state()).isEqualTo(LlmBackend.State.OPEN);
+        assertThat(failing.stats().calls()).isEqualTo(2);
+        assertThat(failing.stats().inFlight()).isZero();
+        assertThat(healthy.stats().inFlight()).isZero();
+    }
+
+    @Test
+    void usesFallbackOnlyOnceEveryPrimaryFailed() {
+        LlmBackend primary = backend("primary", false, 1, () -> {
+            throw new IllegalStateException("boom");
+        });
+        LlmBackend fallback = backend("fallback", true, 1, () -> "fallback");
+        ModelPool pool = pool(fallback, primary);
+        ReflectionTestUtils.setField(pool, "hedging", false);
+
+        assertThat(pool.chat(REQUEST).aiMessage().text()).isEqualTo("fallback");
+        assertThat(pool.fallbacks()).isEqualTo(1);
+        assertThat(primary.stats().calls()).isEqualTo(1);
+        assertThat(primary.stats().inFlight()).isZero();
+        assertThat(fallback.stats().inFlight()).isZero();
+    }
+
+    @Test
+    void failsWhenEveryBackendFailed() {
+        LlmBackend primary = backend("primary", false, 1, () -> {
+            throw new IllegalStateException("boom");
+        });
+        ModelPool pool = pool(primary);
+
+        assertThatThrownBy(() -> pool.chat(REQUEST))
+                .hasMessage("All LLM backends failed")
+                .hasRootCauseMessage("boom");
+        assertThat(primary.stats().inFlight()).isZero();
+    }
+
+    private ModelPool pool(LlmBackend... backends) {
+        ModelPool pool = new ModelPool(List.of(backends), executor, new AdmissionControl(mock(Tokenizer.class)),
+                new PipelineMetrics(ObservationRegistry.NOOP, new SimpleMeterRegistry()));
+        ReflectionTestUtils.setField(pool, "hedging", true);
+        ReflectionTestUtils.setField(pool, "minSamples", 20);
+        ReflectionTestUtils.setField(pool, "defaultHedgeDelayMs", 100L);
+        ReflectionTestUtils.setField(pool, "acquireTimeoutMs", 100L);
+        return pool;
+    }
+
+    private static LlmBackend backend(String name, boolean fallback, int failureThreshold, Callable<String> answer) {
+        return new LlmBackend(name, new ScriptedModel(answer), fallback, 1, failureThreshold, Duration.ofMinutes(1));
+    }
+
+    private static void awaitIdle(LlmBackend backend) throws InterruptedException {
+        for (int i = 0; i < 500 && backend.stats().inFlight() > 0; i++) {
+            Thread.sleep(10);
+        }
+        assertThat(backend.stats().inFlight()).isZero();
+    }
+
+    private static final class ScriptedModel implements ChatLanguageModel {
+
+        private final Callable<String> answer;
+
+        ScriptedModel(Callable<String> answer) {
+            this.answer = answer;
+        }
+
+        @Override
+        public ChatResponse chat(ChatRequest request) {
+            try {
+                return ChatResponse.builder().aiMessage(AiMessage.from(answer.call())).build();
+            } catch (RuntimeException e) {
+                throw e;
+            } catch (Exception e) {
+                throw new IllegalStateException(e);
+            }
+        }
+
+        @Override
+        @Deprecated
+        @SuppressWarnings("removal")
+        public Response<AiMessage> generate(List<ChatMessage> messages) {
+            throw new UnsupportedOperationException();
+        }
+    }
+}
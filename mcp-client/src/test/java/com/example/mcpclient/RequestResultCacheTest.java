@@ -0,0 +1,136 @@
+package com.example.mcpclient;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class RequestResultCacheTest {
+
+    private final ToolCatalogCache toolCatalogCache = mock(ToolCatalogCache.class);
+    private final AdmissionControl admissionControl = ToolSelectionCacheTest.exhaustedAdmissionControl();
+    private final RequestResultCache cache =
+            new RequestResultCache(new CaffeineCacheManager(), toolCatalogCache, admissionControl);
+    private final AtomicInteger runs = new AtomicInteger();
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(cache, "enabled", true);
+        ReflectionTestUtils.setField(cache, "maxSize", 100L);
+        ReflectionTestUtils.setField(cache, "ttlSeconds", 60L);
+        ReflectionTestUtils.setField(cache, "volatileFields", Set.of("requestId"));
+        cache.init();
+        catalogVersion("\"v1\"");
+    }
+
+    @Test
+    void replaysRequestsDifferingOnlyInFieldOrderOrVolatileFields() {
+        Map<String, Object> first = new LinkedHashMap<>();
+        first.put("requestId", "1");
+        first.put("title", "a");
+        first.put("items", List.of(Map.of("x", 1, "y", 2)));
+        Map<String, Object> replay = new LinkedHashMap<>();
+        replay.put("items", List.of(Map.of("y", 2, "x", 1)));
+        replay.put("title", "a");
+        replay.put("requestId", "2");
+
+        assertThat(cache.get(first, this::run).get("run").asInt()).isEqualTo(1);
+        assertThat(cache.get(replay, this::run).get("run").asInt()).isEqualTo(1);
+        assertThat(cache.get(Map.of("title", "b"), this::run).get("run").asInt()).isEqualTo(2);
+    }
+
+    @Test
+    void missesAfterTheCatalogChanges() {
+        cache.get(Map.of("title", "a"), this::run);
+        catalogVersion("\"v2\"");
+
+        assertThat(cache.get(Map.of("title", "a"), this::run).get("run").asInt()).isEqualTo(2);
+    }
+
+    @Test
+    void callersGetTheirOwnCopy() {
+        ((ObjectNode) cache.get(Map.of("title", "a"), this::run)).put("run", 99);
+
+        assertThat(cache.get(Map.of("title", "a"), this::run).get("run").asInt()).isEqualTo(1);
+    }
+
+    @Test
+    void runsUncachedWithoutCatalog() {
+        when(toolCatalogCache.get()).thenReturn(null);
+
+        cache.get(Map.of("title", "a"), this::run);
+        assertThat(cache.get(Map.of("title", "a"), this::run).get("run").asInt()).isEqualTo(2);
+    }
+
+    @Test
+    void failsCallersWaitingForARunThatThrewAnError() throws InterruptedException {
+        AtomicReference<Throwable> joinerError = new AtomicReference<>();
+        AtomicReference<Thread> joiner = new AtomicReference<>();
+
+        assertThatThrownBy(() -> cache.get(Map.of("title", "a"), () -> {
+            joiner.set(Thread.ofPlatform().start(() -> {
+                try {
+                    cache.get(Map.of("title", "a"), this::run);
+                } catch (Throwable e) {
+                    joinerError.set(e);
+                }
+            }));
+            ToolSelectionCacheTest.awaitWaiting(joiner.get());
+            throw new StackOverflowError();
+        })).isInstanceOf(StackOverflowError.class);
+        joiner.get().join(5000);
+
+        assertThat(joinerError.get()).hasCauseInstanceOf(StackOverflowError.class);
+        assertThat(cache.get(Map.of("title", "a"), this::run).get("run").asInt()).isEqualTo(1);
+    }
+
+    @Test
+    void callersOfARejectedRunRunUnderTheirOwnTickets() throws InterruptedException {
+        AtomicReference<JsonNode> joinerResult = new AtomicReference<>();
+        AtomicReference<Thread> joiner = new AtomicReference<>();
+
+        try (AdmissionControl.Ticket ticket = admissionControl.open(
+                admissionControl.ticket(AdmissionControl.Priority.BULK))) {
+            JsonNode result = cache.get(Map.of("title", "a"), () -> {
+                joiner.set(Thread.ofPlatform().start(() -> {
+                    try (AdmissionControl.Ticket own = admissionControl.open(
+                            admissionControl.ticket(AdmissionControl.Priority.INTERACTIVE))) {
+                        joinerResult.set(cache.get(Map.of("title", "a"), this::run));
+                    }
+                }));
+                ToolSelectionCacheTest.awaitWaiting(joiner.get());
+                return ToolSelectionCacheTest.rejectedCall(admissionControl);
+            });
+
+            assertThat(result).isNull();
+            assertThat(ticket.rejection()).isNotNull();
+        }
+        joiner.get().join(5000);
+
+        assertThat(joinerResult.get().get("run").asInt()).isEqualTo(1);
+        assertThat(cache.get(Map.of("title", "a"), this::run).get("run").asInt()).isEqualTo(1);
+    }
+
+    private JsonNode run() {
+        return JsonNodeFactory.instance.objectNode().put("run", runs.incrementAndGet());
+    }
+
+    private void catalogVersion(String version) {
+        when(toolCatalogCache.get()).thenReturn(new ToolCatalog(version, JsonNodeFactory.instance.objectNode()));
+    }
+}
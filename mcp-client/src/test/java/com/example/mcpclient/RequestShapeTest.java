@@ -0,0 +1,50 @@
+package com.example.mcpclient;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RequestShapeTest {
+
+    @Test
+    void pathsCollapseArrayIndicesAndIgnoreValues() {
+        Map<String, Object> request = Map.of("submission", Map.of(
+                "parties", List.of(Map.of("partyName", Map.of("value", "A")), Map.of("dunsNumber", 1)),
+                "notes", List.of(),
+                "extra", Map.of()));
+
+        assertThat(RequestShape.paths(request)).containsExactly(
+                "submission.extra{}",
+                "submission.notes[]",
+                "submission.parties[].dunsNumber",
+                "submission.parties[].partyName.value");
+    }
+
+    @Test
+    void fingerprintIgnoresValuesFieldOrderAndRepeatedElements() {
+        Map<String, Object> first = new LinkedHashMap<>();
+        first.put("title", "a");
+        first.put("items", List.of(Map.of("x", 1)));
+        Map<String, Object> second = new LinkedHashMap<>();
+        second.put("items", List.of(Map.of("x", 2), Map.of("x", 3)));
+        second.put("title", "b");
+
+        assertThat(RequestShape.fingerprint(first))
+                .isEqualTo(RequestShape.fingerprint(second))
+                .hasSize(64);
+    }
+
+    @Test
+    void fingerprintChangesWithTheFields() {
+        String shape = RequestShape.fingerprint(Map.of("title", "a"));
+
+        assertThat(RequestShape.fingerprint(Map.of("name", "a"))).isNotEqualTo(shape);
+        assertThat(RequestShape.fingerprint(Map.of("title", Map.of("value", "a")))).isNotEqualTo(shape);
+        assertThat(RequestShape.fingerprint(Map.of("title", "a", "extra", "b"))).isNotEqualTo(shape);
+        assertThat(RequestShape.fingerprint(Map.of("title", List.of("a")))).isNotEqualTo(shape);
+    }
+}
@@ -0,0 +1,80 @@
+package com.example.mcpclient;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+
+class StreamingJsonCheckerTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Test
+    void acceptsObjectSplitAcrossChunksInsideFences() throws JsonProcessingException {
+        StreamingJsonChecker checker = new StreamingJsonChecker(schema());
+
+        for (String chunk : new String[] {"```json\n{\"na", "me\": \"A\", \"year\": 20", "25, \"parties\": [{\"ro",
+                "le\": \"Insured\"}]}", "\n```"}) {
+            assertThat(checker.feed(chunk)).isTrue();
+        }
+
+        assertThat(checker.complete()).isTrue();
+        assertThat(checker.violations()).isEmpty();
+        assertThat(checker.syntaxError()).isNull();
+    }
+
+    @Test
+    void failsAtTheFirstSyntaxError() throws JsonProcessingException {
+        StreamingJsonChecker checker = new StreamingJsonChecker(schema());
+
+        assertThat(checker.feed("{\"name\": \"A\",")).isTrue();
+        assertThat(checker.feed(" \"year\": }")).isFalse();
+        assertThat(checker.feed("\"more\"")).isFalse();
+
+        assertThat(checker.complete()).isFalse();
+        assertThat(checker.syntaxError()).isNotNull();
+    }
+
+    @Test
+    void reportsTypeAndUnknownPropertyViolationsWhileStreaming() throws JsonProcessingException {
+        StreamingJsonChecker checker = new StreamingJsonChecker(schema());
+
+        assertThat(checker.feed("{\"name\": 1, \"year\": \"2025\", \"parties\": [{\"role\": true}]")).isTrue();
+        assertThat(checker.feed(", \"extra\": null")).isTrue();
+
+        assertThat(checker.complete()).isFalse();
+        assertThat(checker.violations()).extracting(SchemaViolation::path, SchemaViolation::keyword).containsExactly(
+                tuple("$.name", "type"),
+                tuple("$.year", "type"),
+                tuple("$.parties[0].role", "type"),
+                tuple("$.extra", "additionalProperties"));
+    }
+
+    @Test
+    void acceptsIntegersForNumbersAndAnyOfSeveralTypes() throws JsonProcessingException {
+        StreamingJsonChecker checker = new StreamingJsonChecker(json("""
+                {"type": "object", "properties": {"premium": {"type": "number"}, "code": {"type": ["string", "null"]}}}
+                """));
+
+        assertThat(checker.feed("{\"premium\": 100, \"code\": null, \"other\": [1]}")).isTrue();
+
+        assertThat(checker.complete()).isTrue();
+        assertThat(checker.violations()).isEmpty();
+    }
+
+    private JsonNode schema() throws JsonProcessingException {
+        return json("""
+                {"type": "object", "additionalProperties": false, "properties": {
+                  "name": {"type": "string"},
+                  "year": {"type": "integer"},
+                  "parties": {"type": "array", "items": {"type": "object", "properties": {"role": {"type": "string"}}}}}}
+                """);
+    }
+
+    private JsonNode json(String text) throws JsonProcessingException {
+        return objectMapper.readTree(text);
+    }
+}
@@ -0,0 +1,101 @@
+package com.example.mcpclient;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class ToolRouterTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Test
+    void rulesRouteRequestsThatHaveThePath() throws JsonProcessingException {
+        ToolRouter router = router(List.of("claim.loss:claimTool", "submission.initialInformation:submissionIntake"));
+        // Above any cosine score, so only the rules can route
+        ReflectionTestUtils.setField(router, "minScore", 2.0);
+        ToolCatalog catalog = catalog("\"v1\"");
+
+        assertThat(router.route(Map.of("submission", Map.of("initialInformation", Map.of())), catalog))
+                .isEqualTo(new ToolRouter.Route("submissionIntake", "rule", "submission.initialInformation"));
+        assertThat(router.route(Map.of("claim", Map.of("loss", 1)), catalog)).isNull();
+        assertThat(router.route(Map.of("submission", Map.of("other", 1)), catalog)).isNull();
+
+        Map<String, Object> submission = new HashMap<>();
+        submission.put("initialInformation", null);
+        assertThat(router.route(Map.of("submission", submission), catalog)).isNull();
+    }
+
+    @Test
+    void rejectsMalformedRules() {
+        assertThatThrownBy(() -> router(List.of("submission"))).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> router(List.of("submission:"))).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> router(List.of(":tool"))).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void routesBySimilarityWhenTheBestToolLeadsClearly() throws JsonProcessingException {
+        ToolRouter.Route route = router(List.of()).route(Map.of("submission", Map.of(
+                "partyName", "A", "dunsNumber", "1", "inceptionDate", "2025-01-01")), catalog("\"v1\""));
+
+        assertThat(route.tool()).isEqualTo("submissionIntake");
+        assertThat(route.source()).isEqualTo("similarity");
+    }
+
+    @Test
+    void leavesCloseOrWeakMatchesToTheLlm() throws JsonProcessingException {
+        ToolRouter router = router(List.of());
+        ToolCatalog twins = new ToolCatalog("\"twins\"", objectMapper.readTree("""
+                {"first": {"title": "Party", "schema": {"properties": {"partyName": {}}}},
+                 "second": {"title": "Party", "schema": {"properties": {"partyName": {}}}}}
+                """));
+
+        assertThat(router.route(Map.of("partyName", "A"), twins)).isNull();
+        assertThat(router.route(Map.of("weather", "sunny"), catalog("\"v1\""))).isNull();
+    }
+
+    @Test
+    void recomputesToolVectorsWhenTheCatalogChanges() throws JsonProcessingException {
+        ToolRouter router = router(List.of());
+        Map<String, Object> request = Map.of("isicCode", "0111", "hierarchical", true);
+
+        assertThat(router.route(request, new ToolCatalog("\"v1\"", objectMapper.readTree("""
+                {"submissionIntake": {"schema": {"properties": {"partyName": {}}}}}
+                """)))).isNull();
+        assertThat(router.route(request, catalog("\"v2\""))).extracting(ToolRouter.Route::tool)
+                .isEqualTo("isicToAocMapping");
+    }
+
+    @Test
+    void routesNothingWhenDisabled() throws JsonProcessingException {
+        ToolRouter router = router(List.of("submission:submissionIntake"));
+        ReflectionTestUtils.setField(router, "enabled", false);
+
+        assertThat(router.route(Map.of("submission", Map.of()), catalog("\"v1\""))).isNull();
+    }
+
+    private static ToolRouter router(List<String> rules) {
+        ToolRouter router = new ToolRouter(rules);
+        ReflectionTestUtils.setField(router, "enabled", true);
+        ReflectionTestUtils.setField(router, "minScore", 0.3);
+        ReflectionTestUtils.setField(router, "minMargin", 0.1);
+        return router;
+    }
+
+    private ToolCatalog catalog(String version) throws JsonProcessingException {
+        return new ToolCatalog(version, objectMapper.readTree("""
+                {"submissionIntake": {"title": "Submission intake", "description": "Creates an insurance submission",
+                  "schema": {"properties": {"submission": {"properties": {
+                    "partyName": {}, "dunsNumber": {}, "inceptionDate": {}, "expiryDate": {}}}}}},
+                 "isicToAocMapping": {"title": "ISIC to AOC", "description": "Maps an ISIC code to an AOC code",
+                  "schema": {"properties": {"isicCode": {}, "hierarchical": {}}}}}
+                """));
+    }
+}
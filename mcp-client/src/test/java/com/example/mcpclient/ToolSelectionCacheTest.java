@@ -0,0 +1,133 @@
+package com.example.mcpclient;
+
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import dev.langchain4j.model.Tokenizer;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class ToolSelectionCacheTest {
+
+    private final AdmissionControl admissionControl = exhaustedAdmissionControl();
+    private final ToolSelectionCache cache = new ToolSelectionCache(new CaffeineCacheManager(), admissionControl);
+    private final ToolCatalog catalog = new ToolCatalog("\"v1\"", JsonNodeFactory.instance.objectNode());
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(cache, "maxSize", 100L);
+        ReflectionTestUtils.setField(cache, "ttlSeconds", 60L);
+        cache.init();
+    }
+
+    @Test
+    void reusesSelectionForRequestsOfTheSameShape() {
+        AtomicInteger selections = new AtomicInteger();
+
+        assertThat(cache.get(Map.of("title", "a"), catalog, () -> "tool-" + selections.incrementAndGet()))
+                .isEqualTo("tool-1");
+        assertThat(cache.get(Map.of("title", "b"), catalog, () -> "tool-" + selections.incrementAndGet()))
+                .isEqualTo("tool-1");
+        assertThat(cache.get(Map.of("title", "b"), new ToolCatalog("\"v2\"", catalog.tools()),
+                () -> "tool-" + selections.incrementAndGet())).isEqualTo("tool-2");
+    }
+
+    @Test
+    void doesNotCacheFailedSelections() {
+        assertThat(cache.get(Map.of("title", "a"), catalog, () -> null)).isNull();
+        assertThat(cache.get(Map.of("title", "a"), catalog, () -> "tool")).isEqualTo("tool");
+    }
+
+    @Test
+    void failsCallersWaitingForASelectionThatThrewAnError() throws InterruptedException {
+        AtomicReference<Throwable> joinerError = new AtomicReference<>();
+        AtomicReference<Thread> joiner = new AtomicReference<>();
+
+        assertThatThrownBy(() -> cache.get(Map.of("title", "a"), catalog, () -> {
+            joiner.set(Thread.ofPlatform().start(() -> {
+                try {
+                    cache.get(Map.of("title", "a"), catalog, () -> "unexpected");
+                } catch (Throwable e) {
+                    joinerError.set(e);
+                }
+            }));
+            awaitWaiting(joiner.get());
+            throw new StackOverflowError();
+        })).isInstanceOf(StackOverflowError.class);
+        joiner.get().join(5000);
+
+        assertThat(joinerError.get()).hasCauseInstanceOf(StackOverflowError.class);
+        assertThat(cache.get(Map.of("title", "a"), catalog, () -> "tool")).isEqualTo("tool");
+    }
+
+    @Test
+    void callersOfARejectedSelectionSelectUnderTheirOwnTickets() throws InterruptedException {
+        AtomicReference<String> joinerSelected = new AtomicReference<>();
+        AtomicReference<Thread> joiner = new AtomicReference<>();
+
+        try (AdmissionControl.Ticket ticket = admissionControl.open(
+                admissionControl.ticket(AdmissionControl.Priority.BULK))) {
+            String selected = cache.get(Map.of("title", "a"), catalog, () -> {
+                joiner.set(Thread.ofPlatform().start(() -> {
+                    try (AdmissionControl.Ticket own = admissionControl.open(
+                            admissionControl.ticket(AdmissionControl.Priority.INTERACTIVE))) {
+                        joinerSelected.set(cache.get(Map.of("title", "a"), catalog, () -> "tool"));
+                    }
+                }));
+                awaitWaiting(joiner.get());
+                return rejectedCall(admissionControl);
+            });
+
+            assertThat(selected).isNull();
+            assertThat(ticket.rejection()).isNotNull();
+        }
+        joiner.get().join(5000);
+
+        assertThat(joinerSelected.get()).isEqualTo("tool");
+        assertThat(cache.get(Map.of("title", "a"), catalog, () -> "other")).isEqualTo("tool");
+    }
+
+    /**
+     * Returns admission control with an empty bucket, so that every LLM call is rejected.
+     */
+    static AdmissionControl exhaustedAdmissionControl() {
+        Tokenizer tokenizer = mock(Tokenizer.class);
+        when(tokenizer.estimateTokenCountInMessages(any())).thenReturn(100);
+        AdmissionControl admissionControl = new AdmissionControl(tokenizer);
+        ReflectionTestUtils.setField(admissionControl, "enabled", true);
+        ReflectionTestUtils.setField(admissionControl, "tokensPerMinute", 1L);
+        ReflectionTestUtils.setField(admissionControl, "burstTokens", 100L);
+        ReflectionTestUtils.setField(admissionControl, "queueCapacity", 10);
+        ReflectionTestUtils.setField(admissionControl, "interactiveDeadlineMs", 1000L);
+        ReflectionTestUtils.setField(admissionControl, "bulkDeadlineMs", 1000L);
+        admissionControl.init();
+        admissionControl.acquire(List.of());
+        return admissionControl;
+    }
+
+    static <T> T rejectedCall(AdmissionControl admissionControl) {
+        assertThatThrownBy(() -> admissionControl.acquire(List.of()))
+                .isInstanceOf(AdmissionRejectedException.class);
+        return null;
+    }
+
+    static void awaitWaiting(Thread thread) {
+        long deadline = System.nanoTime() + Duration.ofSeconds(5).toNanos();
+        while (thread.getState() != Thread.State.WAITING && System.nanoTime() < deadline) {
+            Thread.onSpinWait();
+        }
+        assertThat(thread.getState()).isEqualTo(Thread.State.WAITING);
+    }
+}
@@ -0,0 +1,100 @@
+package com.example.mcpclient;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class TransformationRepairerTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final AiService aiService = mock(AiService.class);
+    private final SchemaRegistry schemaRegistry = mock(SchemaRegistry.class);
+
+    @Test
+    void segmentsParsesValidatorPaths() {
+        assertThat(TransformationRepairer.segments("$.a.b[0].c")).containsExactly("a", "b", "[0]", "c");
+        assertThat(TransformationRepairer.segments("$[2]")).containsExactly("[2]");
+        assertThat(TransformationRepairer.segments("$.first name")).containsExactly("first name");
+        assertThat(TransformationRepairer.segments("$")).isEmpty();
+
+        assertThat(TransformationRepairer.segments(null)).isNull();
+        assertThat(TransformationRepairer.segments("a.b")).isNull();
+        assertThat(TransformationRepairer.segments("$.a..b")).isNull();
+        assertThat(TransformationRepairer.segments("$.a[x]")).isNull();
+    }
+
+    @Test
+    void writeCreatesMissingObjectsButNotArrayElements() throws JsonProcessingException {
+        ObjectNode root = (ObjectNode) json("{\"parties\": [{\"name\": \"A\"}]}");
+
+        assertThat(write(root, "$.info.year", 2025)).isTrue();
+        assertThat(write(root, "$.parties[0].name", "B")).isTrue();
+        assertThat(write(root, "$.parties[1].name", "C")).isFalse();
+        assertThat(write(root, "$.parties[0].name.first", "D")).isFalse();
+        assertThat(write(root, "$.missing[0]", "E")).isFalse();
+
+        assertThat(root).isEqualTo(json("{\"parties\": [{\"name\": \"B\"}], \"info\": {\"year\": 2025}}"));
+    }
+
+    @Test
+    void repairPatchesOnlyTheFailingFields() throws JsonProcessingException {
+        ToolCatalog catalog = new ToolCatalog("\"v1\"", json("""
+                {"tool": {"schema": {"type": "object", "properties": {
+                  "name": {"type": "string"}, "info": {"type": "object", "properties": {"year": {"type": "integer"}}}}}}}
+                """));
+        JsonNode output = json("{\"name\": \"A\", \"info\": {\"year\": \"soon\"}}");
+        List<SchemaViolation> violations = List.of(new SchemaViolation("$.info.year", "type", "must be an integer"));
+        when(aiService.repairFields(eq(violations), eq(json("{\"$.info.year\": \"soon\"}")),
+                eq(json("{\"$.info.year\": {\"type\": \"integer\"}}")), isNull()))
+                .thenReturn(json("{\"$.info.year\": 2025}"));
+        when(schemaRegistry.violations(eq(catalog), eq("tool"), any())).thenReturn(List.of());
+
+        TransformationRepairer repairer = repairer();
+
+        JsonNode repaired = repairer.repair(Map.of(), catalog, "tool", output, violations);
+
+        assertThat(repaired).isEqualTo(json("{\"name\": \"A\", \"info\": {\"year\": 2025}}"));
+        assertThat(output).isEqualTo(json("{\"name\": \"A\", \"info\": {\"year\": \"soon\"}}"));
+        assertThat(repairer.stats()).isEqualTo(new TransformationRepairer.RepairStats(1, 1, 0, 1, 1));
+    }
+
+    @Test
+    void repairGivesUpAfterMaxAttempts() throws JsonProcessingException {
+        ToolCatalog catalog = new ToolCatalog("\"v1\"", json("{\"tool\": {\"schema\": {\"type\": \"object\"}}}"));
+        List<SchemaViolation> violations = List.of(new SchemaViolation("$.year", "type", "must be an integer"));
+        when(aiService.repairFields(any(), any(), any(), any())).thenReturn(json("{\"$.year\": \"later\"}"));
+        when(schemaRegistry.violations(any(), any(), any())).thenReturn(violations);
+        TransformationRepairer repairer = repairer();
+
+        assertThat(repairer.repair(Map.of(), catalog, "tool", json("{\"year\": \"soon\"}"), violations)).isNull();
+        assertThat(repairer.stats()).isEqualTo(new TransformationRepairer.RepairStats(1, 0, 1, 2, 2));
+    }
+
+    private TransformationRepairer repairer() {
+        TransformationRepairer repairer = new TransformationRepairer(aiService, schemaRegistry);
+        ReflectionTestUtils.setField(repairer, "enabled", true);
+        ReflectionTestUtils.setField(repairer, "maxAttempts", 2);
+        return repairer;
+    }
+
+    private boolean write(ObjectNode root, String path, Object value) {
+        return TransformationRepairer.write(root, TransformationRepairer.segments(path), objectMapper.valueToTree(value));
+    }
+
+    private JsonNode json(String text) throws JsonProcessingException {
+        return objectMapper.readTree(text);
+    }
+}
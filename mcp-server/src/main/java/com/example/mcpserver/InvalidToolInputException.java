@@ -0,0 +1,24 @@
+package com.example.mcpserver;
+
+import java.util.List;
+
+/**
+ * Thrown by a {@link StreamingToolHandler} when the input it is reading does not match the
+ * tool schema. Answered like an input rejected by up-front validation.
+ */
+public class InvalidToolInputException extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    @SuppressWarnings("serial") // List.copyOf of serializable records
+    private final List<SchemaViolation> violations;
+
+    public InvalidToolInputException(List<SchemaViolation> violations) {
+        super(violations.isEmpty() ? "Invalid tool input" : violations.get(0).message());
+        this.violations = List.copyOf(violations);
+    }
+
+    public List<SchemaViolation> violations() {
+        return violations;
+    }
+}
@@ -0,0 +1,293 @@
+package com.example.mcpserver;
+
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Read-only ISIC to AOC index, memory-mapped from a compact binary file.
+ * <p>
+ * ISIC codes are digit strings, encoded as a long (length and numeric value) so that leading
+ * zeros are kept; single-letter ISIC sections (A-U) are encoded as the letter itself. The file
+ * holds the distinct AOC codes once, followed by the sorted keys and, for each key, the index of
+ * its AOC code. Opening an index only reads the header and the
+ * (small) AOC dictionary; keys stay on disk and are paged in by the OS. Lookups are a binary
+ * search over the mapped keys and return an interned string, so they do not allocate.
+ * <p>
+ * File layout (big-endian):
+ * <pre>
+ * int magic, int version, long sourceLength, long sourceModified, int keyCount, int valueCount
+ * valueCount x (short length, UTF-8 bytes)   -- AOC codes
+ * padding to 8 bytes
+ * keyCount x long                            -- encoded ISIC codes, ascending
+ * keyCount x int                             -- AOC code index per key
+ * </pre>
+ */
+final class IsicAocIndex {
+
+    private static final int MAGIC = 0x49534F41; // "ISOA"
+    private static final int VERSION = 1;
+    private static final int MAX_DIGITS = 17;
+
+    private final MappedByteBuffer buffer;
+    private final String[] values;
+    private final int keyCount;
+    private final int keysOffset;
+    private final int valuesOffset;
+    private final long sourceLength;
+    private final long sourceModified;
+
+    private IsicAocIndex(MappedByteBuffer buffer, String[] values, int keyCount, int keysOffset,
+                         long sourceLength, long sourceModified) {
+        this.buffer = buffer;
+        this.values = values;
+        this.keyCount = keyCount;
+        this.keysOffset = keysOffset;
+        this.valuesOffset = keysOffset + keyCount * Long.BYTES;
+        this.sourceLength = sourceLength;
+        this.sourceModified = sourceModified;
+    }
+
+    /**
+     * Returns the AOC code for an ISIC code, or null if there is none.
+     */
+    String lookup(CharSequence isicCode) {
+        return lookup(isicCode, isicCode.length());
+    }
+
+    /**
+     * Returns the AOC code for the first {@code length} characters of an ISIC code, or null if
+     * there is none. Used for hierarchical lookups without creating substrings.
+     */
+    String lookup(CharSequence isicCode, int length) {
+        return find(encode(isicCode, length));
+    }
+
+    /**
+     * Returns the AOC code mapped to an ISIC section letter, or null if there is none.
+     */
+    String lookupSection(char section) {
+        return section >= 'A' && section <= 'Z' ? find(section) : null;
+    }
+
+    private String find(long key) {
+        if (key < 0) {
+            return null;
+        }
+
+        int low = 0;
+        int high = keyCount - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            long current = buffer.getLong(keysOffset + mid * Long.BYTES);
+            if (current < key) {
+                low = mid + 1;
+            } else if (current > key) {
+                high = mid - 1;
+            } else {
+                return values[buffer.getInt(valuesOffset + mid * Integer.BYTES)];
+            }
+        }
+        return null;
+    }
+
+    int size() {
+        return keyCount;
+    }
+
+    /**
+     * Whether this index was built from a source with the given length and modification time.
+     */
+    boolean builtFrom(long length, long modified) {
+        return sourceLength == length && sourceModified == modified;
+    }
+
+    /**
+     * Maps an index file into memory.
+     *
+     * @throws IOException if the file cannot be read or is not a valid index
+     */
+    static IsicAocIndex open(Path file) throws IOException {
+        MappedByteBuffer buffer;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+        buffer.order(ByteOrder.BIG_ENDIAN);
+
+        if (buffer.remaining() < 32 || buffer.getInt(0) != MAGIC || buffer.getInt(4) != VERSION) {
+            throw new IOException("Not an ISIC to AOC index: " + file);
+        }
+        long sourceLength = buffer.getLong(8);
+        long sourceModified = buffer.getLong(16);
+        int keyCount = buffer.getInt(24);
+        int valueCount = buffer.getInt(28);
+
+        if (keyCount < 0 || valueCount < 0) {
+            throw new IOException("Not an ISIC to AOC index: " + file);
+        }
+
+        String[] values = new String[valueCount];
+        int position = 32;
+        for (int i = 0; i < valueCount; i++) {
+            if (position + Short.BYTES > buffer.capacity()) {
+                throw new IOException("Truncated ISIC to AOC index: " + file);
+            }
+            int length = Short.toUnsignedInt(buffer.getShort(position));
+            if (position + Short.BYTES + length > buffer.capacity()) {
+                throw new IOException("Truncated ISIC to AOC index: " + file);
+            }
+            byte[] bytes = new byte[length];
+            buffer.get(position + Short.BYTES, bytes);
+            values[i] = new String(bytes, StandardCharsets.UTF_8).intern();
+            position += Short.BYTES + length;
+        }
+        int keysOffset = align(position);
+
+        if ((long) keysOffset + (long) keyCount * (Long.BYTES + Integer.BYTES) > buffer.capacity()) {
+            throw new IOException("Truncated ISIC to AOC index: " + file);
+        }
+        return new IsicAocIndex(buffer, values, keyCount, keysOffset, sourceLength, sourceModified);
+    }
+
+    /**
+     * Builds an index file from a CSV with an {@code isic_code,aoc_code} header. Rows whose ISIC
+     * code is neither a digit string nor a section letter are skipped; for duplicate ISIC codes
+     * the last row wins. The file is written next to {@code target} and moved into place, so a
+     * reader never sees a partial file. {@code target} must not exist yet: a file that is mapped
+     * cannot be replaced on every platform.
+     *
+     * @return the number of distinct ISIC codes written
+     */
+    static int build(InputStream csv, long sourceLength, long sourceModified, Path target) throws IOException {
+        long[] keys = new long[1024];
+        int[] valueIds = new int[1024];
+        Map<String, Integer> valueIdsByCode = new HashMap<>();
+        List<String> valueCodes = new ArrayList<>();
+        int rows = 0;
+
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(csv, StandardCharsets.UTF_8))) {
+            String line = reader.readLine(); // header
+            while ((line = reader.readLine()) != null) {
+                int comma = line.indexOf(',');
+                if (comma < 0) {
+                    continue;
+                }
+                long key = encode(line.substring(0, comma).trim());
+                int end = line.indexOf(',', comma + 1);
+                String aocCode = line.substring(comma + 1, end < 0 ? line.length() : end).trim();
+                if (key < 0 || aocCode.isEmpty()) {
+                    continue;
+                }
+
+                if (rows == keys.length) {
+                    keys = Arrays.copyOf(keys, rows * 2);
+                    valueIds = Arrays.copyOf(valueIds, rows * 2);
+                }
+                keys[rows] = key;
+                valueIds[rows] = valueIdsByCode.computeIfAbsent(aocCode, code -> {
+                    valueCodes.add(code);
+                    return valueCodes.size() - 1;
+                });
+                rows++;
+            }
+        }
+
+        // Stable sort of row numbers by key, so the last of several duplicate rows comes last
+        long[] rowKeys = keys;
+        Integer[] order = new Integer[rows];
+        Arrays.setAll(order, i -> i);
+        Arrays.sort(order, (a, b) -> Long.compare(rowKeys[a], rowKeys[b]));
+
+        int distinct = 0;
+        long[] sortedKeys = new long[rows];
+        int[] sortedValueIds = new int[rows];
+        for (int i = 0; i < rows; i++) {
+            int row = order[i];
+            if (distinct > 0 && sortedKeys[distinct - 1] == keys[row]) {
+                sortedValueIds[distinct - 1] = valueIds[row];
+            } else {
+                sortedKeys[distinct] = keys[row];
+                sortedValueIds[distinct] = valueIds[row];
+                distinct++;
+            }
+        }
+
+        Path temp = Files.createTempFile(target.toAbsolutePath().getParent(), target.getFileName().toString(), ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp)))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeLong(sourceLength);
+            out.writeLong(sourceModified);
+            out.writeInt(distinct);
+            out.writeInt(valueCodes.size());
+            int position = 32;
+            for (String code : valueCodes) {
+                byte[] bytes = code.getBytes(StandardCharsets.UTF_8);
+                out.writeShort(bytes.length);
+                out.write(bytes);
+                position += Short.BYTES + bytes.length;
+            }
+            for (int i = position; i < align(position); i++) {
+                out.writeByte(0);
+            }
+            for (int i = 0; i < distinct; i++) {
+                out.writeLong(sortedKeys[i]);
+            }
+            for (int i = 0; i < distinct; i++) {
+                out.writeInt(sortedValueIds[i]);
+            }
+        } catch (IOException e) {
+            Files.deleteIfExists(temp);
+            throw e;
+        }
+        Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE);
+        return distinct;
+    }
+
+    static long encode(CharSequence code) {
+        return encode(code, code.length());
+    }
+
+    /**
+     * Encodes the first {@code length} characters of a code: a digit string as
+     * {@code length << 57 | value}, a single section letter as its character value.
+     * Returns -1 for anything else.
+     */
+    static long encode(CharSequence code, int length) {
+        if (length == 1 && code.charAt(0) >= 'A' && code.charAt(0) <= 'Z') {
+            return code.charAt(0);
+        }
+        if (length == 0 || length > MAX_DIGITS || length > code.length()) {
+            return -1;
+        }
+        long value = 0;
+        for (int i = 0; i < length; i++) {
+            char c = code.charAt(i);
+            if (c < '0' || c > '9') {
+                return -1;
+            }
+            value = value * 10 + (c - '0');
+        }
+        return ((long) length << 57) | value;
+    }
+
+    private static int align(int position) {
+        return (position + Long.BYTES - 1) & -Long.BYTES;
+    }
+}
@@ -0,0 +1,219 @@
+package com.example.mcpserver;
+
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.ResourceLoader;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+/**
+ * ISIC to AOC lookups backed by a memory-mapped {@link IsicAocIndex}.
+ * <p>
+ * The index is built from the reference CSV the first time and reused on later startups as
+ * long as the CSV has not changed, so startup only maps the file. {@link #reload()} rebuilds
+ * it from the CSV and swaps it in atomically; lookups in flight keep using the old index.
+ * <p>
+ * Every build is written to a new file, {@code mcp.isic.index-file} with a version number
+ * appended, as a mapped file cannot be replaced or deleted on every platform. Older versions
+ * are deleted after the new one is mapped; those still mapped are left for a later load.
+ * <p>
+ * Hierarchical lookups follow the ISIC Rev.4 structure when the exact code is missing:
+ * class (first 4 digits), group (3), division (2), then the section letter of the division.
+ */
+@Component
+public class IsicAocLookup {
+
+    private static final Logger log = LoggerFactory.getLogger(IsicAocLookup.class);
+
+    /**
+     * Result of a lookup: the AOC code, the ISIC code it was mapped from, and the level of
+     * that code ({@code exact}, {@code class}, {@code group}, {@code division} or {@code section}).
+     */
+    public record Match(String aocCode, String matchedCode, String level) {
+
+        /**
+         * Adds the AOC code, and optionally the matched code and level, to a response.
+         */
+        public void writeTo(ObjectNode responseNode, boolean withLevel) {
+            responseNode.put("aocCode", aocCode);
+            if (withLevel) {
+                responseNode.put("matchedCode", matchedCode);
+                responseNode.put("level", level);
+            }
+        }
+    }
+
+    private static final String[] LEVELS = {null, null, "division", "group", "class"};
+
+    // ISIC Rev.4 sections by division number: A = 01-03, B = 05-09, C = 10-33, ...
+    private static final char[] SECTIONS = new char[100];
+
+    static {
+        String[] ranges = {"A01-03", "B05-09", "C10-33", "D35-35", "E36-39", "F41-43", "G45-47", "H49-53",
+                "I55-56", "J58-63", "K64-66", "L68-68", "M69-75", "N77-82", "O84-84", "P85-85", "Q86-88",
+                "R90-93", "S94-96", "T97-98", "U99-99"};
+        for (String range : ranges) {
+            int from = Integer.parseInt(range.substring(1, 3));
+            int to = Integer.parseInt(range.substring(4, 6));
+            for (int division = from; division <= to; division++) {
+                SECTIONS[division] = range.charAt(0);
+            }
+        }
+    }
+
+    private final Resource referenceCsv;
+    private final Path indexFile;
+    private final Pattern versionPattern;
+
+    private volatile IsicAocIndex index;
+
+    public IsicAocLookup(ResourceLoader resourceLoader,
+                         @Value("${mcp.isic.reference-csv:classpath:reference/isic-to-aoc.csv}") String referenceCsv,
+                         @Value("${mcp.isic.index-file:${java.io.tmpdir}/mcp-isic-to-aoc.idx}") String indexFile) {
+        this.referenceCsv = resourceLoader.getResource(referenceCsv);
+        this.indexFile = Path.of(indexFile).toAbsolutePath();
+        this.versionPattern = Pattern.compile(Pattern.quote(this.indexFile.getFileName().toString()) + "\\.(\\d+)");
+        this.index = load(false);
+    }
+
+    /**
+     * Looks up an ISIC code, falling back to its class, group, division and section when
+     * {@code hierarchical} is set and the exact code is missing.
+     *
+     * @return the match, or null if no level of the code is mapped
+     */
+    public Match resolve(String isicCode, boolean hierarchical) {
+        if (isicCode == null || isicCode.isEmpty()) {
+            return null;
+        }
+        IsicAocIndex current = index;
+
+        String aocCode = current.lookup(isicCode);
+        if (aocCode != null) {
+            return new Match(aocCode, isicCode, "exact");
+        }
+        if (!hierarchical || IsicAocIndex.encode(isicCode) < 0 || isicCode.length() < 2) {
+            return null;
+        }
+
+        for (int length = Math.min(isicCode.length() - 1, 4); length >= 2; length--) {
+            aocCode = current.lookup(isicCode, length);
+            if (aocCode != null) {
+                return new Match(aocCode, isicCode.substring(0, length), LEVELS[length]);
+            }
+        }
+
+        char section = SECTIONS[(isicCode.charAt(0) - '0') * 10 + (isicCode.charAt(1) - '0')];
+        aocCode = section == 0 ? null : current.lookupSection(section);
+        return aocCode == null ? null : new Match(aocCode, String.valueOf(section), "section");
+    }
+
+    public int size() {
+        return index.size();
+    }
+
+    /**
+     * Rebuilds the index from the reference CSV and swaps it in.
+     *
+     * @return the number of ISIC codes in the new index
+     */
+    public synchronized int reload() {
+        index = load(true);
+        return index.size();
+    }
+
+    private IsicAocIndex load(boolean rebuild) {
+        long start = System.nanoTime();
+        try {
+            long length = referenceCsv.contentLength();
+            long modified = referenceCsv.lastModified();
+            List<Path> versions = versions();
+
+            if (!rebuild && !versions.isEmpty()) {
+                Path latest = versions.get(versions.size() - 1);
+                try {
+                    IsicAocIndex existing = IsicAocIndex.open(latest);
+                    if (existing.builtFrom(length, modified)) {
+                        log.info("Mapped ISIC to AOC index {} ({} codes) in {} ms",
+                                latest, existing.size(), (System.nanoTime() - start) / 1_000_000);
+                        deleteStale(latest);
+                        return existing;
+                    }
+                } catch (IOException e) {
+                    log.warn("Ignoring unreadable ISIC to AOC index {}: {}", latest, e.getMessage());
+                }
+            }
+
+            long version = versions.isEmpty() ? 1 : version(versions.get(versions.size() - 1)) + 1;
+            Path file = indexFile.resolveSibling(indexFile.getFileName() + "." + version);
+            int codes;
+            try (InputStream csv = referenceCsv.getInputStream()) {
+                codes = IsicAocIndex.build(csv, length, modified, file);
+            }
+            IsicAocIndex built = IsicAocIndex.open(file);
+            log.info("Built ISIC to AOC index {} from {} ({} codes) in {} ms",
+                    file, referenceCsv.getDescription(), codes, (System.nanoTime() - start) / 1_000_000);
+            deleteStale(file);
+            return built;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Error loading ISIC to AOC reference data", e);
+        }
+    }
+
+    /**
+     * Returns the versioned index files, oldest first.
+     */
+    private List<Path> versions() throws IOException {
+        Files.createDirectories(indexFile.getParent());
+        try (Stream<Path> files = Files.list(indexFile.getParent())) {
+            return files.filter(file -> versionPattern.matcher(file.getFileName().toString()).matches())
+                    .sorted(Comparator.comparingLong(this::version))
+                    .toList();
+        }
+    }
+
+    private long version(Path file) {
+        Matcher matcher = versionPattern.matcher(file.getFileName().toString());
+        try {
+            return matcher.matches() ? Long.parseLong(matcher.group(1)) : 0;
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+
+    /**
+     * Deletes index files other than {@code current}, including one written before files were
+     * versioned. A file still mapped may not be deletable yet; it is tried again on the next load.
+     */
+    private void deleteStale(Path current) {
+        try {
+            List<Path> stale = new ArrayList<>(versions());
+            stale.add(indexFile);
+            for (Path file : stale) {
+                if (!file.equals(current)) {
+                    try {
+                        Files.deleteIfExists(file);
+                    } catch (IOException e) {
+                        log.debug("Cannot delete old ISIC to AOC index {} yet: {}", file, e.getMessage());
+                    }
+                }
+            }
+        } catch (IOException e) {
+            log.debug("Cannot list old ISIC to AOC indexes next to {}", indexFile, e);
+        }
+    }
+}
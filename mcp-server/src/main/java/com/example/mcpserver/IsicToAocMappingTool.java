@@ -0,0 +1,64 @@
+package com.example.mcpserver;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+
+/**
+ * Converts an ISIC code to an AOC code.
+ */
+@Component
+@Order(3)
+public class IsicToAocMappingTool implements ToolHandler {
+
+    private final ObjectMapper objectMapper;
+    private final IsicAocLookup isicAocLookup;
+    private final ObjectNode schema = ToolHandler.loadSchema(getClass(), "schemas/isic-to-aoc-schema.json");
+
+    public IsicToAocMappingTool(ObjectMapper objectMapper, IsicAocLookup isicAocLookup) {
+        this.objectMapper = objectMapper;
+        this.isicAocLookup = isicAocLookup;
+    }
+
+    @Override
+    public String name() {
+        return "isicToAocMapping";
+    }
+
+    @Override
+    public String title() {
+        return "ISIC to AOC Mapping";
+    }
+
+    @Override
+    public String description() {
+        return "Converts ISIC code to AOC code";
+    }
+
+    @Override
+    public ObjectNode schema() {
+        return schema;
+    }
+
+    @Override
+    public ResponseEntity<JsonNode> execute(JsonNode input) {
+        ObjectNode responseNode = objectMapper.createObjectNode();
+
+        // Extract ISIC code from input
+        String isicCode = input.get("isicCode").asText();
+        boolean hierarchical = input.path("hierarchical").asBoolean(false);
+
+        // Convert ISIC to AOC
+        IsicAocLookup.Match match = isicAocLookup.resolve(isicCode, hierarchical);
+        if (match == null) {
+            responseNode.put("error", "ISIC code '" + isicCode + "' not found.");
+            return ResponseEntity.badRequest().body(responseNode);
+        }
+
+        match.writeTo(responseNode, hierarchical);
+        return ResponseEntity.ok(responseNode);
+    }
+}
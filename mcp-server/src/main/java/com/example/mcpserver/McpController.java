@@ -2,176 +2,536 @@ package com.example.mcpserver;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
 import com.fasterxml.jackson.databind.node.ObjectNode;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.core.io.Resource;
-import org.springframework.core.io.ResourceLoader;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.FilterOutputStream;
 import java.io.IOException;
-import java.util.HashMap;
-import java.util.Map;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 
 @RestController
 @RequestMapping("/mcp")
 public class McpController {
 
     private final ObjectMapper objectMapper;
-    private final ResourceLoader resourceLoader;
+    private final ToolRegistry toolRegistry;
+    private final ExecutorService toolExecutor;
+    private final IsicAocLookup isicAocLookup;
+    private final MeterRegistry meterRegistry;
+    private final SubmissionOutbox submissionOutbox;
 
-    @Value("${submission.intake.url}")
-    private String submissionIntakeUrl;
+    private static final String NDJSON_VALUE = "application/x-ndjson";
+    // Length of ,"metadata":{}} closing a streamed response
+    private static final int EMPTY_METADATA_LENGTH = 15;
+    private static final MediaType NDJSON = MediaType.parseMediaType(NDJSON_VALUE);
 
-    // Store tool definitions in a map for easy access
-    private final Map<String, ObjectNode> tools = new HashMap<>();
+    @Value("${mcp.batch.max-items:1000}")
+    private int maxBatchSize;
 
-    // ISIC to AOC mapping (simplified for demonstration)
-    private final Map<String, String> isicToAocMapping = new HashMap<>();
+    @Value("${mcp.validation.enabled:true}")
+    private boolean validationEnabled;
 
-    public McpController(ObjectMapper objectMapper, ResourceLoader resourceLoader) {
+    @Value("${mcp.execute.stream.buffer-size:65536}")
+    private int streamBufferSize;
+
+    public McpController(ObjectMapper objectMapper, ToolRegistry toolRegistry,
+                         @Qualifier("toolExecutor") ExecutorService toolExecutor, IsicAocLookup isicAocLookup,
+                         MeterRegistry meterRegistry, SubmissionOutbox submissionOutbox) {
         this.objectMapper = objectMapper;
-        this.resourceLoader = resourceLoader;
-        initTools(); // Initialize tools on startup
-        initIsicToAocMapping(); // Initialize ISIC to AOC mapping
+        this.toolRegistry = toolRegistry;
+        this.toolExecutor = toolExecutor;
+        this.isicAocLookup = isicAocLookup;
+        this.meterRegistry = meterRegistry;
+        this.submissionOutbox = submissionOutbox;
     }
 
-    private void initTools() {
-        try {
-            // Load "submissionIntake" tool
-            ObjectNode submissionIntake = objectMapper.createObjectNode();
-            submissionIntake.put("description", "Handles new submission requests");
-            submissionIntake.put("title", "Submission Intake");
-            submissionIntake.set("schema", loadSchema("schemas/submission-intake-schema.json"));
-            tools.put("submissionIntake", submissionIntake);
-
-            // Load "simpleTool" tool
-            ObjectNode simpleTool = objectMapper.createObjectNode();
-            simpleTool.put("description", "A very simple tool for demonstration");
-            simpleTool.put("title", "Simple Tool");
-            simpleTool.set("schema", loadSchema("schemas/simple-tool-schema.json"));
-            tools.put("simpleTool", simpleTool);
-
-            // Load "isicToAocMapping" tool
-            ObjectNode isicToAocTool = objectMapper.createObjectNode();
-            isicToAocTool.put("description", "Converts ISIC code to AOC code");
-            isicToAocTool.put("title", "ISIC to AOC Mapping");
-            isicToAocTool.set("schema", loadSchema("schemas/isic-to-aoc-schema.json"));
-            tools.put("isicToAocMapping", isicToAocTool);
+    @GetMapping("/tools")
+    public ResponseEntity<byte[]> getTools(
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch,
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding) {
+        ToolCatalogSnapshot snapshot = toolRegistry.catalog();
+        // Serve the pre-compressed body when the client accepts gzip; it has its own ETag
+        boolean gzip = ToolCatalogSnapshot.acceptsGzip(acceptEncoding);
+        String etag = gzip ? snapshot.gzipEtag() : snapshot.etag();
+        if (snapshot.matches(ifNoneMatch)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                    .eTag(etag)
+                    .varyBy(HttpHeaders.ACCEPT_ENCODING)
+                    .build();
+        }
 
-        } catch (IOException e) {
-            throw new RuntimeException("Error loading schemas", e);
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+                .eTag(etag)
+                .cacheControl(CacheControl.noCache())
+                .varyBy(HttpHeaders.ACCEPT_ENCODING)
+                .contentType(MediaType.APPLICATION_JSON);
+        if (gzip) {
+            return response.header(HttpHeaders.CONTENT_ENCODING, "gzip").body(snapshot.gzip());
         }
+        return response.body(snapshot.json());
     }
 
-    private void initIsicToAocMapping() {
-        // Simplified mapping for demonstration
-        isicToAocMapping.put("123456789", "AOC123");
-        isicToAocMapping.put("987654321", "AOC456");
+    /**
+     * Rescans the tool plugin directory, so new or upgraded tools are served without a redeploy.
+     */
+    @PostMapping("/tools/reload")
+    public ResponseEntity<JsonNode> reloadTools() {
+        ObjectNode responseNode = objectMapper.createObjectNode();
+        ArrayNode tools = responseNode.putArray("tools");
+        toolRegistry.reloadPlugins().forEach(tools::add);
+        responseNode.put("etag", toolRegistry.catalog().etag());
+        return ResponseEntity.ok(responseNode);
     }
 
-    private ObjectNode loadSchema(String schemaFilePath) throws IOException {
-        Resource schemaResource = resourceLoader.getResource("classpath:" + schemaFilePath);
-        return (ObjectNode) objectMapper.readTree(schemaResource.getInputStream());
+    /**
+     * Executes a tool. The request is read with a streaming parser: if it names the tool before
+     * the input and the tool is a {@link StreamingToolHandler}, the input goes to the tool as it
+     * is read and the response is written as it is produced, so large submissions are never
+     * held in memory. Otherwise the input is read as a tree and executed as before.
+     */
+    @PostMapping(value = "/execute", consumes = MediaType.APPLICATION_JSON_VALUE)
+    public void execute(HttpServletRequest request, HttpServletResponse response) throws IOException {
+        String tool = null;
+        JsonNode input = null;
+        try (JsonParser parser = objectMapper.createParser(request.getInputStream())) {
+            if (parser.nextToken() == JsonToken.START_OBJECT) {
+                while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                    String field = parser.currentName();
+                    parser.nextToken();
+                    if (field.equals("tool")) {
+                        tool = parser.getValueAsString();
+                    } else if (field.equals("input")) {
+                        if (tool != null && toolRegistry.get(tool) instanceof StreamingToolHandler handler) {
+                            executeStreaming(handler, parser, response);
+                            return;
+                        }
+                        input = parser.readValueAsTree();
+                    } else {
+                        parser.skipChildren();
+                    }
+                }
+            }
+        } catch (JsonProcessingException e) {
+            write(response, badRequest("Malformed JSON request: " + e.getOriginalMessage()));
+            return;
+        }
+
+        // Basic validation
+        if (tool == null || input == null) {
+            write(response, badRequest("Invalid request format. Expected 'tool' and 'input' fields."));
+            return;
+        }
+        write(response, executeTool(tool, input));
     }
 
-    @GetMapping("/tools")
-    public ResponseEntity<JsonNode> getTools() {
-        return ResponseEntity.ok(objectMapper.valueToTree(tools));
+    /**
+     * Executes a batch of tool invocations in parallel on the bounded tool executor.
+     * <p>
+     * The request body is an array of {@code {tool, input}} objects and the response is an array
+     * of per-item results in request order. Every result carries the item's index, its HTTP
+     * status and the body a single /execute call would have returned.
+     */
+    @PostMapping(value = "/execute/batch", produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<JsonNode> executeBatch(@RequestBody JsonNode requests) {
+        ResponseEntity<JsonNode> invalid = validateBatch(requests);
+        if (invalid != null) {
+            return invalid;
+        }
+
+        List<Future<ObjectNode>> futures = new ArrayList<>(requests.size());
+        for (int i = 0; i < requests.size(); i++) {
+            int index = i;
+            futures.add(toolExecutor.submit(() -> executeBatchItem(index, requests.get(index))));
+        }
+        ArrayNode results = objectMapper.createArrayNode();
+        for (Future<ObjectNode> future : futures) {
+            results.add(awaitResult(future));
+        }
+        return ResponseEntity.ok(results);
     }
 
-    @PostMapping("/execute")
-    public ResponseEntity<JsonNode> execute(@RequestBody JsonNode request) {
-        ObjectNode responseNode = objectMapper.createObjectNode();
+    /**
+     * NDJSON variant of the batch endpoint: each result is streamed as its own line as soon as
+     * it finishes, so results arrive in completion order rather than request order.
+     */
+    @PostMapping(value = "/execute/batch", produces = NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> executeBatchStreaming(@RequestBody JsonNode requests) {
+        ResponseEntity<JsonNode> invalid = validateBatch(requests);
+        if (invalid != null) {
+            byte[] error = toBytes(invalid.getBody());
+            return ResponseEntity.status(invalid.getStatusCode()).contentType(NDJSON).body(out -> out.write(error));
+        }
+        return ResponseEntity.ok().contentType(NDJSON).body(out -> streamBatch(requests, out));
+    }
 
-        // Basic validation
-        if (!request.has("tool") || !request.has("input")) {
-            responseNode.put("error", "Invalid request format. Expected 'tool' and 'input' fields.");
+    private ResponseEntity<JsonNode> validateBatch(JsonNode requests) {
+        ObjectNode responseNode = objectMapper.createObjectNode();
+        if (!requests.isArray()) {
+            responseNode.put("error", "Invalid request format. Expected an array of 'tool' and 'input' objects.");
             return ResponseEntity.badRequest().body(responseNode);
         }
+        if (requests.size() > maxBatchSize) {
+            responseNode.put("error", "Batch too large. At most " + maxBatchSize + " items are allowed.");
+            return ResponseEntity.status(HttpStatus.PAYLOAD_TOO_LARGE).body(responseNode);
+        }
+        return null;
+    }
 
-        String tool = request.get("tool").asText();
-        JsonNode input = request.get("input");
-
-        if (tools.containsKey(tool)) {
-            // Tool-specific logic here
-            if ("submissionIntake".equals(tool)) {
-                // Extract data from the input (according to submission-intake-schema.json)
-                JsonNode submission = input.get("submission");
-                JsonNode submissionGeneralInfo = submission.get("submissionGeneralInfo");
-                JsonNode intermediaries = submission.get("intermediaries");
-
-                String submissionDescription = submissionGeneralInfo.get("submissionDescription").asText();
-                String underWritingYear = submissionGeneralInfo.get("underWritingYear").asText();
-                JsonNode inceptionDate = submissionGeneralInfo.get("inceptionDate");
-                JsonNode expiryDate = submissionGeneralInfo.get("expiryDate");
-
-                // Create a response (simulated)
-                ObjectNode submissionResponse = objectMapper.createObjectNode();
-                ObjectNode submissionGeneralInfoResponse = submissionResponse.putObject("submissionGeneralInfo");
-                submissionGeneralInfoResponse.put("submissionDescription", submissionDescription);
-                submissionGeneralInfoResponse.put("underWritingYear", underWritingYear);
-                submissionGeneralInfoResponse.set("inceptionDate", inceptionDate);
-                submissionGeneralInfoResponse.set("expiryDate", expiryDate);
-                submissionResponse.set("intermediaries", intermediaries);
-
-                responseNode.set("submission", submissionResponse);
-
-                ObjectNode metadataNode = objectMapper.createObjectNode();
-                metadataNode.put("executionTime", 123);
-                metadataNode.put("responseSize", 456);
-                responseNode.set("metadata", metadataNode);
-
-                return ResponseEntity.ok(responseNode);
-
-            } else if ("simpleTool".equals(tool)) {
-                // Extract data from input (according to simple-tool-schema.json)
-                String toolInput = input.get("toolInput").asText();
-
-                // Create a simple response
-                responseNode.put("toolOutput", "Processed: " + toolInput);
-                return ResponseEntity.ok(responseNode);
-
-            } else if ("isicToAocMapping".equals(tool)) {
-                // Extract ISIC code from input
-                String isicCode = input.get("isicCode").asText();
-
-                // Convert ISIC to AOC
-                if (isicToAocMapping.containsKey(isicCode)) {
-                    String aocCode = isicToAocMapping.get(isicCode);
-                    responseNode.put("aocCode", aocCode);
-                    return ResponseEntity.ok(responseNode);
-                } else {
-                    responseNode.put("error", "ISIC code '" + isicCode + "' not found.");
-                    return ResponseEntity.badRequest().body(responseNode);
-                }
+    private byte[] toBytes(JsonNode node) {
+        try {
+            return objectMapper.writeValueAsBytes(node);
+        } catch (IOException e) {
+            throw new IllegalStateException("Error serializing response", e);
+        }
+    }
 
-            } else {
-                // Should not happen due to the tools.containsKey check, but handle it anyway
-                responseNode.put("error", "Tool '" + tool + "' not found.");
-                return ResponseEntity.badRequest().body(responseNode);
+    /**
+     * Writes batch results as NDJSON in completion order.
+     */
+    private void streamBatch(JsonNode requests, OutputStream out) throws IOException {
+        CompletionService<ObjectNode> completionService = new ExecutorCompletionService<>(toolExecutor);
+        for (int i = 0; i < requests.size(); i++) {
+            int index = i;
+            completionService.submit(() -> executeBatchItem(index, requests.get(index)));
+        }
+        for (int i = 0; i < requests.size(); i++) {
+            ObjectNode result;
+            try {
+                result = awaitResult(completionService.take());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException("Interrupted while streaming batch results", e);
             }
+            out.write(objectMapper.writeValueAsBytes(result));
+            out.write('\n');
+            out.flush();
+        }
+    }
 
+    private ObjectNode executeBatchItem(int index, JsonNode request) {
+        ObjectNode result = objectMapper.createObjectNode();
+        result.put("index", index);
+
+        ResponseEntity<JsonNode> response;
+        if (!request.isObject() || !request.has("tool") || !request.has("input")) {
+            ObjectNode responseNode = objectMapper.createObjectNode();
+            responseNode.put("error", "Invalid request format. Expected 'tool' and 'input' fields.");
+            response = ResponseEntity.badRequest().body(responseNode);
         } else {
+            try {
+                response = executeTool(request.get("tool").asText(), request.get("input"));
+            } catch (Exception e) {
+                ObjectNode responseNode = objectMapper.createObjectNode();
+                responseNode.put("error", "Tool execution failed: " + e);
+                response = ResponseEntity.internalServerError().body(responseNode);
+            }
+        }
+
+        result.put("status", response.getStatusCode().value());
+        result.set("response", response.getBody());
+        return result;
+    }
+
+    private ObjectNode awaitResult(Future<ObjectNode> future) {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for batch results", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Batch item failed", e.getCause());
+        }
+    }
+
+    private ResponseEntity<JsonNode> executeTool(String tool, JsonNode input) {
+        ToolHandler handler = toolRegistry.get(tool);
+        if (handler == null) {
+            ObjectNode responseNode = objectMapper.createObjectNode();
             responseNode.put("error", "Tool '" + tool + "' not found.");
             return ResponseEntity.badRequest().body(responseNode);
         }
+
+        // Reject inputs that don't match the tool's schema before the handler dereferences them
+        if (validationEnabled) {
+            List<SchemaViolation> violations = toolRegistry.validate(tool, input);
+            if (!violations.isEmpty()) {
+                ObjectNode responseNode = objectMapper.createObjectNode();
+                responseNode.put("error", "Input for tool '" + tool + "' does not match its schema.");
+                responseNode.set("violations", objectMapper.valueToTree(violations));
+                return ResponseEntity.badRequest().body(responseNode);
+            }
+        }
+
+        long start = System.nanoTime();
+        ResponseEntity<JsonNode> response;
+        try {
+            response = handler.execute(input);
+        } catch (RuntimeException e) {
+            executionTimer(tool, "error").record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            throw e;
+        }
+        long elapsed = System.nanoTime() - start;
+        executionTimer(tool, response.getStatusCode().is2xxSuccessful() ? "success" : "failure")
+                .record(elapsed, TimeUnit.NANOSECONDS);
+        fillMetadata(tool, response.getBody(), elapsed);
+        return response;
+    }
+
+    /**
+     * Streams a tool execution into the response. Input errors found before the response buffer
+     * ({@code mcp.execute.stream.buffer-size}) fills are answered with 400 as usual; after that
+     * the response has been committed, and the connection is aborted instead. The execution time
+     * covers reading the input and writing the response, which are interleaved with the work.
+     */
+    private void executeStreaming(StreamingToolHandler handler, JsonParser input, HttpServletResponse response)
+            throws IOException {
+        String tool = handler.name();
+        response.setBufferSize(streamBufferSize);
+        response.setStatus(handler.successStatus().value());
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        CountingOutputStream out = new CountingOutputStream(response.getOutputStream());
+        // Not closed on failure, so nothing buffered in the generator reaches the response
+        JsonGenerator output = objectMapper.createGenerator(out).disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+
+        long start = System.nanoTime();
+        try {
+            output.writeStartObject();
+            handler.execute(input, output, validationEnabled);
+            output.flush();
+        } catch (InvalidToolInputException | JsonProcessingException e) {
+            executionTimer(tool, "failure").record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            if (response.isCommitted()) {
+                throw new IOException("Invalid input for tool '" + tool + "' after the response was committed", e);
+            }
+            response.resetBuffer();
+            ObjectNode responseNode = objectMapper.createObjectNode();
+            if (e instanceof InvalidToolInputException invalid) {
+                responseNode.put("error", "Input for tool '" + tool + "' does not match its schema.");
+                responseNode.set("violations", objectMapper.valueToTree(invalid.violations()));
+            } else {
+                responseNode.put("error", "Malformed JSON request: " + ((JsonProcessingException) e).getOriginalMessage());
+            }
+            write(response, ResponseEntity.badRequest().body(responseNode));
+            return;
+        } catch (ToolUnavailableException e) {
+            executionTimer(tool, "failure").record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            if (response.isCommitted()) {
+                throw new IOException("Tool '" + tool + "' unavailable after the response was committed", e);
+            }
+            response.resetBuffer();
+            ObjectNode responseNode = objectMapper.createObjectNode();
+            responseNode.put("error", e.getMessage());
+            write(response, ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body(responseNode));
+            return;
+        } catch (RuntimeException e) {
+            executionTimer(tool, "error").record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            throw e;
+        }
+        long elapsed = System.nanoTime() - start;
+        executionTimer(tool, "success").record(elapsed, TimeUnit.NANOSECONDS);
+
+        // As for tree responses, the size counts an empty metadata object
+        long responseSize = out.count() + EMPTY_METADATA_LENGTH;
+        recordResponseSize(tool, responseSize);
+        output.writeObjectFieldStart("metadata");
+        output.writeNumberField("executionTime", TimeUnit.NANOSECONDS.toMicros(elapsed) / 1000.0);
+        output.writeNumberField("responseSize", responseSize);
+        output.writeEndObject();
+        output.writeEndObject();
+        output.close();
+    }
+
+    private ResponseEntity<JsonNode> badRequest(String error) {
+        ObjectNode responseNode = objectMapper.createObjectNode();
+        responseNode.put("error", error);
+        return ResponseEntity.badRequest().body(responseNode);
+    }
+
+    private void write(HttpServletResponse response, ResponseEntity<JsonNode> entity) throws IOException {
+        response.setStatus(entity.getStatusCode().value());
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        objectMapper.writeValue(response.getOutputStream(), entity.getBody());
+    }
+
+    private Timer executionTimer(String tool, String outcome) {
+        return Timer.builder("mcp.tool.execution")
+                .description("Tool handler execution time")
+                .tag("tool", tool)
+                .tag("outcome", outcome)
+                .register(meterRegistry);
+    }
+
+    /**
+     * Replaces the {@code metadata} object of a tool response with the measured execution time
+     * and the size of the serialized response without the metadata.
+     */
+    private void fillMetadata(String tool, JsonNode body, long elapsedNanos) {
+        if (body == null || !body.path("metadata").isObject()) {
+            return;
+        }
+        ObjectNode metadata = (ObjectNode) body.get("metadata");
+        metadata.removeAll();
+        int responseSize = toBytes(body).length;
+        recordResponseSize(tool, responseSize);
+        // Milliseconds with microsecond precision; most tools finish in well under a millisecond
+        metadata.put("executionTime", TimeUnit.NANOSECONDS.toMicros(elapsedNanos) / 1000.0);
+        metadata.put("responseSize", responseSize);
+    }
+
+    private void recordResponseSize(String tool, long responseSize) {
+        DistributionSummary.builder("mcp.tool.response.size")
+                .baseUnit("bytes")
+                .tag("tool", tool)
+                .register(meterRegistry)
+                .record(responseSize);
+    }
+
+    /**
+     * Counts the bytes written through it.
+     */
+    private static final class CountingOutputStream extends FilterOutputStream {
+        private long count;
+
+        CountingOutputStream(OutputStream out) {
+            super(out);
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            out.write(b);
+            count++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len);
+            count += len;
+        }
+
+        long count() {
+            return count;
+        }
+    }
+
+    /**
+     * Delivery state of a submission accepted by the submission intake tool.
+     */
+    @GetMapping("/submissions/{trackingId}")
+    public ResponseEntity<JsonNode> getSubmission(@PathVariable String trackingId) {
+        SubmissionOutbox.Status status = submissionOutbox.status(trackingId);
+        if (status == null) {
+            ObjectNode responseNode = objectMapper.createObjectNode();
+            responseNode.put("error", "Submission '" + trackingId + "' not found.");
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(responseNode);
+        }
+        return ResponseEntity.ok(objectMapper.valueToTree(status));
     }
 
     @GetMapping("/isicToAoc")
-    public ResponseEntity<JsonNode> convertIsicToAoc(@RequestParam("isicCode") String isicCode) {
+    public ResponseEntity<JsonNode> convertIsicToAoc(@RequestParam("isicCode") String isicCode,
+                                                     @RequestParam(value = "hierarchical", defaultValue = "false") boolean hierarchical) {
         ObjectNode responseNode = objectMapper.createObjectNode();
 
-        if (!isicToAocMapping.containsKey(isicCode)) {
+        IsicAocLookup.Match match = isicAocLookup.resolve(isicCode, hierarchical);
+        if (match == null) {
             responseNode.put("error", "ISIC code '" + isicCode + "' not found.");
             return ResponseEntity.badRequest().body(responseNode);
         }
 
-        String aocCode = isicToAocMapping.get(isicCode);
-        responseNode.put("aocCode", aocCode);
+        match.writeTo(responseNode, hierarchical);
+        return ResponseEntity.ok(responseNode);
+    }
+
+    /**
+     * Looks up many ISIC codes in one call, e.g. {@code ?isicCode=0111,4711&hierarchical=true}.
+     */
+    @GetMapping("/isicToAoc/batch")
+    public ResponseEntity<JsonNode> convertIsicToAocBatch(@RequestParam("isicCode") List<String> isicCodes,
+                                                          @RequestParam(value = "hierarchical", defaultValue = "false") boolean hierarchical) {
+        return lookupBatch(isicCodes, hierarchical);
+    }
+
+    /**
+     * Looks up many ISIC codes in one call. Expects {@code {"isicCodes": [...], "hierarchical": true}}.
+     */
+    @PostMapping("/isicToAoc/batch")
+    public ResponseEntity<JsonNode> convertIsicToAocBatch(@RequestBody JsonNode request) {
+        JsonNode codes = request.get("isicCodes");
+        if (codes == null || !codes.isArray()) {
+            ObjectNode responseNode = objectMapper.createObjectNode();
+            responseNode.put("error", "Invalid request format. Expected an 'isicCodes' array.");
+            return ResponseEntity.badRequest().body(responseNode);
+        }
+
+        List<String> isicCodes = new ArrayList<>(codes.size());
+        codes.forEach(code -> isicCodes.add(code.asText()));
+        return lookupBatch(isicCodes, request.path("hierarchical").asBoolean(false));
+    }
+
+    /**
+     * Resolves every code and returns one result per code, in request order. Missing codes
+     * are reported per result rather than failing the whole request.
+     */
+    private ResponseEntity<JsonNode> lookupBatch(List<String> isicCodes, boolean hierarchical) {
+        ObjectNode responseNode = objectMapper.createObjectNode();
+        if (isicCodes.size() > maxBatchSize) {
+            responseNode.put("error", "Batch too large. At most " + maxBatchSize + " codes are allowed.");
+            return ResponseEntity.status(HttpStatus.PAYLOAD_TOO_LARGE).body(responseNode);
+        }
+
+        ArrayNode results = responseNode.putArray("results");
+        int found = 0;
+        for (String isicCode : isicCodes) {
+            ObjectNode result = results.addObject();
+            result.put("isicCode", isicCode);
+            IsicAocLookup.Match match = isicAocLookup.resolve(isicCode, hierarchical);
+            if (match != null) {
+                match.writeTo(result, true);
+                found++;
+            } else {
+                result.put("error", "ISIC code '" + isicCode + "' not found.");
+            }
+        }
+        responseNode.put("found", found);
+        responseNode.put("missing", isicCodes.size() - found);
+        return ResponseEntity.ok(responseNode);
+    }
+
+    /**
+     * Rebuilds the ISIC to AOC index from the reference CSV and swaps it in.
+     */
+    @PostMapping("/isicToAoc/reload")
+    public ResponseEntity<JsonNode> reloadIsicToAoc() {
+        ObjectNode responseNode = objectMapper.createObjectNode();
+        responseNode.put("codes", isicAocLookup.reload());
         return ResponseEntity.ok(responseNode);
     }
 }
\ No newline at end of file
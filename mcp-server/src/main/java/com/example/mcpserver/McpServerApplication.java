@@ -8,10 +8,15 @@ import org.springframework.web.bind.annotation.*;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.node.ObjectNode;
+import io.micrometer.context.ContextExecutorService;
+import io.micrometer.context.ContextSnapshotFactory;
 import org.springframework.beans.factory.annotation.Value; // Import for @Value
+import org.springframework.context.annotation.Bean;
 import java.io.IOException;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 @SpringBootApplication
 public class McpServerApplication {
@@ -19,4 +24,14 @@ public class McpServerApplication {
     public static void main(String[] args) {
         SpringApplication.run(McpServerApplication.class, args);
     }
-}
\ No newline at end of file
+
+    /**
+     * Bounded pool for executing tool invocations from batch requests. Tasks carry the request's
+     * observation context, so batch items are traced under the batch request.
+     */
+    @Bean(destroyMethod = "shutdown")
+    public ExecutorService toolExecutor(@Value("${mcp.batch.parallelism:8}") int parallelism) {
+        ContextSnapshotFactory snapshots = ContextSnapshotFactory.builder().build();
+        return ContextExecutorService.wrap(Executors.newFixedThreadPool(parallelism), snapshots::captureAll);
+    }
+}
@@ -0,0 +1,31 @@
+package com.example.mcpserver;
+
+import com.networknt.schema.ValidationMessage;
+
+import java.io.Serializable;
+
+/**
+ * A JSON schema violation in a tool input: the JSON path of the offending field, the schema
+ * keyword that failed (e.g. {@code required}, {@code type}) and a readable message.
+ */
+public record SchemaViolation(String path, String keyword, String message) implements Serializable {
+
+    static SchemaViolation from(ValidationMessage message) {
+        String path = message.getPath();
+        // For a missing property the validator reports the parent object; point at the property itself
+        String[] arguments = message.getArguments();
+        if ("required".equals(message.getType()) && arguments != null && arguments.length > 0) {
+            path = path + "." + arguments[0];
+        }
+        return new SchemaViolation(path, message.getType(), message.getMessage());
+    }
+
+    /**
+     * Moves a violation found in a part of the input validated on its own, such as one array
+     * element, to the path of that part in the whole input.
+     */
+    SchemaViolation under(String prefix) {
+        return new SchemaViolation(prefix + path.substring(1), keyword,
+                message.startsWith("$") ? prefix + message.substring(1) : message);
+    }
+}
@@ -0,0 +1,55 @@
+package com.example.mcpserver;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+
+/**
+ * A very simple tool for demonstration.
+ */
+@Component
+@Order(2)
+public class SimpleTool implements ToolHandler {
+
+    private final ObjectMapper objectMapper;
+    private final ObjectNode schema = ToolHandler.loadSchema(getClass(), "schemas/simple-tool-schema.json");
+
+    public SimpleTool(ObjectMapper objectMapper) {
+        this.objectMapper = objectMapper;
+    }
+
+    @Override
+    public String name() {
+        return "simpleTool";
+    }
+
+    @Override
+    public String title() {
+        return "Simple Tool";
+    }
+
+    @Override
+    public String description() {
+        return "A very simple tool for demonstration";
+    }
+
+    @Override
+    public ObjectNode schema() {
+        return schema;
+    }
+
+    @Override
+    public ResponseEntity<JsonNode> execute(JsonNode input) {
+        ObjectNode responseNode = objectMapper.createObjectNode();
+
+        // Extract data from input (according to simple-tool-schema.json)
+        String toolInput = input.get("toolInput").asText();
+
+        // Create a simple response
+        responseNode.put("toolOutput", "Processed: " + toolInput);
+        return ResponseEntity.ok(responseNode);
+    }
+}
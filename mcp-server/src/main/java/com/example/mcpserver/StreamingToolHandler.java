@@ -0,0 +1,36 @@
+package com.example.mcpserver;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import org.springframework.http.HttpStatus;
+
+import java.io.IOException;
+
+/**
+ * A tool that reads its input and writes its response incrementally, so that large inputs are
+ * never held in memory as a whole.
+ * <p>
+ * /mcp/execute streams a request to the tool when the request names the tool before its input.
+ * Otherwise, and in batches, the tool runs on a tree through {@link #execute(com.fasterxml.jackson.databind.JsonNode)},
+ * which must produce the same response.
+ */
+public interface StreamingToolHandler extends ToolHandler {
+
+    /**
+     * Status of a successful streamed response, the same as the tree-based execution returns.
+     */
+    default HttpStatus successStatus() {
+        return HttpStatus.OK;
+    }
+
+    /**
+     * Executes the tool on the input value at the parser's current token, writing the fields of
+     * the response object as it goes. The server opens and closes the object and adds the
+     * {@code metadata}.
+     *
+     * @param validate whether to check the input against the tool schema while reading it
+     * @throws InvalidToolInputException if the input does not match the schema
+     * @throws ToolUnavailableException if the tool cannot take the request now
+     */
+    void execute(JsonParser input, JsonGenerator output, boolean validate) throws IOException;
+}
@@ -0,0 +1,245 @@
+package com.example.mcpserver;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.io.FileNotFoundException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Delivers submissions from the {@link SubmissionOutbox} to the downstream intake at
+ * {@code submission.intake.url}.
+ * <p>
+ * Deliveries run on a non-blocking, pooled {@link HttpClient}: no request thread ever waits on
+ * the intake, and at most {@code submission.intake.max-concurrency} deliveries are in flight.
+ * Submissions wait in a queue for a free slot, and their payload is streamed from the outbox
+ * file rather than held in memory.
+ * <p>
+ * Every delivery carries the tracking ID as {@code Idempotency-Key}, the same on every attempt
+ * and after a restart, so the intake can discard duplicates. Connection errors, timeouts, 408,
+ * 425, 429 and 5xx responses are retried, without limit, after an exponential backoff with
+ * jitter capped at {@code submission.intake.retry.max-backoff}; a longer {@code Retry-After} is
+ * honoured. Any other response is final: 2xx delivers the submission, other 4xx reject it.
+ */
+@Component
+public class SubmissionForwarder {
+
+    private static final Logger log = LoggerFactory.getLogger(SubmissionForwarder.class);
+
+    // Longest error response body kept as the submission's last error
+    private static final int MAX_ERROR_LENGTH = 200;
+
+    private final SubmissionOutbox outbox;
+    private final URI intakeUrl;
+    private final Duration requestTimeout;
+    private final long initialBackoffMillis;
+    private final long maxBackoffMillis;
+    private final int maxConcurrency;
+    private final HttpClient httpClient;
+    private final MeterRegistry meterRegistry;
+    private final Timer deliveryTimer;
+
+    private final Queue<String> ready = new ConcurrentLinkedQueue<>();
+    // Dispatches queued submissions and schedules retries; confined to its single thread
+    private final ScheduledExecutorService scheduler;
+    private int inFlight;
+
+    public SubmissionForwarder(SubmissionOutbox outbox, MeterRegistry meterRegistry,
+                               @Value("${submission.intake.url}") String intakeUrl,
+                               @Value("${submission.intake.max-concurrency:16}") int maxConcurrency,
+                               @Value("${submission.intake.connect-timeout:5s}") Duration connectTimeout,
+                               @Value("${submission.intake.request-timeout:30s}") Duration requestTimeout,
+                               @Value("${submission.intake.retry.initial-backoff:1s}") Duration initialBackoff,
+                               @Value("${submission.intake.retry.max-backoff:5m}") Duration maxBackoff) {
+        this.outbox = outbox;
+        this.meterRegistry = meterRegistry;
+        this.intakeUrl = URI.create(intakeUrl);
+        this.maxConcurrency = maxConcurrency;
+        this.requestTimeout = requestTimeout;
+        this.initialBackoffMillis = initialBackoff.toMillis();
+        this.maxBackoffMillis = maxBackoff.toMillis();
+        this.httpClient = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(connectTimeout)
+                .build();
+        this.deliveryTimer = Timer.builder("mcp.submission.delivery")
+                .description("Time of one delivery attempt to the submission intake")
+                .register(meterRegistry);
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "submission-forwarder");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Queues the submissions found pending at startup, once the application is ready rather
+     * than while the context is still being built.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        forwardAll(outbox.recovered());
+    }
+
+    /**
+     * Queues a committed submission for delivery.
+     */
+    public void forward(String trackingId) {
+        forwardAll(List.of(trackingId));
+    }
+
+    private void forwardAll(List<String> trackingIds) {
+        ready.addAll(trackingIds);
+        try {
+            scheduler.execute(this::dispatch);
+        } catch (RejectedExecutionException e) {
+            // Shutting down; the submissions are sent after a restart
+            log.debug("{} submissions queued during shutdown", trackingIds.size());
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        // Undelivered submissions stay in the outbox and are sent again after a restart
+        scheduler.shutdownNow();
+    }
+
+    private void dispatch() {
+        while (inFlight < maxConcurrency) {
+            String trackingId = ready.poll();
+            if (trackingId == null) {
+                return;
+            }
+            send(trackingId);
+        }
+    }
+
+    private void send(String trackingId) {
+        HttpRequest request;
+        try {
+            request = HttpRequest.newBuilder(intakeUrl)
+                    .timeout(requestTimeout)
+                    .header("Content-Type", "application/json")
+                    .header("Idempotency-Key", trackingId)
+                    .POST(HttpRequest.BodyPublishers.ofFile(outbox.payload(trackingId)))
+                    .build();
+        } catch (FileNotFoundException e) {
+            log.error("Payload of submission {} is missing from the outbox; dropping it", trackingId);
+            outbox.rejected(trackingId, "Payload missing from the outbox");
+            return;
+        }
+
+        inFlight++;
+        long start = System.nanoTime();
+        httpClient.sendAsync(request, HttpResponse.BodyHandlers.ofString())
+                .whenComplete((response, error) -> {
+                    deliveryTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+                    completed(trackingId, response, error);
+                    scheduler.execute(() -> {
+                        inFlight--;
+                        dispatch();
+                    });
+                });
+    }
+
+    private void completed(String trackingId, HttpResponse<String> response, Throwable error) {
+        if (error != null) {
+            Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+            retry(trackingId, cause.toString(), 0);
+            return;
+        }
+        int status = response.statusCode();
+        if (status >= 200 && status < 300) {
+            log.debug("Delivered submission {}: {}", trackingId, status);
+            outbox.delivered(trackingId);
+            deliveries("delivered").increment();
+        } else if (status == 408 || status == 425 || status == 429 || status >= 500) {
+            retry(trackingId, "HTTP " + status + ": " + abbreviate(response.body()), retryAfterMillis(response));
+        } else {
+            log.error("Submission {} rejected by the intake: {} {}", trackingId, status, abbreviate(response.body()));
+            outbox.rejected(trackingId, "HTTP " + status + ": " + abbreviate(response.body()));
+            deliveries("rejected").increment();
+        }
+    }
+
+    private void retry(String trackingId, String error, long retryAfterMillis) {
+        if (scheduler.isShutdown()) {
+            // Failed because the server is stopping; the submission is sent again after a restart
+            return;
+        }
+        int attempts = outbox.attemptFailed(trackingId, error);
+        long delay = Math.max(backoffMillis(attempts), retryAfterMillis);
+        log.warn("Delivery of submission {} failed (attempt {}), retrying in {} ms: {}",
+                trackingId, attempts, delay, error);
+        deliveries("retried").increment();
+        try {
+            scheduler.schedule(() -> {
+                ready.add(trackingId);
+                dispatch();
+            }, delay, TimeUnit.MILLISECONDS);
+        } catch (RejectedExecutionException e) {
+            // Shutting down; the submission is sent again after a restart
+            log.debug("Retry of submission {} not scheduled", trackingId, e);
+        }
+    }
+
+    /**
+     * Exponential backoff with equal jitter: half the capped delay, plus a random share of the
+     * other half, so retries of many submissions after an outage spread out.
+     */
+    private long backoffMillis(int attempts) {
+        long cap = initialBackoffMillis << Math.min(Math.max(attempts - 1, 0), 30);
+        cap = Math.min(cap < 0 ? maxBackoffMillis : cap, maxBackoffMillis);
+        return cap / 2 + ThreadLocalRandom.current().nextLong(cap / 2 + 1);
+    }
+
+    /**
+     * {@code Retry-After} in seconds; HTTP dates are ignored.
+     */
+    private static long retryAfterMillis(HttpResponse<?> response) {
+        return response.headers().firstValue("Retry-After")
+                .map(value -> {
+                    try {
+                        return TimeUnit.SECONDS.toMillis(Long.parseLong(value.trim()));
+                    } catch (NumberFormatException e) {
+                        return 0L;
+                    }
+                })
+                .orElse(0L);
+    }
+
+    private Counter deliveries(String outcome) {
+        return Counter.builder("mcp.submission.deliveries")
+                .description("Delivery attempts to the submission intake")
+                .tag("outcome", outcome)
+                .register(meterRegistry);
+    }
+
+    private static String abbreviate(String body) {
+        if (body == null) {
+            return "";
+        }
+        return body.length() > MAX_ERROR_LENGTH ? body.substring(0, MAX_ERROR_LENGTH) + "..." : body;
+    }
+}
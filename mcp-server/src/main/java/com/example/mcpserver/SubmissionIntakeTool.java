@@ -0,0 +1,290 @@
+package com.example.mcpserver;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.networknt.schema.JsonSchema;
+import com.networknt.schema.JsonSchemaFactory;
+import com.networknt.schema.SpecVersion;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.util.List;
+
+/**
+ * Handles new submission requests.
+ * <p>
+ * Accepted submissions are written to the {@link SubmissionOutbox} and delivered to the
+ * downstream intake by the {@link SubmissionForwarder} in the background. The response is
+ * 202 with a {@code trackingId} for GET /mcp/submissions/{trackingId}, and echoes the
+ * submission as it will be delivered. A full outbox is answered with 503.
+ * <p>
+ * Streamed requests are read part by part: the general info is read as a tree, and the
+ * intermediaries are copied to the outbox token by token, or one element at a time when
+ * they are validated. Memory use therefore stays the same however many intermediaries a
+ * submission has, and other submission fields are skipped without being read into memory.
+ * The echo is read back from the outbox file, so nothing reaches the response before the
+ * whole input has been validated and stored.
+ */
+@Component
+@Order(1)
+public class SubmissionIntakeTool implements StreamingToolHandler {
+
+    private static final String GENERAL_INFO_PATH = "$.submission.submissionGeneralInfo";
+    private static final String OUTBOX_FULL = "Too many submissions awaiting delivery; retry later.";
+
+    private final ObjectMapper objectMapper;
+    private final SubmissionOutbox outbox;
+    private final SubmissionForwarder forwarder;
+    private final ObjectNode schema = ToolHandler.loadSchema(getClass(), "schemas/submission-intake-schema.json");
+
+    // The parts of the schema a streamed input is validated against, one part at a time
+    private final JsonSchema generalInfoSchema;
+    private final JsonSchema intermediarySchema;
+
+    public SubmissionIntakeTool(ObjectMapper objectMapper, SubmissionOutbox outbox, SubmissionForwarder forwarder) {
+        this.objectMapper = objectMapper;
+        this.outbox = outbox;
+        this.forwarder = forwarder;
+        JsonSchemaFactory schemaFactory = JsonSchemaFactory.getInstance(SpecVersion.VersionFlag.V7);
+        JsonNode submission = schema.at("/properties/submission/properties");
+        this.generalInfoSchema = schemaFactory.getSchema(submission.get("submissionGeneralInfo"));
+        this.intermediarySchema = schemaFactory.getSchema(submission.at("/intermediaries/items"));
+    }
+
+    @Override
+    public String name() {
+        return "submissionIntake";
+    }
+
+    @Override
+    public String title() {
+        return "Submission Intake";
+    }
+
+    @Override
+    public String description() {
+        return "Handles new submission requests";
+    }
+
+    @Override
+    public ObjectNode schema() {
+        return schema;
+    }
+
+    @Override
+    public ResponseEntity<JsonNode> execute(JsonNode input) {
+        ObjectNode responseNode = objectMapper.createObjectNode();
+
+        // Extract data from the input (according to submission-intake-schema.json)
+        JsonNode submission = input.get("submission");
+        JsonNode submissionGeneralInfo = submission.get("submissionGeneralInfo");
+        JsonNode intermediaries = submission.get("intermediaries");
+
+        String submissionDescription = submissionGeneralInfo.get("submissionDescription").asText();
+        String underWritingYear = submissionGeneralInfo.get("underWritingYear").asText();
+        JsonNode inceptionDate = submissionGeneralInfo.get("inceptionDate");
+        JsonNode expiryDate = submissionGeneralInfo.get("expiryDate");
+
+        // The submission as delivered to the intake
+        ObjectNode submissionResponse = objectMapper.createObjectNode();
+        ObjectNode submissionGeneralInfoResponse = submissionResponse.putObject("submissionGeneralInfo");
+        submissionGeneralInfoResponse.put("submissionDescription", submissionDescription);
+        submissionGeneralInfoResponse.put("underWritingYear", underWritingYear);
+        submissionGeneralInfoResponse.set("inceptionDate", inceptionDate);
+        submissionGeneralInfoResponse.set("expiryDate", expiryDate);
+        submissionResponse.set("intermediaries", intermediaries);
+
+        String trackingId;
+        try (SubmissionOutbox.Spool spool = outbox.open()) {
+            if (spool == null) {
+                responseNode.put("error", OUTBOX_FULL);
+                return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body(responseNode);
+            }
+            try (JsonGenerator payload = createGenerator(spool)) {
+                payload.writeStartObject();
+                payload.writePOJOField("submission", submissionResponse);
+                payload.writeEndObject();
+            }
+            spool.commit();
+            trackingId = spool.trackingId();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Error writing submission to the outbox", e);
+        }
+        forwarder.forward(trackingId);
+
+        responseNode.put("trackingId", trackingId);
+        responseNode.put("status", "accepted");
+        responseNode.set("submission", submissionResponse);
+
+        // Filled in with the measured execution time and response size by McpController
+        responseNode.putObject("metadata");
+
+        return ResponseEntity.accepted().body(responseNode);
+    }
+
+    @Override
+    public HttpStatus successStatus() {
+        return HttpStatus.ACCEPTED;
+    }
+
+    @Override
+    public void execute(JsonParser input, JsonGenerator output, boolean validate) throws IOException {
+        Path payload;
+        String trackingId;
+        try (SubmissionOutbox.Spool spool = outbox.open()) {
+            if (spool == null) {
+                throw new ToolUnavailableException(OUTBOX_FULL);
+            }
+            try (JsonGenerator generator = createGenerator(spool)) {
+                generator.writeStartObject();
+                writeInput(input, generator, validate);
+                generator.writeEndObject();
+            }
+            payload = spool.commit();
+            trackingId = spool.trackingId();
+        }
+
+        // Echo before forwarding: a delivered submission is removed from the outbox
+        try (JsonParser accepted = objectMapper.createParser(payload.toFile())) {
+            output.writeStringField("trackingId", trackingId);
+            output.writeStringField("status", "accepted");
+            accepted.nextToken();
+            while (accepted.nextToken() == JsonToken.FIELD_NAME) {
+                output.copyCurrentStructure(accepted);
+            }
+        } finally {
+            forwarder.forward(trackingId);
+        }
+    }
+
+    private JsonGenerator createGenerator(SubmissionOutbox.Spool spool) throws IOException {
+        // The spool commits or discards its file itself
+        return objectMapper.createGenerator(spool.output()).disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+    }
+
+    private void writeInput(JsonParser input, JsonGenerator output, boolean validate) throws IOException {
+        expect(input, JsonToken.START_OBJECT, "$");
+        boolean submission = false;
+        while (input.nextToken() == JsonToken.FIELD_NAME) {
+            String field = input.currentName();
+            input.nextToken();
+            if (field.equals("submission")) {
+                writeSubmission(input, output, validate);
+                submission = true;
+            } else {
+                input.skipChildren();
+            }
+        }
+        if (validate && !submission) {
+            throw missing("$", "submission");
+        }
+    }
+
+    private void writeSubmission(JsonParser input, JsonGenerator output, boolean validate) throws IOException {
+        expect(input, JsonToken.START_OBJECT, "$.submission");
+        output.writeObjectFieldStart("submission");
+        boolean generalInfo = false;
+        boolean intermediaries = false;
+        while (input.nextToken() == JsonToken.FIELD_NAME) {
+            String field = input.currentName();
+            input.nextToken();
+            switch (field) {
+                case "submissionGeneralInfo" -> {
+                    writeGeneralInfo(input, output, validate);
+                    generalInfo = true;
+                }
+                case "intermediaries" -> {
+                    writeIntermediaries(input, output, validate);
+                    intermediaries = true;
+                }
+                default -> input.skipChildren();
+            }
+        }
+        if (validate && !generalInfo) {
+            throw missing("$.submission", "submissionGeneralInfo");
+        }
+        if (validate && !intermediaries) {
+            throw missing("$.submission", "intermediaries");
+        }
+        output.writeEndObject();
+    }
+
+    private void writeGeneralInfo(JsonParser input, JsonGenerator output, boolean validate) throws IOException {
+        JsonNode generalInfo = input.readValueAsTree();
+        if (validate) {
+            validate(generalInfoSchema, generalInfo, GENERAL_INFO_PATH);
+        }
+        output.writeObjectFieldStart("submissionGeneralInfo");
+        output.writeStringField("submissionDescription", generalInfo.path("submissionDescription").asText());
+        output.writeStringField("underWritingYear", generalInfo.path("underWritingYear").asText());
+        output.writeFieldName("inceptionDate");
+        output.writeTree(generalInfo.get("inceptionDate"));
+        output.writeFieldName("expiryDate");
+        output.writeTree(generalInfo.get("expiryDate"));
+        output.writeEndObject();
+    }
+
+    private void writeIntermediaries(JsonParser input, JsonGenerator output, boolean validate) throws IOException {
+        output.writeFieldName("intermediaries");
+        if (!validate) {
+            output.copyCurrentStructure(input);
+            return;
+        }
+        expect(input, JsonToken.START_ARRAY, "$.submission.intermediaries");
+        output.writeStartArray();
+        for (int index = 0; input.nextToken() != JsonToken.END_ARRAY; index++) {
+            JsonNode intermediary = input.readValueAsTree();
+            validate(intermediarySchema, intermediary, "$.submission.intermediaries[" + index + "]");
+            output.writeTree(intermediary);
+        }
+        output.writeEndArray();
+    }
+
+    private static void validate(JsonSchema partSchema, JsonNode part, String path) {
+        List<SchemaViolation> violations = partSchema.validate(part).stream()
+                .map(message -> SchemaViolation.from(message).under(path))
+                .toList();
+        if (!violations.isEmpty()) {
+            throw new InvalidToolInputException(violations);
+        }
+    }
+
+    private static void expect(JsonParser input, JsonToken token, String path) {
+        if (input.currentToken() != token) {
+            String expected = token == JsonToken.START_OBJECT ? "object" : "array";
+            throw new InvalidToolInputException(List.of(new SchemaViolation(path, "type",
+                    path + ": " + typeOf(input.currentToken()) + " found, " + expected + " expected")));
+        }
+    }
+
+    private static InvalidToolInputException missing(String parent, String property) {
+        String path = parent + "." + property;
+        return new InvalidToolInputException(List.of(
+                new SchemaViolation(path, "required", path + ": is missing but it is required")));
+    }
+
+    private static String typeOf(JsonToken token) {
+        if (token == null) {
+            return "nothing";
+        }
+        return switch (token) {
+            case START_OBJECT -> "object";
+            case START_ARRAY -> "array";
+            case VALUE_STRING -> "string";
+            case VALUE_NUMBER_INT -> "integer";
+            case VALUE_NUMBER_FLOAT -> "number";
+            case VALUE_TRUE, VALUE_FALSE -> "boolean";
+            case VALUE_NULL -> "null";
+            default -> token.name();
+        };
+    }
+}
@@ -0,0 +1,293 @@
+package com.example.mcpserver;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+/**
+ * Durable outbox of accepted submissions awaiting delivery to the downstream intake.
+ * <p>
+ * Every submission is a file in {@code submission.outbox.dir}. It is written under a temporary
+ * name, synced to disk and renamed to {@code pending/<trackingId>.json} before the submission is
+ * acknowledged, so an acknowledged submission survives a crash or restart; a half-written file
+ * is never picked up. Delivered submissions are deleted, and those the intake rejects for good
+ * are moved to {@code failed/} for inspection. Submissions still pending at startup are handed
+ * to the {@link SubmissionForwarder} again.
+ * <p>
+ * The number of pending submissions is capped by {@code submission.outbox.max-pending}, so a
+ * long downstream outage fills the disk only up to a known size.
+ */
+@Component
+public class SubmissionOutbox {
+
+    private static final Logger log = LoggerFactory.getLogger(SubmissionOutbox.class);
+
+    private static final String SUFFIX = ".json";
+    private static final String TEMP_SUFFIX = ".tmp";
+
+    /**
+     * Delivery state of a submission: {@code pending}, {@code delivered} or {@code failed}.
+     */
+    public record Status(String trackingId, String state, int attempts, String lastError) {
+    }
+
+    private final Path pendingDir;
+    private final Path failedDir;
+    private final int maxPending;
+    private final boolean fsync;
+
+    private final Map<String, Status> pending = new ConcurrentHashMap<>();
+    private final AtomicInteger writing = new AtomicInteger();
+    // Recently delivered or failed submissions, so their status can still be looked up
+    private final Map<String, Status> completed;
+    private final List<String> recovered;
+
+    public SubmissionOutbox(@Value("${submission.outbox.dir}") String dir,
+                            @Value("${submission.outbox.max-pending:10000}") int maxPending,
+                            @Value("${submission.outbox.fsync:true}") boolean fsync,
+                            @Value("${submission.outbox.status-history:10000}") int statusHistory,
+                            MeterRegistry meterRegistry) {
+        this.pendingDir = Path.of(dir, "pending");
+        this.failedDir = Path.of(dir, "failed");
+        this.maxPending = maxPending;
+        this.fsync = fsync;
+        this.completed = Collections.synchronizedMap(new LinkedHashMap<>(16, 0.75f, false) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Status> eldest) {
+                return size() > statusHistory;
+            }
+        });
+
+        try {
+            Files.createDirectories(pendingDir);
+            Files.createDirectories(failedDir);
+            this.recovered = recover();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Error opening submission outbox " + dir, e);
+        }
+        recovered.forEach(id -> pending.put(id, new Status(id, "pending", 0, null)));
+        if (!recovered.isEmpty()) {
+            log.info("Recovered {} pending submissions from {}", recovered.size(), pendingDir);
+        }
+
+        meterRegistry.gauge("mcp.submission.outbox.pending", pending, Map::size);
+    }
+
+    /**
+     * Deletes files that were never completely written, and returns the tracking IDs of the
+     * pending submissions in the order they were accepted.
+     */
+    private List<String> recover() throws IOException {
+        List<Path> files;
+        try (Stream<Path> stream = Files.list(pendingDir)) {
+            files = stream.toList();
+        }
+        List<Path> submissions = new ArrayList<>();
+        for (Path file : files) {
+            String name = file.getFileName().toString();
+            if (name.endsWith(TEMP_SUFFIX)) {
+                Files.deleteIfExists(file);
+            } else if (name.endsWith(SUFFIX)) {
+                submissions.add(file);
+            }
+        }
+        submissions.sort(Comparator.comparing(SubmissionOutbox::lastModified));
+        return submissions.stream().map(SubmissionOutbox::trackingId).toList();
+    }
+
+    /**
+     * Tracking IDs of the submissions found pending at startup, oldest first.
+     */
+    public List<String> recovered() {
+        return recovered;
+    }
+
+    /**
+     * Starts writing a new submission, or returns null if the outbox is full.
+     */
+    public Spool open() throws IOException {
+        if (pending.size() + writing.incrementAndGet() > maxPending) {
+            writing.decrementAndGet();
+            log.warn("Submission outbox is full ({} pending)", pending.size());
+            return null;
+        }
+        try {
+            return new Spool(UUID.randomUUID().toString());
+        } catch (IOException | RuntimeException e) {
+            writing.decrementAndGet();
+            throw e;
+        }
+    }
+
+    /**
+     * The payload file of a pending submission.
+     */
+    public Path payload(String trackingId) {
+        return pendingDir.resolve(trackingId + SUFFIX);
+    }
+
+    /**
+     * Records a failed delivery attempt and returns the number of attempts so far.
+     */
+    public int attemptFailed(String trackingId, String error) {
+        Status status = pending.computeIfPresent(trackingId,
+                (id, previous) -> new Status(id, "pending", previous.attempts() + 1, error));
+        return status != null ? status.attempts() : 0;
+    }
+
+    /**
+     * Removes a submission the intake has accepted.
+     */
+    public void delivered(String trackingId) {
+        Status status = pending.remove(trackingId);
+        try {
+            Files.deleteIfExists(payload(trackingId));
+        } catch (IOException e) {
+            log.warn("Error deleting delivered submission {}", trackingId, e);
+        }
+        int attempts = status != null ? status.attempts() + 1 : 1;
+        completed.put(trackingId, new Status(trackingId, "delivered", attempts, null));
+    }
+
+    /**
+     * Moves a submission the intake rejected for good to {@code failed/}.
+     */
+    public void rejected(String trackingId, String error) {
+        Status status = pending.remove(trackingId);
+        try {
+            Files.move(payload(trackingId), failedDir.resolve(trackingId + SUFFIX), StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            log.error("Error moving rejected submission {} to {}", trackingId, failedDir, e);
+        }
+        int attempts = status != null ? status.attempts() + 1 : 1;
+        completed.put(trackingId, new Status(trackingId, "failed", attempts, error));
+    }
+
+    /**
+     * Returns the delivery state of a submission, or null if the tracking ID is unknown.
+     * Delivered submissions are remembered only for the last {@code submission.outbox.status-history}
+     * deliveries since startup.
+     */
+    public Status status(String trackingId) {
+        try {
+            UUID.fromString(trackingId);
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+        Status status = pending.get(trackingId);
+        if (status == null) {
+            status = completed.get(trackingId);
+        }
+        if (status == null && Files.exists(failedDir.resolve(trackingId + SUFFIX))) {
+            status = new Status(trackingId, "failed", 0, null);
+        }
+        return status;
+    }
+
+    private static String trackingId(Path file) {
+        String name = file.getFileName().toString();
+        return name.substring(0, name.length() - SUFFIX.length());
+    }
+
+    private static long lastModified(Path file) {
+        try {
+            return Files.getLastModifiedTime(file).toMillis();
+        } catch (IOException e) {
+            return Long.MAX_VALUE;
+        }
+    }
+
+    /**
+     * A submission being written. It becomes pending on {@link #commit()}; closing it without
+     * committing discards it.
+     */
+    public final class Spool implements Closeable {
+
+        private final String trackingId;
+        private final Path temp;
+        private final FileOutputStream file;
+        private final OutputStream out;
+        private boolean done;
+
+        private Spool(String trackingId) throws IOException {
+            this.trackingId = trackingId;
+            this.temp = pendingDir.resolve(trackingId + TEMP_SUFFIX);
+            this.file = new FileOutputStream(temp.toFile());
+            this.out = new BufferedOutputStream(file, 16384);
+        }
+
+        public String trackingId() {
+            return trackingId;
+        }
+
+        /**
+         * Where to write the payload sent to the intake.
+         */
+        public OutputStream output() {
+            return out;
+        }
+
+        /**
+         * Makes the submission durable and pending, and returns its payload file.
+         */
+        public Path commit() throws IOException {
+            out.flush();
+            if (fsync) {
+                file.getFD().sync();
+            }
+            out.close();
+            Path target = payload(trackingId);
+            Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE);
+            if (fsync) {
+                syncDirectory();
+            }
+            pending.put(trackingId, new Status(trackingId, "pending", 0, null));
+            writing.decrementAndGet();
+            done = true;
+            return target;
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (!done) {
+                done = true;
+                writing.decrementAndGet();
+                out.close();
+                Files.deleteIfExists(temp);
+            }
+        }
+
+        // Makes the rename durable; not every platform can open a directory, so this is best effort
+        private void syncDirectory() {
+            try (FileChannel directory = FileChannel.open(pendingDir, StandardOpenOption.READ)) {
+                directory.force(true);
+            } catch (IOException e) {
+                log.debug("Cannot sync directory {}", pendingDir, e);
+            }
+        }
+    }
+}
@@ -0,0 +1,151 @@
+package com.example.mcpserver;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Collections;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Immutable, pre-serialized view of the tool catalog.
+ * <p>
+ * Built once whenever the catalog changes, so that serving GET /mcp/tools only writes
+ * ready-made bytes. The ETag is a hash of the serialized JSON; the gzip-encoded body is a
+ * different representation and has its own ETag, the same hash with a {@code -gz} suffix.
+ */
+final class ToolCatalogSnapshot {
+
+    private final Map<String, ObjectNode> tools;
+    private final byte[] json;
+    private final byte[] gzip;
+    private final String etag;
+    private final String gzipEtag;
+
+    private ToolCatalogSnapshot(Map<String, ObjectNode> tools, byte[] json, byte[] gzip, String hash) {
+        this.tools = tools;
+        this.json = json;
+        this.gzip = gzip;
+        this.etag = "\"" + hash + "\"";
+        this.gzipEtag = "\"" + hash + "-gz\"";
+    }
+
+    /**
+     * Creates a snapshot from the given tool definitions. The definitions are copied,
+     * so later changes to the source map or nodes do not affect the snapshot.
+     */
+    static ToolCatalogSnapshot of(Map<String, ObjectNode> definitions, ObjectMapper objectMapper) throws IOException {
+        Map<String, ObjectNode> copy = new LinkedHashMap<>();
+        definitions.forEach((name, definition) -> copy.put(name, definition.deepCopy()));
+
+        byte[] json = objectMapper.writeValueAsBytes(copy);
+        return new ToolCatalogSnapshot(Collections.unmodifiableMap(copy), json, gzip(json), hashOf(json));
+    }
+
+    boolean contains(String tool) {
+        return tools.containsKey(tool);
+    }
+
+    Map<String, ObjectNode> tools() {
+        return tools;
+    }
+
+    byte[] json() {
+        return json;
+    }
+
+    byte[] gzip() {
+        return gzip;
+    }
+
+    String etag() {
+        return etag;
+    }
+
+    /**
+     * ETag of the gzip-encoded body.
+     */
+    String gzipEtag() {
+        return gzipEtag;
+    }
+
+    /**
+     * Checks an If-None-Match header value against this snapshot's ETags. Either one matches,
+     * as both representations have the same content; weak tags compare like strong ones.
+     */
+    boolean matches(String ifNoneMatch) {
+        if (ifNoneMatch == null) {
+            return false;
+        }
+        for (String candidate : ifNoneMatch.split(",")) {
+            String tag = candidate.trim();
+            if (tag.startsWith("W/")) {
+                tag = tag.substring(2);
+            }
+            if (tag.equals("*") || tag.equals(etag) || tag.equals(gzipEtag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Whether an Accept-Encoding header value allows gzip: {@code gzip}, {@code x-gzip} or,
+     * failing those, {@code *} is listed with a quality above zero.
+     */
+    static boolean acceptsGzip(String acceptEncoding) {
+        if (acceptEncoding == null) {
+            return false;
+        }
+        Boolean wildcard = null;
+        for (String entry : acceptEncoding.split(",")) {
+            String[] parts = entry.split(";");
+            String coding = parts[0].trim();
+            boolean accepted = quality(parts) > 0;
+            if (coding.equalsIgnoreCase("gzip") || coding.equalsIgnoreCase("x-gzip")) {
+                return accepted;
+            }
+            if (coding.equals("*")) {
+                wildcard = accepted;
+            }
+        }
+        return wildcard != null && wildcard;
+    }
+
+    private static double quality(String[] parameters) {
+        for (int i = 1; i < parameters.length; i++) {
+            String parameter = parameters[i].trim();
+            if (parameter.length() > 2 && parameter.substring(0, 2).equalsIgnoreCase("q=")) {
+                try {
+                    return Double.parseDouble(parameter.substring(2).trim());
+                } catch (NumberFormatException e) {
+                    return 0;
+                }
+            }
+        }
+        return 1;
+    }
+
+    private static byte[] gzip(byte[] data) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(data.length / 4);
+        try (GZIPOutputStream gzipOut = new GZIPOutputStream(out)) {
+            gzipOut.write(data);
+        }
+        return out.toByteArray();
+    }
+
+    private static String hashOf(byte[] data) {
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(data);
+            return HexFormat.of().formatHex(hash, 0, 16);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+}
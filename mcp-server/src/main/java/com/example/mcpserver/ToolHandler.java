@@ -0,0 +1,53 @@
+package com.example.mcpserver;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.springframework.http.ResponseEntity;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+
+/**
+ * A tool exposed by the MCP server.
+ * <p>
+ * Handlers are discovered as Spring beans and through {@link java.util.ServiceLoader}, either
+ * on the server classpath or in plugin jars under {@code mcp.tools.plugin-dir}. They can also be
+ * added at runtime with {@link ToolRegistry#register}. The name is the key clients pass to
+ * /mcp/execute and must be unique.
+ */
+public interface ToolHandler {
+
+    String name();
+
+    String title();
+
+    String description();
+
+    /**
+     * JSON schema of the tool input, as published in the catalog.
+     */
+    ObjectNode schema();
+
+    /**
+     * Executes the tool. Failures are returned as an error status with an {@code {"error": ...}} body.
+     * A {@code metadata} object in a successful body is filled in by the server with the measured
+     * {@code executionTime} (ms) and {@code responseSize} (bytes).
+     */
+    ResponseEntity<JsonNode> execute(JsonNode input);
+
+    /**
+     * Reads a JSON schema from the class path of {@code owner}, e.g. {@code schemas/simple-tool-schema.json}.
+     */
+    static ObjectNode loadSchema(Class<?> owner, String location) {
+        try (InputStream in = owner.getClassLoader().getResourceAsStream(location)) {
+            if (in == null) {
+                throw new IllegalArgumentException("Schema not found on class path: " + location);
+            }
+            return (ObjectNode) new ObjectMapper().readTree(in);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Error loading schema " + location, e);
+        }
+    }
+}
@@ -0,0 +1,195 @@
+package com.example.mcpserver;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.networknt.schema.JsonSchema;
+import com.networknt.schema.JsonSchemaFactory;
+import com.networknt.schema.SpecVersion;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.ServiceLoader;
+import java.util.Set;
+import java.util.stream.Stream;
+
+/**
+ * Registry of the server's {@link ToolHandler}s.
+ * <p>
+ * Dispatch reads an immutable name-to-handler map, published together with the matching
+ * {@link ToolCatalogSnapshot}, so lookups are a single hash lookup without locking. Registering
+ * or removing a tool copies the map, rebuilds the catalog and swaps both in at once. Input
+ * schemas are compiled when a tool is registered, so validation never parses a schema.
+ * <p>
+ * Plugin jars in {@code mcp.tools.plugin-dir} are loaded through {@link ServiceLoader} at
+ * startup and again on {@link #reloadPlugins()}, so tools can be added or upgraded without a
+ * redeploy. Previous plugin class loaders are not closed, so executions in flight can finish.
+ */
+@Component
+public class ToolRegistry {
+
+    private static final Logger log = LoggerFactory.getLogger(ToolRegistry.class);
+
+    private record State(Map<String, ToolHandler> handlers, Map<String, JsonSchema> schemas,
+                         ToolCatalogSnapshot catalog) {
+    }
+
+    private final ObjectMapper objectMapper;
+    private final Path pluginDir;
+
+    // Guarded by this; the published state is derived from it
+    private final Map<String, ToolHandler> registered = new LinkedHashMap<>();
+    private final Map<String, ObjectNode> definitions = new LinkedHashMap<>();
+    private final Map<String, JsonSchema> schemas = new LinkedHashMap<>();
+    private final JsonSchemaFactory schemaFactory = JsonSchemaFactory.getInstance(SpecVersion.VersionFlag.V7);
+    private Set<String> pluginTools = Set.of();
+
+    private volatile State state;
+
+    public ToolRegistry(ObjectMapper objectMapper, List<ToolHandler> beans,
+                        @Value("${mcp.tools.plugin-dir:}") String pluginDir) {
+        this.objectMapper = objectMapper;
+        this.pluginDir = pluginDir.isBlank() ? null : Path.of(pluginDir);
+
+        synchronized (this) {
+            beans.forEach(this::add);
+            ServiceLoader.load(ToolHandler.class, ToolHandler.class.getClassLoader()).forEach(this::add);
+            pluginTools = loadPlugins();
+            publish();
+        }
+        log.info("Registered tools: {}", registered.keySet());
+    }
+
+    /**
+     * Returns the handler for a tool, or null if there is none.
+     */
+    public ToolHandler get(String name) {
+        return state.handlers().get(name);
+    }
+
+    /**
+     * Validates a tool input against the tool's compiled input schema.
+     *
+     * @return the violations, empty if the input is valid or the tool is unknown
+     */
+    public List<SchemaViolation> validate(String name, JsonNode input) {
+        JsonSchema schema = state.schemas().get(name);
+        if (schema == null) {
+            return List.of();
+        }
+        return schema.validate(input).stream().map(SchemaViolation::from).toList();
+    }
+
+    ToolCatalogSnapshot catalog() {
+        return state.catalog();
+    }
+
+    /**
+     * Registers a handler, replacing any handler with the same name.
+     */
+    public synchronized void register(ToolHandler handler) {
+        add(handler);
+        publish();
+    }
+
+    /**
+     * Removes a tool.
+     *
+     * @return true if the tool was registered
+     */
+    public synchronized boolean unregister(String name) {
+        if (registered.remove(name) == null) {
+            return false;
+        }
+        definitions.remove(name);
+        schemas.remove(name);
+        publish();
+        log.info("Unregistered tool '{}'", name);
+        return true;
+    }
+
+    /**
+     * Reloads the plugin jars: tools from the previous load are removed and the current jars
+     * are scanned again.
+     *
+     * @return the names of all registered tools
+     */
+    public synchronized Set<String> reloadPlugins() {
+        pluginTools.forEach(name -> {
+            registered.remove(name);
+            definitions.remove(name);
+            schemas.remove(name);
+        });
+        pluginTools = loadPlugins();
+        publish();
+        return state.handlers().keySet();
+    }
+
+    private void add(ToolHandler handler) {
+        ObjectNode definition = objectMapper.createObjectNode();
+        definition.put("description", handler.description());
+        definition.put("title", handler.title());
+        definition.set("schema", handler.schema());
+        JsonSchema schema = schemaFactory.getSchema(handler.schema());
+
+        if (registered.put(handler.name(), handler) != null) {
+            log.info("Replaced tool '{}' with {}", handler.name(), handler.getClass().getName());
+        }
+        definitions.put(handler.name(), definition);
+        schemas.put(handler.name(), schema);
+    }
+
+    private Set<String> loadPlugins() {
+        if (pluginDir == null || !Files.isDirectory(pluginDir)) {
+            return Set.of();
+        }
+
+        List<URL> jars = new ArrayList<>();
+        try (Stream<Path> files = Files.list(pluginDir)) {
+            for (Path jar : files.filter(file -> file.toString().endsWith(".jar")).sorted().toList()) {
+                jars.add(jar.toUri().toURL());
+            }
+        } catch (MalformedURLException e) {
+            throw new IllegalStateException("Invalid plugin path in " + pluginDir, e);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Error listing tool plugins in " + pluginDir, e);
+        }
+
+        URLClassLoader loader = new URLClassLoader(jars.toArray(URL[]::new), ToolHandler.class.getClassLoader());
+        Set<String> names = new HashSet<>();
+        for (ToolHandler handler : ServiceLoader.load(ToolHandler.class, loader)) {
+            // Handlers on the server class path are also visible through the parent loader
+            if (handler.getClass().getClassLoader() == loader) {
+                add(handler);
+                names.add(handler.name());
+            }
+        }
+        log.info("Loaded {} tool(s) from {} plugin jar(s) in {}: {}", names.size(), jars.size(), pluginDir, names);
+        return names;
+    }
+
+    private void publish() {
+        try {
+            ToolCatalogSnapshot catalog = ToolCatalogSnapshot.of(definitions, objectMapper);
+            state = new State(Collections.unmodifiableMap(new LinkedHashMap<>(registered)),
+                    Map.copyOf(schemas), catalog);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Error building tool catalog", e);
+        }
+    }
+}
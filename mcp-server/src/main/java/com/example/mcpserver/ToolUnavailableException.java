@@ -0,0 +1,14 @@
+package com.example.mcpserver;
+
+/**
+ * Thrown by a {@link StreamingToolHandler} that cannot take on more work for now, e.g. because
+ * its queue is full. Answered with 503, so the client can retry later.
+ */
+public class ToolUnavailableException extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    public ToolUnavailableException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,172 @@
+package com.example.mcpserver;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class IsicAocIndexTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void encodeKeepsLeadingZeros() {
+        assertThat(IsicAocIndex.encode("0111")).isNotEqualTo(IsicAocIndex.encode("111"));
+        assertThat(IsicAocIndex.encode("01")).isNotEqualTo(IsicAocIndex.encode("1"));
+        assertThat(IsicAocIndex.encode("0")).isNotEqualTo(IsicAocIndex.encode("00"));
+        assertThat(IsicAocIndex.encode("0111", 2)).isEqualTo(IsicAocIndex.encode("01"));
+    }
+
+    @Test
+    void encodeOrdersCodesByLengthThenValue() {
+        assertThat(IsicAocIndex.encode("99")).isLessThan(IsicAocIndex.encode("000"));
+        assertThat(IsicAocIndex.encode("0111")).isLessThan(IsicAocIndex.encode("0112"));
+    }
+
+    @Test
+    void encodeSectionLetters() {
+        assertThat(IsicAocIndex.encode("A")).isEqualTo('A');
+        assertThat(IsicAocIndex.encode("U")).isEqualTo('U');
+        assertThat(IsicAocIndex.encode("A")).isNotEqualTo(IsicAocIndex.encode("1"));
+        assertThat(IsicAocIndex.encode("a")).isNegative();
+        assertThat(IsicAocIndex.encode("AB")).isNegative();
+    }
+
+    @Test
+    void encodeRejectsInvalidCodes() {
+        assertThat(IsicAocIndex.encode("")).isNegative();
+        assertThat(IsicAocIndex.encode("01a1")).isNegative();
+        assertThat(IsicAocIndex.encode(" 0111")).isNegative();
+        assertThat(IsicAocIndex.encode("0111", 5)).isNegative();
+    }
+
+    @Test
+    void encodeAtMost17Digits() {
+        assertThat(IsicAocIndex.encode("99999999999999999")).isPositive();
+        assertThat(IsicAocIndex.encode("00000000000000000")).isPositive();
+        assertThat(IsicAocIndex.encode("999999999999999999")).isNegative();
+        assertThat(IsicAocIndex.encode("999999999999999999", 17))
+                .isEqualTo(IsicAocIndex.encode("99999999999999999"));
+    }
+
+    @Test
+    void buildAndOpenRoundTrip() throws IOException {
+        Path file = build("""
+                isic_code,aoc_code
+                0111,AOC-1
+                0112,AOC-2,ignored
+                011,AOC-3
+                A,AOC-A
+                111,AOC-4
+                """, 42, 1000);
+
+        IsicAocIndex index = IsicAocIndex.open(file);
+        assertThat(index.size()).isEqualTo(5);
+        assertThat(index.lookup("0111")).isEqualTo("AOC-1");
+        assertThat(index.lookup("0112")).isEqualTo("AOC-2");
+        assertThat(index.lookup("011")).isEqualTo("AOC-3");
+        assertThat(index.lookup("111")).isEqualTo("AOC-4");
+        assertThat(index.lookup("0113", 3)).isEqualTo("AOC-3");
+        assertThat(index.lookupSection('A')).isEqualTo("AOC-A");
+        assertThat(index.lookup("0113")).isNull();
+        assertThat(index.lookup("1")).isNull();
+        assertThat(index.lookupSection('B')).isNull();
+        assertThat(index.builtFrom(42, 1000)).isTrue();
+        assertThat(index.builtFrom(42, 1001)).isFalse();
+    }
+
+    @Test
+    void lastDuplicateRowWins() throws IOException {
+        Path file = build("""
+                isic_code,aoc_code
+                0111,FIRST
+                0112,OTHER
+                0111,SECOND
+                0111,LAST
+                """, 0, 0);
+
+        IsicAocIndex index = IsicAocIndex.open(file);
+        assertThat(index.size()).isEqualTo(2);
+        assertThat(index.lookup("0111")).isEqualTo("LAST");
+        assertThat(index.lookup("0112")).isEqualTo("OTHER");
+    }
+
+    @Test
+    void skipsInvalidRows() throws IOException {
+        Path file = build("""
+                isic_code,aoc_code
+                0111
+                x111,AOC-1
+                0112,
+                0113,AOC-3
+                """, 0, 0);
+
+        IsicAocIndex index = IsicAocIndex.open(file);
+        assertThat(index.size()).isEqualTo(1);
+        assertThat(index.lookup("0113")).isEqualTo("AOC-3");
+        assertThat(index.lookup("0112")).isNull();
+    }
+
+    @Test
+    void emptySource() throws IOException {
+        IsicAocIndex index = IsicAocIndex.open(build("isic_code,aoc_code\n", 0, 0));
+        assertThat(index.size()).isZero();
+        assertThat(index.lookup("0111")).isNull();
+    }
+
+    @Test
+    void rejectsTruncatedFiles() throws IOException {
+        byte[] bytes = Files.readAllBytes(build("""
+                isic_code,aoc_code
+                0111,AOC-1
+                0112,AOC-2
+                """, 0, 0));
+
+        // Cut in the header, in the AOC codes, and in the keys and their values
+        for (int length : new int[] {0, 20, 36, 40, bytes.length - 20, bytes.length - 1}) {
+            Path truncated = Files.write(dir.resolve("truncated-" + length), Arrays.copyOf(bytes, length));
+            assertThatThrownBy(() -> IsicAocIndex.open(truncated))
+                    .as("truncated to %d of %d bytes", length, bytes.length)
+                    .isInstanceOf(IOException.class);
+        }
+    }
+
+    @Test
+    void rejectsBadMagicAndVersion() throws IOException {
+        byte[] bytes = Files.readAllBytes(build("isic_code,aoc_code\n0111,AOC-1\n", 0, 0));
+
+        byte[] badMagic = bytes.clone();
+        ByteBuffer.wrap(badMagic).putInt(0, 0xCAFEBABE);
+        Path magicFile = Files.write(dir.resolve("magic"), badMagic);
+        assertThatThrownBy(() -> IsicAocIndex.open(magicFile))
+                .isInstanceOf(IOException.class)
+                .hasMessageContaining("Not an ISIC to AOC index");
+
+        byte[] badVersion = bytes.clone();
+        ByteBuffer.wrap(badVersion).putInt(4, 99);
+        Path versionFile = Files.write(dir.resolve("version"), badVersion);
+        assertThatThrownBy(() -> IsicAocIndex.open(versionFile))
+                .isInstanceOf(IOException.class)
+                .hasMessageContaining("Not an ISIC to AOC index");
+
+        Path csvFile = Files.writeString(dir.resolve("csv"), "isic_code,aoc_code\n0111,AOC-1\n".repeat(4));
+        assertThatThrownBy(() -> IsicAocIndex.open(csvFile)).isInstanceOf(IOException.class);
+    }
+
+    private Path build(String csv, long sourceLength, long sourceModified) throws IOException {
+        Path file = dir.resolve("index-" + System.nanoTime());
+        IsicAocIndex.build(new ByteArrayInputStream(csv.getBytes(StandardCharsets.UTF_8)),
+                sourceLength, sourceModified, file);
+        return file;
+    }
+}
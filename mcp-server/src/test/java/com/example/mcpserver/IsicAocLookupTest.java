@@ -0,0 +1,79 @@
+package com.example.mcpserver;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.core.io.DefaultResourceLoader;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class IsicAocLookupTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void resolvesHierarchically() throws IOException {
+        IsicAocLookup lookup = lookup("""
+                isic_code,aoc_code
+                0111,AOC-CLASS
+                012,AOC-GROUP
+                02,AOC-DIVISION
+                A,AOC-SECTION
+                """);
+
+        assertThat(lookup.resolve("0111", true)).isEqualTo(new IsicAocLookup.Match("AOC-CLASS", "0111", "exact"));
+        assertThat(lookup.resolve("01211", true)).isEqualTo(new IsicAocLookup.Match("AOC-GROUP", "012", "group"));
+        assertThat(lookup.resolve("0210", true)).isEqualTo(new IsicAocLookup.Match("AOC-DIVISION", "02", "division"));
+        assertThat(lookup.resolve("0311", true)).isEqualTo(new IsicAocLookup.Match("AOC-SECTION", "A", "section"));
+        assertThat(lookup.resolve("0311", false)).isNull();
+        assertThat(lookup.resolve("0511", true)).isNull();
+        assertThat(lookup.resolve("x", true)).isNull();
+    }
+
+    @Test
+    void writesEachBuildToANewFileAndDeletesOldOnes() throws IOException {
+        Path legacy = Files.writeString(dir.resolve("index.idx"), "unversioned");
+        IsicAocLookup lookup = lookup("isic_code,aoc_code\n0111,AOC-1\n");
+        assertThat(indexFiles()).containsExactly("index.idx.1");
+
+        Files.writeString(dir.resolve("isic.csv"), "isic_code,aoc_code\n0111,AOC-2\n0112,AOC-3\n");
+        assertThat(lookup.reload()).isEqualTo(2);
+        assertThat(lookup.resolve("0111", false).aocCode()).isEqualTo("AOC-2");
+        assertThat(indexFiles()).containsExactly("index.idx.2");
+        assertThat(legacy).doesNotExist();
+    }
+
+    @Test
+    void reusesLatestIndexWhileSourceIsUnchanged() throws IOException {
+        lookup("isic_code,aoc_code\n0111,AOC-1\n").reload();
+        Path latest = dir.resolve("index.idx.2");
+        long modified = Files.getLastModifiedTime(latest).toMillis();
+
+        IsicAocLookup restarted = new IsicAocLookup(new DefaultResourceLoader(),
+                dir.resolve("isic.csv").toUri().toString(), dir.resolve("index.idx").toString());
+        assertThat(restarted.resolve("0111", false).aocCode()).isEqualTo("AOC-1");
+        assertThat(indexFiles()).containsExactly("index.idx.2");
+        assertThat(Files.getLastModifiedTime(latest).toMillis()).isEqualTo(modified);
+    }
+
+    private IsicAocLookup lookup(String csv) throws IOException {
+        Path source = Files.writeString(dir.resolve("isic.csv"), csv);
+        return new IsicAocLookup(new DefaultResourceLoader(), source.toUri().toString(),
+                dir.resolve("index.idx").toString());
+    }
+
+    private List<String> indexFiles() throws IOException {
+        try (Stream<Path> files = Files.list(dir)) {
+            return files.map(file -> file.getFileName().toString())
+                    .filter(name -> name.startsWith("index"))
+                    .sorted()
+                    .toList();
+        }
+    }
+}
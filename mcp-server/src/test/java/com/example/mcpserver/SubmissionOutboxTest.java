@@ -0,0 +1,152 @@
+package com.example.mcpserver;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SubmissionOutboxTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void recoveryDeletesPartialFilesAndKeepsAcceptanceOrder() throws IOException {
+        Path pending = Files.createDirectories(dir.resolve("pending"));
+        String first = UUID.randomUUID().toString();
+        String second = UUID.randomUUID().toString();
+        String third = UUID.randomUUID().toString();
+        pendingFile(second, 2000);
+        pendingFile(third, 3000);
+        pendingFile(first, 1000);
+        Path partial = Files.writeString(pending.resolve(UUID.randomUUID() + ".tmp"), "{\"half\":");
+        Path unrelated = Files.writeString(pending.resolve("README"), "not a submission");
+
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        SubmissionOutbox outbox = new SubmissionOutbox(dir.toString(), 10, false, 100, meterRegistry);
+
+        assertThat(outbox.recovered()).containsExactly(first, second, third);
+        assertThat(partial).doesNotExist();
+        assertThat(unrelated).exists();
+        assertThat(outbox.status(first).state()).isEqualTo("pending");
+        assertThat(meterRegistry.get("mcp.submission.outbox.pending").gauge().value()).isEqualTo(3);
+    }
+
+    @Test
+    void recoveredSubmissionsCountTowardsTheCap() throws IOException {
+        Files.createDirectories(dir.resolve("pending"));
+        pendingFile(UUID.randomUUID().toString(), 1000);
+        pendingFile(UUID.randomUUID().toString(), 2000);
+
+        assertThat(outbox(2).open()).isNull();
+        assertThat(outbox(3).open()).isNotNull();
+    }
+
+    @Test
+    void capsPendingAndInProgressSubmissions() throws IOException {
+        SubmissionOutbox outbox = outbox(2);
+
+        SubmissionOutbox.Spool committed = outbox.open();
+        committed.commit();
+        SubmissionOutbox.Spool writing = outbox.open();
+        assertThat(writing).isNotNull();
+        assertThat(outbox.open()).isNull();
+
+        // Discarding a spool or delivering a submission frees its place
+        writing.close();
+        SubmissionOutbox.Spool next = outbox.open();
+        assertThat(next).isNotNull();
+        assertThat(outbox.open()).isNull();
+        outbox.delivered(committed.trackingId());
+        assertThat(outbox.open()).isNotNull();
+    }
+
+    @Test
+    void commitMakesTheSubmissionPending() throws IOException {
+        SubmissionOutbox outbox = outbox(10);
+
+        Path payload;
+        String trackingId;
+        try (SubmissionOutbox.Spool spool = outbox.open()) {
+            trackingId = spool.trackingId();
+            spool.output().write("{\"id\":1}".getBytes(StandardCharsets.UTF_8));
+            assertThat(outbox.status(trackingId)).isNull();
+            payload = spool.commit();
+        }
+
+        assertThat(payload).isEqualTo(outbox.payload(trackingId)).hasContent("{\"id\":1}");
+        assertThat(outbox.status(trackingId).state()).isEqualTo("pending");
+        assertThat(outbox(10).recovered()).containsExactly(trackingId);
+    }
+
+    @Test
+    void closingWithoutCommitDiscardsTheSubmission() throws IOException {
+        SubmissionOutbox outbox = outbox(10);
+
+        try (SubmissionOutbox.Spool spool = outbox.open()) {
+            spool.output().write("{\"id\":".getBytes(StandardCharsets.UTF_8));
+        }
+
+        try (var files = Files.list(dir.resolve("pending"))) {
+            assertThat(files).isEmpty();
+        }
+    }
+
+    @Test
+    void tracksDeliveryOutcomes() throws IOException {
+        SubmissionOutbox outbox = outbox(10);
+        String delivered = commit(outbox);
+        String rejected = commit(outbox);
+
+        assertThat(outbox.attemptFailed(delivered, "HTTP 503")).isEqualTo(1);
+        outbox.delivered(delivered);
+        outbox.rejected(rejected, "HTTP 400: bad submission");
+
+        assertThat(outbox.status(delivered))
+                .isEqualTo(new SubmissionOutbox.Status(delivered, "delivered", 2, null));
+        assertThat(outbox.status(rejected))
+                .isEqualTo(new SubmissionOutbox.Status(rejected, "failed", 1, "HTTP 400: bad submission"));
+        assertThat(outbox.payload(delivered)).doesNotExist();
+        assertThat(dir.resolve("failed").resolve(rejected + ".json")).exists();
+
+        // After a restart, rejected submissions are still reported from failed/
+        SubmissionOutbox restarted = outbox(10);
+        assertThat(restarted.recovered()).isEmpty();
+        assertThat(restarted.status(rejected).state()).isEqualTo("failed");
+        assertThat(restarted.status(delivered)).isNull();
+    }
+
+    @Test
+    void unknownOrMalformedTrackingIds() throws IOException {
+        SubmissionOutbox outbox = outbox(10);
+
+        assertThat(outbox.status(UUID.randomUUID().toString())).isNull();
+        assertThat(outbox.status("../pending")).isNull();
+    }
+
+    private SubmissionOutbox outbox(int maxPending) {
+        return new SubmissionOutbox(dir.toString(), maxPending, false, 100, new SimpleMeterRegistry());
+    }
+
+    private static String commit(SubmissionOutbox outbox) throws IOException {
+        try (SubmissionOutbox.Spool spool = outbox.open()) {
+            spool.output().write("{}".getBytes(StandardCharsets.UTF_8));
+            spool.commit();
+            return spool.trackingId();
+        }
+    }
+
+    private void pendingFile(String trackingId, long modified) throws IOException {
+        Path file = Files.writeString(dir.resolve("pending").resolve(trackingId + ".json"), "{}");
+        Files.setLastModifiedTime(file, FileTime.fromMillis(modified));
+    }
+}
@@ -0,0 +1,64 @@
+package com.example.mcpserver;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.Map;
+import java.util.zip.GZIPInputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ToolCatalogSnapshotTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Test
+    void gzipBodyHasItsOwnEtag() throws IOException {
+        ToolCatalogSnapshot snapshot = snapshot("submission");
+
+        assertThat(snapshot.gzipEtag()).isNotEqualTo(snapshot.etag());
+        assertThat(snapshot.gzipEtag()).isEqualTo(snapshot.etag().replaceAll("\"$", "-gz\""));
+        try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(snapshot.gzip()))) {
+            assertThat(in.readAllBytes()).isEqualTo(snapshot.json());
+        }
+    }
+
+    @Test
+    void matchesEitherEtag() throws IOException {
+        ToolCatalogSnapshot snapshot = snapshot("submission");
+
+        assertThat(snapshot.matches(snapshot.etag())).isTrue();
+        assertThat(snapshot.matches(snapshot.gzipEtag())).isTrue();
+        assertThat(snapshot.matches("W/" + snapshot.gzipEtag())).isTrue();
+        assertThat(snapshot.matches("\"other\", " + snapshot.etag())).isTrue();
+        assertThat(snapshot.matches("*")).isTrue();
+        assertThat(snapshot.matches("\"other\"")).isFalse();
+        assertThat(snapshot.matches(null)).isFalse();
+        assertThat(snapshot.matches(snapshot("other").etag())).isFalse();
+    }
+
+    @Test
+    void acceptsGzipHonoursQualityValues() {
+        assertThat(ToolCatalogSnapshot.acceptsGzip("gzip")).isTrue();
+        assertThat(ToolCatalogSnapshot.acceptsGzip("deflate, gzip;q=0.5")).isTrue();
+        assertThat(ToolCatalogSnapshot.acceptsGzip("GZIP; Q=1.0")).isTrue();
+        assertThat(ToolCatalogSnapshot.acceptsGzip("x-gzip")).isTrue();
+        assertThat(ToolCatalogSnapshot.acceptsGzip("*")).isTrue();
+
+        assertThat(ToolCatalogSnapshot.acceptsGzip(null)).isFalse();
+        assertThat(ToolCatalogSnapshot.acceptsGzip("identity")).isFalse();
+        assertThat(ToolCatalogSnapshot.acceptsGzip("gzip;q=0")).isFalse();
+        assertThat(ToolCatalogSnapshot.acceptsGzip("gzip;q=0.000, *")).isFalse();
+        assertThat(ToolCatalogSnapshot.acceptsGzip("br, *;q=0")).isFalse();
+        assertThat(ToolCatalogSnapshot.acceptsGzip("gzip;q=x")).isFalse();
+        assertThat(ToolCatalogSnapshot.acceptsGzip("gzipper")).isFalse();
+    }
+
+    private ToolCatalogSnapshot snapshot(String tool) throws IOException {
+        ObjectNode definition = objectMapper.createObjectNode().put("description", tool);
+        return ToolCatalogSnapshot.of(Map.of(tool, definition), objectMapper);
+    }
+}